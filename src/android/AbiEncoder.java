@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/**
+ * Solidity ABI encoding of contract call data, as the data argument of createTransferGeneric.
+ *
+ * A method is given by its signature, e.g. "transfer(address,uint256)", or by the name of
+ * a common token method. Signatures are parsed and their selector hashed once, then kept
+ * in a cache. Call data is written into per thread buffers reused from call to call, only
+ * the resulting hex string is allocated.
+ *
+ * Supported types are address, bool, uint<N>, int<N>, bytes<N>, bytes and string. Arrays
+ * and tuples are not. Integers are given as decimal or 0x prefixed hex strings or as JSON
+ * numbers, byte strings as 0x prefixed hex.
+ */
+final class AbiEncoder {
+
+    private static final int WORD = 32;
+    private static final int MAX_CACHED_METHODS = 1024;
+
+    private static final int TYPE_ADDRESS = 0;
+    private static final int TYPE_BOOL = 1;
+    private static final int TYPE_UINT = 2;
+    private static final int TYPE_INT = 3;
+    private static final int TYPE_FIXED_BYTES = 4;
+    private static final int TYPE_BYTES = 5;
+    private static final int TYPE_STRING = 6;
+
+    private static final HashMap<String, String> TOKEN_METHODS = new HashMap<>();
+
+    static {
+        TOKEN_METHODS.put("transfer", "transfer(address,uint256)");
+        TOKEN_METHODS.put("approve", "approve(address,uint256)");
+        TOKEN_METHODS.put("transferFrom", "transferFrom(address,address,uint256)");
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    static final class AbiException extends Exception {
+        AbiException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Method {
+        final String signature;
+        final byte[] selector;
+        // Per parameter: type, and size in bits for integers or in bytes for bytes<N>.
+        final int[] types;
+        final int[] sizes;
+
+        Method(String signature, byte[] selector, int[] types, int[] sizes) {
+            this.signature = signature;
+            this.selector = selector;
+            this.types = types;
+            this.sizes = sizes;
+        }
+    }
+
+    private static final class Scratch {
+        byte[] data = new byte[4 + 8 * WORD];
+        char[] hex = new char[2 + 2 * data.length];
+        // Little endian 32 bits limbs of a 256 bits integer.
+        final int[] limbs = new int[8];
+    }
+
+    private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    private static final ConcurrentHashMap<String, Method> methods = new ConcurrentHashMap<>();
+
+    private AbiEncoder() {
+    }
+
+    /**
+     * @param method signature, or transfer, approve or transferFrom for the ERC-20 methods.
+     * @param values one value per parameter.
+     * @return the 0x prefixed hex call data.
+     */
+    static String encode(String method, JSONArray values) throws AbiException, JSONException {
+        Method m = method(method);
+        if (values.length() != m.types.length) {
+            throw new AbiException(m.signature + " takes " + m.types.length + " values, " + values.length()
+                    + " given");
+        }
+
+        // Dynamic values are converted first, to size the call data.
+        byte[][] dynamic = null;
+        int size = 4 + m.types.length * WORD;
+        for (int i = 0; i < m.types.length; i++) {
+            if (m.types[i] == TYPE_BYTES || m.types[i] == TYPE_STRING) {
+                if (dynamic == null) {
+                    dynamic = new byte[m.types.length][];
+                }
+                dynamic[i] = m.types[i] == TYPE_STRING ? values.getString(i).getBytes(StandardCharsets.UTF_8)
+                        : decodeHex(values.getString(i), i);
+                size += WORD + (dynamic[i].length + WORD - 1) / WORD * WORD;
+            }
+        }
+
+        Scratch s = scratch.get();
+        if (s.data.length < size) {
+            s.data = new byte[size];
+            s.hex = new char[2 + 2 * size];
+        }
+        byte[] data = s.data;
+        Arrays.fill(data, 0, size, (byte) 0);
+        System.arraycopy(m.selector, 0, data, 0, 4);
+
+        int tail = m.types.length * WORD;
+        for (int i = 0; i < m.types.length; i++) {
+            int head = 4 + i * WORD;
+            switch (m.types[i]) {
+                case TYPE_ADDRESS:
+                    writeAddress(values.getString(i), i, data, head);
+                    break;
+                case TYPE_BOOL:
+                    data[head + WORD - 1] = (byte) (values.getBoolean(i) ? 1 : 0);
+                    break;
+                case TYPE_UINT:
+                case TYPE_INT:
+                    writeInteger(values.get(i), m.types[i] == TYPE_INT, m.sizes[i], i, s.limbs, data, head);
+                    break;
+                case TYPE_FIXED_BYTES: {
+                    byte[] bytes = decodeHex(values.getString(i), i);
+                    if (bytes.length != m.sizes[i]) {
+                        throw new AbiException("Value " + i + ": " + m.sizes[i] + " bytes expected");
+                    }
+                    System.arraycopy(bytes, 0, data, head, bytes.length);
+                    break;
+                }
+                default: {
+                    // Offset from the start of the arguments, then length and padded bytes.
+                    writeLong(tail, data, head);
+                    writeLong(dynamic[i].length, data, 4 + tail);
+                    System.arraycopy(dynamic[i], 0, data, 4 + tail + WORD, dynamic[i].length);
+                    tail += WORD + (dynamic[i].length + WORD - 1) / WORD * WORD;
+                    break;
+                }
+            }
+        }
+
+        char[] hex = s.hex;
+        hex[0] = '0';
+        hex[1] = 'x';
+        for (int i = 0; i < size; i++) {
+            hex[2 + 2 * i] = HEX[(data[i] >> 4) & 0x0f];
+            hex[3 + 2 * i] = HEX[data[i] & 0x0f];
+        }
+        return new String(hex, 0, 2 + 2 * size);
+    }
+
+    /**
+     * @return the parsed method, from the cache when called before.
+     */
+    private static Method method(String method) throws AbiException {
+        Method m = methods.get(method);
+        if (m != null) {
+            return m;
+        }
+
+        String signature = TOKEN_METHODS.get(method);
+        m = parse(signature != null ? signature : method);
+        if (methods.size() >= MAX_CACHED_METHODS) {
+            methods.clear();
+        }
+        methods.put(method, m);
+        return m;
+    }
+
+    private static Method parse(String signature) throws AbiException {
+        String text = signature.replaceAll("\\s+", "");
+        int open = text.indexOf('(');
+        if (open <= 0 || !text.endsWith(")")) {
+            throw new AbiException("Invalid method signature '" + signature + "'");
+        }
+
+        String params = text.substring(open + 1, text.length() - 1);
+        String[] names = params.isEmpty() ? new String[0] : params.split(",", -1);
+        int[] types = new int[names.length];
+        int[] sizes = new int[names.length];
+        ArrayList<String> canonical = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            if (name.equals("address")) {
+                types[i] = TYPE_ADDRESS;
+            } else if (name.equals("bool")) {
+                types[i] = TYPE_BOOL;
+            } else if (name.equals("bytes")) {
+                types[i] = TYPE_BYTES;
+            } else if (name.equals("string")) {
+                types[i] = TYPE_STRING;
+            } else if (name.startsWith("uint") || name.startsWith("int")) {
+                boolean signed = name.startsWith("int");
+                types[i] = signed ? TYPE_INT : TYPE_UINT;
+                sizes[i] = size(name, signed ? 3 : 4, 256, signature);
+                if (sizes[i] % 8 != 0) {
+                    throw new AbiException("Invalid type '" + name + "' in '" + signature + "'");
+                }
+                name = (signed ? "int" : "uint") + sizes[i];
+            } else if (name.startsWith("bytes")) {
+                types[i] = TYPE_FIXED_BYTES;
+                sizes[i] = size(name, 5, 32, signature);
+            } else {
+                throw new AbiException("Unsupported type '" + name + "' in '" + signature + "'");
+            }
+            canonical.add(name);
+        }
+
+        StringBuilder sb = new StringBuilder(text.substring(0, open + 1));
+        for (int i = 0; i < canonical.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(canonical.get(i));
+        }
+        String canonicalSignature = sb.append(')').toString();
+
+        byte[] hash = AddressCodec.keccak256(canonicalSignature.getBytes(StandardCharsets.UTF_8));
+        byte[] selector = new byte[4];
+        System.arraycopy(hash, 0, selector, 0, 4);
+        return new Method(canonicalSignature, selector, types, sizes);
+    }
+
+    /**
+     * @return the size suffix of a type name, max when there is none.
+     */
+    private static int size(String name, int prefixLength, int max, String signature) throws AbiException {
+        if (name.length() == prefixLength) {
+            return max;
+        }
+        try {
+            int size = Integer.parseInt(name.substring(prefixLength));
+            if (size > 0 && size <= max && name.charAt(prefixLength) != '0') {
+                return size;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new AbiException("Invalid type '" + name + "' in '" + signature + "'");
+    }
+
+    private static void writeAddress(String address, int index, byte[] data, int offset) throws AbiException {
+        if (address.length() != 42 || !address.startsWith("0x")) {
+            throw new AbiException("Value " + index + ": invalid address");
+        }
+        for (int i = 0; i < 20; i++) {
+            data[offset + 12 + i] = (byte) hexByte(address, 2 + 2 * i, index);
+        }
+    }
+
+    private static void writeLong(long value, byte[] data, int offset) {
+        for (int i = 0; i < 8; i++) {
+            data[offset + WORD - 1 - i] = (byte) (value >>> (i << 3));
+        }
+    }
+
+    /**
+     * Write a big endian two's complement 256 bits integer, checking it fits in bits.
+     */
+    private static void writeInteger(Object value, boolean signed, int bits, int index, int[] limbs, byte[] data,
+                                     int offset) throws AbiException {
+        Arrays.fill(limbs, 0);
+        String text = value instanceof String ? (String) value : String.valueOf(value);
+        boolean negative = text.startsWith("-");
+        int start = negative ? 1 : 0;
+        boolean hex = text.startsWith("0x", start) || text.startsWith("0X", start);
+        if (hex) {
+            start += 2;
+        }
+        if (start >= text.length() || (negative && !signed)) {
+            throw new AbiException("Value " + index + ": invalid integer");
+        }
+
+        int radix = hex ? 16 : 10;
+        for (int i = start; i < text.length(); i++) {
+            int digit = Character.digit(text.charAt(i), radix);
+            if (digit < 0) {
+                throw new AbiException("Value " + index + ": invalid integer");
+            }
+            long carry = digit;
+            for (int j = 0; j < limbs.length; j++) {
+                long v = (limbs[j] & 0xffffffffL) * radix + carry;
+                limbs[j] = (int) v;
+                carry = v >>> 32;
+            }
+            if (carry != 0) {
+                throw new AbiException("Value " + index + ": out of range");
+            }
+        }
+
+        // Magnitude bound: 2^bits for unsigned, 2^(bits-1) for signed, reached only by the most negative value.
+        int magnitudeBits = signed ? bits - 1 : bits;
+        for (int bit = magnitudeBits; bit < 256; bit++) {
+            if ((limbs[bit >> 5] & (1 << (bit & 31))) != 0) {
+                boolean mostNegative = negative && bit == magnitudeBits && isPowerOfTwo(limbs, bit);
+                if (!mostNegative) {
+                    throw new AbiException("Value " + index + ": out of range");
+                }
+            }
+        }
+
+        if (negative) {
+            long carry = 1;
+            for (int j = 0; j < limbs.length; j++) {
+                long v = (~limbs[j] & 0xffffffffL) + carry;
+                limbs[j] = (int) v;
+                carry = v >>> 32;
+            }
+        }
+
+        for (int j = 0; j < limbs.length; j++) {
+            int limb = limbs[j];
+            int position = offset + WORD - 4 * (j + 1);
+            data[position] = (byte) (limb >>> 24);
+            data[position + 1] = (byte) (limb >>> 16);
+            data[position + 2] = (byte) (limb >>> 8);
+            data[position + 3] = (byte) limb;
+        }
+    }
+
+    private static boolean isPowerOfTwo(int[] limbs, int bit) {
+        for (int j = 0; j < limbs.length; j++) {
+            int expected = j == bit >> 5 ? 1 << (bit & 31) : 0;
+            if (limbs[j] != expected) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] decodeHex(String hex, int index) throws AbiException {
+        if (!hex.startsWith("0x") || hex.length() % 2 != 0) {
+            throw new AbiException("Value " + index + ": invalid hex bytes");
+        }
+        byte[] bytes = new byte[(hex.length() - 2) / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) hexByte(hex, 2 + 2 * i, index);
+        }
+        return bytes;
+    }
+
+    private static int hexByte(String text, int offset, int index) throws AbiException {
+        int hi = Character.digit(text.charAt(offset), 16);
+        int lo = Character.digit(text.charAt(offset + 1), 16);
+        if (hi < 0 || lo < 0) {
+            throw new AbiException("Value " + index + ": invalid hex");
+        }
+        return (hi << 4) | lo;
+    }
+}
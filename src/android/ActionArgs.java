@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.elastos.essentials.plugins.wallet;
+
+import org.elastos.spvcore.BTCSubWallet;
+import org.elastos.spvcore.ElastosBaseSubWallet;
+import org.elastos.spvcore.EthSidechainSubWallet;
+import org.elastos.spvcore.IDChainSubWallet;
+import org.elastos.spvcore.MainchainSubWallet;
+import org.elastos.spvcore.MasterWallet;
+import org.elastos.spvcore.SidechainSubWallet;
+import org.elastos.spvcore.SubWallet;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Arguments of an action, validated and extracted by ActionSpec.parse().
+ *
+ * Getters are indexed like the JSON array they come from and never fail: the type
+ * of each position was checked against the schema. The target wallet of the action
+ * is resolved by the dispatcher before the handler runs.
+ */
+final class ActionArgs {
+
+    static final class InvalidArgsException extends Exception {
+        InvalidArgsException(String message) {
+            super(message);
+        }
+    }
+
+    private final Object[] refs;
+    private final long[] prims;
+
+    final String masterWalletID;
+    final String chainID;
+
+    private MasterWallet masterWallet;
+    private SubWallet subWallet;
+
+    ActionArgs(Object[] refs, long[] prims, String masterWalletID, String chainID) {
+        this.refs = refs;
+        this.prims = prims;
+        this.masterWalletID = masterWalletID;
+        this.chainID = chainID;
+    }
+
+    int length() {
+        return refs.length;
+    }
+
+    String getString(int index) {
+        return (String) refs[index];
+    }
+
+    int getInt(int index) {
+        return (int) prims[index];
+    }
+
+    long getLong(int index) {
+        return prims[index];
+    }
+
+    boolean getBoolean(int index) {
+        return prims[index] != 0;
+    }
+
+    JSONArray getJSONArray(int index) {
+        return (JSONArray) refs[index];
+    }
+
+    JSONObject getJSONObject(int index) {
+        return (JSONObject) refs[index];
+    }
+
+    void setMasterWallet(MasterWallet masterWallet) {
+        this.masterWallet = masterWallet;
+    }
+
+    void setSubWallet(SubWallet subWallet) {
+        this.subWallet = subWallet;
+    }
+
+    MasterWallet masterWallet() {
+        return masterWallet;
+    }
+
+    SubWallet subWallet() {
+        return subWallet;
+    }
+
+    ElastosBaseSubWallet elastosBaseSubWallet() {
+        return (ElastosBaseSubWallet) subWallet;
+    }
+
+    MainchainSubWallet mainchainSubWallet() {
+        return (MainchainSubWallet) subWallet;
+    }
+
+    SidechainSubWallet sidechainSubWallet() {
+        return (SidechainSubWallet) subWallet;
+    }
+
+    IDChainSubWallet idChainSubWallet() {
+        return (IDChainSubWallet) subWallet;
+    }
+
+    EthSidechainSubWallet ethSidechainSubWallet() {
+        return (EthSidechainSubWallet) subWallet;
+    }
+
+    BTCSubWallet btcSubWallet() {
+        return (BTCSubWallet) subWallet;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Runs the calls of a batch action through the normal dispatch and collects their results.
+ *
+ * The thread running the batch works through the calls itself, idle workers of the
+ * pool join in to run calls in parallel, each call taking its own locks. Since the
+ * batch thread never waits for a call nobody started, a saturated pool only makes
+ * the batch run sequentially.
+ *
+ * A call returns a single result: a range action streamed with chunkSize > 0 is stopped
+ * after its first chunk and returns an error, its items are to be asked without chunkSize.
+ */
+final class ActionBatch {
+
+    interface Dispatcher {
+        void dispatch(String action, JSONArray args, CallbackContext cc);
+    }
+
+    private final JSONArray calls;
+    private final Dispatcher dispatcher;
+    private final CordovaWebView webView;
+
+    // Parent of the traced calls, on whichever thread they run.
+    private final Trace.Span span = Trace.current();
+
+    private final String[] results;
+    private final AtomicInteger next = new AtomicInteger(0);
+    private final CountDownLatch done;
+
+    ActionBatch(JSONArray calls, Dispatcher dispatcher, CordovaWebView webView) {
+        this.calls = calls;
+        this.dispatcher = dispatcher;
+        this.webView = webView;
+        this.results = new String[calls.length()];
+        this.done = new CountDownLatch(calls.length());
+    }
+
+    /**
+     * @return the JSON array of results, one {"success": result} or {"error": error} per call, in call order.
+     */
+    String run(ActionExecutor executor) throws InterruptedException {
+        int helpers = Math.min(results.length, executor.getWorkerCount()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            if (!executor.submit(this::drain)) {
+                break;
+            }
+        }
+
+        drain();
+        done.await();
+
+        StringBuilder sb = new StringBuilder(64 * results.length + 2);
+        sb.append('[');
+        for (int i = 0; i < results.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(results[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    private void drain() {
+        Trace.Span previous = Trace.enter(span);
+        try {
+            int i;
+            while ((i = next.getAndIncrement()) < results.length) {
+                try {
+                    results[i] = runCall(i);
+                } finally {
+                    done.countDown();
+                }
+            }
+        } finally {
+            Trace.exit(previous);
+        }
+    }
+
+    private String runCall(int i) {
+        String action = null;
+        try {
+            JSONObject call = calls.getJSONObject(i);
+            action = call.getString("action");
+            JSONArray args = call.optJSONArray("args");
+
+            if ("batch".equals(action)) {
+                return item("error", JSONObject.quote("Nested batch is not supported"));
+            }
+
+            ResultCapture capture = new ResultCapture(webView);
+            dispatcher.dispatch(action, args != null ? args : new JSONArray(), capture);
+
+            if (capture.streamed) {
+                return item("error", JSONObject.quote("Action '" + action
+                        + "' is streamed, chunkSize is not supported in a batch"));
+            }
+            PluginResult result = capture.result;
+            if (result == null) {
+                return item("error", JSONObject.quote("Action '" + action + "' returned no result"));
+            }
+            boolean ok = result.getStatus() == PluginResult.Status.OK.ordinal();
+            return item(ok ? "success" : "error", result.getMessage());
+        } catch (JSONException e) {
+            return item("error", JSONObject.quote("Invalid batch call " + i + ": " + e.getMessage()));
+        } catch (RuntimeException e) {
+            return item("error", JSONObject.quote("Action '" + action + "' exception: " + e.toString()));
+        }
+    }
+
+    private static String item(String key, String encodedValue) {
+        return "{\"" + key + "\":" + encodedValue + "}";
+    }
+
+    /**
+     * Keeps the final result of a call instead of sending it to the webview. A partial result
+     * finishes the context, so that a streaming action stops instead of deriving the rest.
+     */
+    private static final class ResultCapture extends CallbackContext {
+        private PluginResult result;
+        private boolean streamed = false;
+
+        ResultCapture(CordovaWebView webView) {
+            super("batch", webView);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return result != null || streamed;
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            if (isFinished() || pluginResult.getStatus() == PluginResult.Status.NO_RESULT.ordinal()) {
+                return;
+            }
+            if (pluginResult.getKeepCallback()) {
+                streamed = true;
+            } else {
+                result = pluginResult;
+            }
+        }
+    }
+}
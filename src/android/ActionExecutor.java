@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.util.Log;
+
+/**
+ * Bounded worker pool running wallet actions off the cordova bridge thread.
+ *
+ * Kept apart from cordova.getThreadPool() so that slow spvcore calls never
+ * starve other plugins, and bounded so that a burst of calls is rejected
+ * instead of piling up without limit.
+ */
+class ActionExecutor {
+
+    private static final String TAG = "ActionExecutor";
+
+    private static final int MAX_WORKERS = 4;
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final ThreadPoolExecutor pool;
+    private final AtomicLong rejected = new AtomicLong(0);
+
+    ActionExecutor() {
+        int workers = Math.max(2, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+
+        pool = new ThreadPoolExecutor(workers, workers, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY), new WorkerFactory());
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queue a task on the worker pool.
+     *
+     * @return false if the pool is saturated or shut down and the task was not queued.
+     */
+    boolean submit(Runnable task) {
+        try {
+            pool.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            Log.w(TAG, "Rejected task, " + pool.getQueue().size() + " pending");
+            return false;
+        }
+    }
+
+    int getWorkerCount() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /**
+     * @return {queued, active, workers, rejected}: the tasks waiting for a worker and the workers
+     *         running one right now, the pool size and the tasks rejected since start.
+     */
+    JSONObject toJSON() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("queued", pool.getQueue().size());
+        json.put("active", pool.getActiveCount());
+        json.put("workers", pool.getMaximumPoolSize());
+        json.put("rejected", rejected.get());
+        return json;
+    }
+
+    boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    private static class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "wallet-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
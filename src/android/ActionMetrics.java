@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Counters of one action: latency, request and response sizes, and errors by code.
+ *
+ * The latency is split into the wait in the queue before dispatch, the wait for wallet
+ * locks, including the ones the handler takes, and the execution of the rest.
+ *
+ * Each ActionSpec has its own, recorded by dispatch once the handler returned. The
+ * response size and error code are seen by a Context wrapping the callback context,
+ * the error code read from the "code" member of an error result's top-level object,
+ * scanned without parsing it. Recording does not lock, and allocates only that Context
+ * per action and a counter on the first call of each native method, so metrics are
+ * always on.
+ *
+ * The spvcore calls made for the action are counted by method, see NativeCalls.
+ */
+final class ActionMetrics {
+
+    static final int NO_ERROR = Integer.MIN_VALUE;
+    // An error result without a code, like an exception message.
+    static final int UNKNOWN_ERROR = 0;
+
+    // Distinct error codes counted per action, more are counted as UNKNOWN_ERROR.
+    private static final int ERROR_CODE_SLOTS = 16;
+
+    private static final String CODE_KEY = "\"code\":";
+
+    final Histogram latency = new Histogram();
+    final Histogram queueWait = new Histogram();
+    final Histogram lockWait = new Histogram();
+    final Histogram execution = new Histogram();
+    final Histogram requestSize = new Histogram();
+    final Histogram responseSize = new Histogram();
+
+    private final AtomicLong errors = new AtomicLong();
+    // Pairs of (code << 1 | 1, count), a zero key is a free slot.
+    private final AtomicLongArray errorCodes = new AtomicLongArray(ERROR_CODE_SLOTS * 2);
+
+    private final ConcurrentHashMap<String, AtomicLong> nativeCalls = new ConcurrentHashMap<>();
+    private final AtomicLong nativeMicros = new AtomicLong();
+
+    /**
+     * @param queueMicros time from the submit to dispatch.
+     * @param lockMicros time blocked on wallet locks from dispatch to the handler return.
+     * @param execMicros the rest of the time from dispatch to the handler return.
+     * @param requestSize length of the JSON arguments, or -1 if unknown.
+     * @param responseSize length of the encoded results sent.
+     */
+    void record(long queueMicros, long lockMicros, long execMicros, int requestSize, long responseSize,
+                int errorCode) {
+        latency.record(lockMicros + execMicros);
+        queueWait.record(queueMicros);
+        lockWait.record(lockMicros);
+        execution.record(execMicros);
+        if (requestSize >= 0) {
+            this.requestSize.record(requestSize);
+        }
+        this.responseSize.record(responseSize);
+
+        if (errorCode != NO_ERROR) {
+            errors.incrementAndGet();
+            countError(errorCode);
+        }
+    }
+
+    private void countError(int code) {
+        long key = ((long) code << 1) | 1;
+        for (int i = 0; i < ERROR_CODE_SLOTS * 2; i += 2) {
+            long slot = errorCodes.get(i);
+            if (slot == 0 && errorCodes.compareAndSet(i, 0, key)) {
+                slot = key;
+            } else if (slot == 0) {
+                slot = errorCodes.get(i);
+            }
+            if (slot == key) {
+                errorCodes.incrementAndGet(i + 1);
+                return;
+            }
+        }
+        if (code != UNKNOWN_ERROR) {
+            countError(UNKNOWN_ERROR);
+        }
+    }
+
+    void recordNative(String method, long micros) {
+        AtomicLong count = nativeCalls.get(method);
+        if (count == null) {
+            count = new AtomicLong();
+            AtomicLong existing = nativeCalls.putIfAbsent(method, count);
+            if (existing != null) {
+                count = existing;
+            }
+        }
+        count.incrementAndGet();
+        nativeMicros.addAndGet(micros);
+    }
+
+    boolean isUsed() {
+        return latency.getCount() > 0;
+    }
+
+    /**
+     * @return {count, errors, errorCodes: {code: count}, latencyMicros, queueMicros, lockMicros, execMicros,
+     * requestBytes, responseBytes, nativeCalls: {method: count}, nativeMicros}.
+     */
+    JSONObject toJSON(boolean reset) throws JSONException {
+        JSONObject json = new JSONObject();
+        JSONObject latencyJson = latency.toJSON(reset);
+        json.put("count", latencyJson.getLong("count"));
+        json.put("errors", reset ? errors.getAndSet(0) : errors.get());
+
+        JSONObject codes = new JSONObject();
+        for (int i = 0; i < ERROR_CODE_SLOTS * 2; i += 2) {
+            long key = errorCodes.get(i);
+            if (key == 0) {
+                break;
+            }
+            long count = reset ? errorCodes.getAndSet(i + 1, 0) : errorCodes.get(i + 1);
+            if (count > 0) {
+                codes.put(String.valueOf(key >> 1), count);
+            }
+        }
+        json.put("errorCodes", codes);
+
+        json.put("latencyMicros", latencyJson);
+        json.put("queueMicros", queueWait.toJSON(reset));
+        json.put("lockMicros", lockWait.toJSON(reset));
+        json.put("execMicros", execution.toJSON(reset));
+        json.put("requestBytes", requestSize.toJSON(reset));
+        json.put("responseBytes", responseSize.toJSON(reset));
+
+        JSONObject calls = new JSONObject();
+        for (Map.Entry<String, AtomicLong> entry : nativeCalls.entrySet()) {
+            long count = reset ? entry.getValue().getAndSet(0) : entry.getValue().get();
+            if (count > 0) {
+                calls.put(entry.getKey(), count);
+            }
+        }
+        json.put("nativeCalls", calls);
+        json.put("nativeMicros", reset ? nativeMicros.getAndSet(0) : nativeMicros.get());
+        return json;
+    }
+
+    /**
+     * Forwards results to the action's callback context, counting their size and keeping the error code.
+     */
+    static final class Context extends CallbackContext {
+        private final CallbackContext target;
+
+        private long responseSize = 0;
+        private int errorCode = NO_ERROR;
+
+        Context(CallbackContext target, CordovaWebView webView) {
+            super(target.getCallbackId(), webView);
+            this.target = target;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return target.isFinished();
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            int type = pluginResult.getMessageType();
+            if (type == PluginResult.MESSAGE_TYPE_STRING) {
+                responseSize += pluginResult.getStrMessage().length();
+            } else if (type == PluginResult.MESSAGE_TYPE_JSON) {
+                // Encoded when the result was made.
+                responseSize += pluginResult.getMessage().length();
+            }
+
+            if (pluginResult.getStatus() == PluginResult.Status.ERROR.ordinal()) {
+                errorCode = type == PluginResult.MESSAGE_TYPE_JSON ? errorCode(pluginResult.getMessage()) : UNKNOWN_ERROR;
+            }
+
+            long start = System.nanoTime();
+            target.sendPluginResult(pluginResult);
+            if (!pluginResult.getKeepCallback()) {
+                Trace.recordChild("callback", "callback", start, System.nanoTime());
+            }
+        }
+
+        long getResponseSize() {
+            return responseSize;
+        }
+
+        int getErrorCode() {
+            return errorCode;
+        }
+
+        /**
+         * @return the "code" member of the top-level object, the same key in a nested value or in an
+         * escaped string, like a message quoting spvcore's JSON, does not count.
+         */
+        private static int errorCode(String encoded) {
+            int depth = 0;
+            for (int i = 0; i < encoded.length(); i++) {
+                char c = encoded.charAt(i);
+                if (c == '"') {
+                    if (depth == 1 && encoded.startsWith(CODE_KEY, i)) {
+                        return parseCode(encoded, i + CODE_KEY.length());
+                    }
+                    i = endOfString(encoded, i);
+                    if (i < 0) {
+                        return UNKNOWN_ERROR;
+                    }
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            }
+            return UNKNOWN_ERROR;
+        }
+
+        /**
+         * @return the index of the quote closing the string opened at start, or -1.
+         */
+        private static int endOfString(String encoded, int start) {
+            for (int i = start + 1; i < encoded.length(); i++) {
+                char c = encoded.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static int parseCode(String encoded, int i) {
+            boolean negative = i < encoded.length() && encoded.charAt(i) == '-';
+            if (negative) {
+                i++;
+            }
+            long code = 0;
+            int digits = 0;
+            for (; i < encoded.length() && digits < 10; i++, digits++) {
+                char c = encoded.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                code = code * 10 + (c - '0');
+            }
+            if (digits == 0 || code > Integer.MAX_VALUE) {
+                return UNKNOWN_ERROR;
+            }
+            return (int) (negative ? -code : code);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import org.apache.cordova.CallbackContext;
+import org.elastos.spvcore.BTCSubWallet;
+import org.elastos.spvcore.ElastosBaseSubWallet;
+import org.elastos.spvcore.EthSidechainSubWallet;
+import org.elastos.spvcore.IDChainSubWallet;
+import org.elastos.spvcore.MainchainSubWallet;
+import org.elastos.spvcore.SidechainSubWallet;
+import org.elastos.spvcore.SubWallet;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Declaration of a plugin action: its handler, argument schema, target wallet and lock.
+ *
+ * The schema is written once as a compact string and compiled at registration, e.g.
+ * "masterWalletID:s chainID:s start:i count:i internal:b". Types are s (String), i (int),
+ * l (long), b (boolean), a (JSONArray) and o (JSONObject). A trailing "=value" makes
+ * the argument optional with that default, optional arguments must come last. A "!" after
+ * the type marks a secret, e.g. "payPassword:s!", whose size is not even journaled.
+ * Arguments named masterWalletID and chainID select the wallet the action works on.
+ */
+final class ActionSpec {
+
+    interface Handler {
+        void handle(ActionArgs args, CallbackContext cc) throws JSONException;
+    }
+
+    enum Target {
+        NONE(null),
+        MASTER_WALLET(null),
+        SUB_WALLET(SubWallet.class),
+        ELASTOS_BASE(ElastosBaseSubWallet.class),
+        MAINCHAIN(MainchainSubWallet.class),
+        SIDECHAIN(SidechainSubWallet.class),
+        IDCHAIN(IDChainSubWallet.class),
+        ETHSC(EthSidechainSubWallet.class),
+        BTC(BTCSubWallet.class);
+
+        final Class<? extends SubWallet> type;
+
+        Target(Class<? extends SubWallet> type) {
+            this.type = type;
+        }
+
+        boolean isSubWallet() {
+            return type != null;
+        }
+    }
+
+    enum Result {
+        // Sent as returned by the handler.
+        STRING,
+        // JSON text from spvcore is sent as a JSON result, the wrapper in wallet.ts accepts both.
+        JSON,
+        // JSON text from spvcore, sent as a JSON result only once the caller enabled structured results.
+        JSON_STRING,
+    }
+
+    private static final char TYPE_STRING = 's';
+    private static final char TYPE_INT = 'i';
+    private static final char TYPE_LONG = 'l';
+    private static final char TYPE_BOOLEAN = 'b';
+    private static final char TYPE_ARRAY = 'a';
+    private static final char TYPE_OBJECT = 'o';
+    private static final char SECRET = '!';
+
+    final String name;
+    final Handler handler;
+    final ActionMetrics metrics = new ActionMetrics();
+
+    private String[] argNames = new String[0];
+    private char[] argTypes = new char[0];
+    private String[] argDefaults = new String[0];
+    private boolean[] argSecrets = new boolean[0];
+    private int requiredCount = 0;
+
+    private Target target = Target.NONE;
+    private Result result = Result.STRING;
+    private WalletLockManager.Mode lockMode = null;
+    private String fixedChainID = null;
+    private int walletArg = -1;
+    private int chainArg = -1;
+
+    ActionSpec(String name, Handler handler) {
+        this.name = name;
+        this.handler = handler;
+    }
+
+    ActionSpec args(String schema) {
+        String[] entries = schema.trim().isEmpty() ? new String[0] : schema.trim().split("\\s+");
+
+        argNames = new String[entries.length];
+        argTypes = new char[entries.length];
+        argDefaults = new String[entries.length];
+        argSecrets = new boolean[entries.length];
+        requiredCount = entries.length;
+
+        for (int i = 0; i < entries.length; i++) {
+            String entry = entries[i];
+            int colon = entry.indexOf(':');
+            int equals = entry.indexOf('=');
+            int typeEnd = equals < 0 ? entry.length() : equals;
+            boolean secret = typeEnd == colon + 3 && entry.charAt(colon + 2) == SECRET;
+            if (colon <= 0 || colon + (secret ? 3 : 2) != typeEnd) {
+                throw new IllegalArgumentException(name + ": bad argument '" + entry + "'");
+            }
+
+            argNames[i] = entry.substring(0, colon);
+            argTypes[i] = entry.charAt(colon + 1);
+            argSecrets[i] = secret;
+            if (equals >= 0) {
+                argDefaults[i] = entry.substring(equals + 1);
+                if (requiredCount == entries.length) {
+                    requiredCount = i;
+                }
+            } else if (requiredCount != entries.length) {
+                throw new IllegalArgumentException(name + ": '" + entry + "' follows an optional argument");
+            }
+
+            if ("masterWalletID".equals(argNames[i])) {
+                walletArg = i;
+            } else if ("chainID".equals(argNames[i])) {
+                chainArg = i;
+            }
+        }
+        return this;
+    }
+
+    ActionSpec target(Target target) {
+        this.target = target;
+        return this;
+    }
+
+    /**
+     * The sub wallet is implied by the action, e.g. IDChain or BTC, instead of a chainID argument.
+     */
+    ActionSpec chain(String chainID) {
+        this.fixedChainID = chainID;
+        return this;
+    }
+
+    ActionSpec lock(WalletLockManager.Mode lockMode) {
+        this.lockMode = lockMode;
+        return this;
+    }
+
+    ActionSpec result(Result result) {
+        this.result = result;
+        return this;
+    }
+
+    Target getTarget() {
+        return target;
+    }
+
+    Result getResult() {
+        return result;
+    }
+
+    /**
+     * Lock taken if none was declared: shared on the wallet the action targets.
+     */
+    WalletLockManager.Mode getLockMode() {
+        if (lockMode != null) {
+            return lockMode;
+        }
+        if (target.isSubWallet()) {
+            return WalletLockManager.Mode.SUBWALLET_SHARED;
+        }
+        if (target == Target.MASTER_WALLET) {
+            return WalletLockManager.Mode.WALLET_SHARED;
+        }
+        return WalletLockManager.Mode.MANAGER_SHARED;
+    }
+
+    /**
+     * Validate and extract the arguments in one pass over the JSON array.
+     */
+    ActionArgs parse(JSONArray args) throws JSONException, ActionArgs.InvalidArgsException {
+        int length = args.length();
+        if (length < requiredCount || length > argTypes.length) {
+            String expected = requiredCount == argTypes.length ? String.valueOf(requiredCount)
+                    : requiredCount + " to " + argTypes.length;
+            throw new ActionArgs.InvalidArgsException(expected + " parameters are expected");
+        }
+
+        Object[] refs = new Object[argTypes.length];
+        long[] prims = new long[argTypes.length];
+
+        for (int i = 0; i < argTypes.length; i++) {
+            boolean absent = i >= length || args.isNull(i);
+            if (absent && i < requiredCount) {
+                throw new ActionArgs.InvalidArgsException("Parameters contain 'null' value in action '" + name + "'");
+            }
+
+            switch (argTypes[i]) {
+                case TYPE_STRING:
+                    refs[i] = absent ? argDefaults[i] : args.getString(i);
+                    break;
+                case TYPE_INT:
+                    prims[i] = absent ? Integer.parseInt(argDefaults[i]) : args.getInt(i);
+                    break;
+                case TYPE_LONG:
+                    prims[i] = absent ? Long.parseLong(argDefaults[i]) : args.getLong(i);
+                    break;
+                case TYPE_BOOLEAN:
+                    prims[i] = (absent ? Boolean.parseBoolean(argDefaults[i]) : args.getBoolean(i)) ? 1 : 0;
+                    break;
+                case TYPE_ARRAY:
+                    refs[i] = absent ? new JSONArray(argDefaults[i]) : args.getJSONArray(i);
+                    break;
+                case TYPE_OBJECT:
+                    refs[i] = absent ? new JSONObject(argDefaults[i]) : args.getJSONObject(i);
+                    break;
+                default:
+                    throw new IllegalStateException(name + ": unknown argument type '" + argTypes[i] + "'");
+            }
+        }
+
+        String masterWalletID = walletArg >= 0 ? (String) refs[walletArg] : null;
+        String chainID = fixedChainID != null ? fixedChainID : (chainArg >= 0 ? (String) refs[chainArg] : null);
+
+        return new ActionArgs(refs, prims, masterWalletID, chainID);
+    }
+
+    /**
+     * Describe the arguments without their values, for the slow action journal.
+     *
+     * @return a JSON object of the arguments present: the length of strings and of the JSON of
+     *         arrays and objects, "number" or "boolean" instead of values which may be amounts or
+     *         indices, "redacted" for secrets.
+     */
+    String describeArgs(JSONArray args) {
+        StringBuilder sb = new StringBuilder(16 * argNames.length + 2);
+        sb.append('{');
+        for (int i = 0; i < argNames.length && i < args.length(); i++) {
+            if (args.isNull(i)) {
+                continue;
+            }
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append('"').append(argNames[i]).append("\":");
+
+            Object value = args.opt(i);
+            if (argSecrets[i]) {
+                sb.append("\"redacted\"");
+            } else if (value instanceof Number) {
+                sb.append("\"number\"");
+            } else if (value instanceof Boolean) {
+                sb.append("\"boolean\"");
+            } else {
+                sb.append(value.toString().length());
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
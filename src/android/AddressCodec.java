@@ -0,0 +1,541 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Conversion of the address strings of the supported chains to the bytes they encode.
+ *
+ * The same address may be written several ways, e.g. an EVM address with or without its
+ * EIP-55 checksum casing, or a bech32 address in upper case. key() maps all the forms of
+ * an address to the same bytes, prefixed by the encoding so different encodings never
+ * collide.
+ *
+ * validate() checks the address formats of the supported chains without JNI: Base58Check
+ * with the ELA prefixes, BTC base58 and bech32/bech32m, and 0x hex with its EIP-55 casing.
+ * It does not allocate, working buffers are per thread.
+ */
+final class AddressCodec {
+
+    private static final String BASE58_ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+    private static final int[] BASE58_INDEXES = new int[128];
+
+    static {
+        Arrays.fill(BASE58_INDEXES, -1);
+        for (int i = 0; i < BASE58_ALPHABET.length(); i++) {
+            BASE58_INDEXES[BASE58_ALPHABET.charAt(i)] = i;
+        }
+    }
+
+    static final int INVALID = 0;
+    static final int VALID = 1;
+    // The chain or network is not handled here, ask spvcore.
+    static final int UNKNOWN = -1;
+
+    // Program hash prefixes of the ELA address types: standard, multi-sign, cross chain,
+    // CR expenses, deposit, ID chain and destroy.
+    private static final int[] ELA_PREFIXES = {0x21, 0x12, 0x4b, 0x1c, 0x1f, 0x67, 0x00};
+    private static final int ELA_ADDRESS_SIZE = 21;
+
+    private static final int BTC_ADDRESS_SIZE = 21;
+    private static final String BECH32_CHARSET = "qpzry9x8gf2tvdw0s3jn54khce6mua7l";
+    private static final int[] BECH32_INDEXES = new int[128];
+    private static final int BECH32_CONST = 1;
+    private static final int BECH32M_CONST = 0x2bc830a3;
+
+    static {
+        Arrays.fill(BECH32_INDEXES, -1);
+        for (int i = 0; i < BECH32_CHARSET.length(); i++) {
+            BECH32_INDEXES[BECH32_CHARSET.charAt(i)] = i;
+        }
+    }
+
+    private static final long[] KECCAK_ROUND_CONSTANTS = {
+            0x0000000000000001L, 0x0000000000008082L, 0x800000000000808aL, 0x8000000080008000L,
+            0x000000000000808bL, 0x0000000080000001L, 0x8000000080008081L, 0x8000000000008009L,
+            0x000000000000008aL, 0x0000000000000088L, 0x0000000080008009L, 0x000000008000000aL,
+            0x000000008000808bL, 0x800000000000008bL, 0x8000000000008089L, 0x8000000000008003L,
+            0x8000000000008002L, 0x8000000000000080L, 0x000000000000800aL, 0x800000008000000aL,
+            0x8000000080008081L, 0x8000000000008080L, 0x0000000080000001L, 0x8000000080008008L,
+    };
+    private static final int[] KECCAK_ROTATIONS = {
+            0, 1, 62, 28, 27, 36, 44, 6, 55, 20, 3, 10, 43, 25, 39, 41, 45, 15, 21, 8, 18, 2, 61, 56, 14,
+    };
+    private static final int KECCAK256_RATE = 136;
+
+    private static final class Scratch {
+        final byte[] decoded = new byte[32];
+        final byte[] hash = new byte[32];
+        final long[] state = new long[25];
+        final long[] b = new long[25];
+        final long[] c = new long[5];
+        final MessageDigest sha256;
+
+        Scratch() {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    private static final byte KEY_BASE58 = 1;
+    private static final byte KEY_HEX = 2;
+    private static final byte KEY_TEXT = 3;
+
+    private AddressCodec() {
+    }
+
+    /**
+     * @return the bytes identifying an address, never null.
+     */
+    static byte[] key(String address) {
+        if (isHexAddress(address)) {
+            return tagged(KEY_HEX, decodeHex(address, 2));
+        }
+
+        if (isBech32Address(address)) {
+            return tagged(KEY_TEXT, address.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+        }
+
+        byte[] decoded = decodeBase58(address);
+        if (decoded != null) {
+            return tagged(KEY_BASE58, decoded);
+        }
+
+        return tagged(KEY_TEXT, address.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] tagged(byte tag, byte[] bytes) {
+        byte[] key = new byte[bytes.length + 1];
+        key[0] = tag;
+        System.arraycopy(bytes, 0, key, 1, bytes.length);
+        return key;
+    }
+
+    /**
+     * 0x followed by 40 hex digits, in any case.
+     */
+    static boolean isHexAddress(String address) {
+        if (address.length() != 42 || address.charAt(0) != '0' || (address.charAt(1) != 'x' && address.charAt(1) != 'X')) {
+            return false;
+        }
+        for (int i = 2; i < address.length(); i++) {
+            if (Character.digit(address.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Human readable part of a BTC network followed by the separator, the data is not checked.
+     */
+    static boolean isBech32Address(String address) {
+        String lower = address.toLowerCase(Locale.ROOT);
+        return lower.startsWith("bc1") || lower.startsWith("tb1") || lower.startsWith("bcrt1");
+    }
+
+    static byte[] decodeHex(String hex, int offset) {
+        byte[] bytes = new byte[(hex.length() - offset) / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int hi = Character.digit(hex.charAt(offset + i * 2), 16);
+            int lo = Character.digit(hex.charAt(offset + i * 2 + 1), 16);
+            bytes[i] = (byte) ((hi << 4) | lo);
+        }
+        return bytes;
+    }
+
+    /**
+     * @param network network type given to setNetwork.
+     * @return VALID or INVALID, or UNKNOWN if the chain is not handled here.
+     */
+    static int validate(String network, String chainID, String address) {
+        if ("ELA".equals(chainID) || "IDChain".equals(chainID)) {
+            return isElaAddress(address) ? VALID : INVALID;
+        }
+        if (chainID.startsWith("ETH")) {
+            return isEip55Address(address) ? VALID : INVALID;
+        }
+        if ("BTC".equals(chainID)) {
+            return validateBtc(network, address);
+        }
+        return UNKNOWN;
+    }
+
+    static boolean isElaAddress(String address) {
+        Scratch s = scratch.get();
+        if (!decodeBase58Check(address, s, ELA_ADDRESS_SIZE)) {
+            return false;
+        }
+        int prefix = s.decoded[0] & 0xff;
+        for (int p : ELA_PREFIXES) {
+            if (p == prefix) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int validateBtc(String network, String address) {
+        int p2pkh;
+        int p2sh;
+        String hrp;
+        if ("MainNet".equals(network)) {
+            p2pkh = 0x00;
+            p2sh = 0x05;
+            hrp = "bc";
+        } else if ("TestNet".equals(network)) {
+            p2pkh = 0x6f;
+            p2sh = 0xc4;
+            hrp = "tb";
+        } else if ("RegTest".equals(network)) {
+            p2pkh = 0x6f;
+            p2sh = 0xc4;
+            hrp = "bcrt";
+        } else {
+            return UNKNOWN;
+        }
+
+        if (address.length() > hrp.length() && address.regionMatches(true, 0, hrp + "1", 0, hrp.length() + 1)) {
+            return isSegwitAddress(hrp, address) ? VALID : INVALID;
+        }
+
+        Scratch s = scratch.get();
+        if (!decodeBase58Check(address, s, BTC_ADDRESS_SIZE)) {
+            return INVALID;
+        }
+        int version = s.decoded[0] & 0xff;
+        return version == p2pkh || version == p2sh ? VALID : INVALID;
+    }
+
+    /**
+     * Decode size bytes and their 4 bytes double SHA-256 checksum into s.decoded.
+     */
+    private static boolean decodeBase58Check(String address, Scratch s, int size) {
+        byte[] out = s.decoded;
+        int total = size + 4;
+        Arrays.fill(out, 0, total, (byte) 0);
+
+        int ones = 0;
+        while (ones < address.length() && address.charAt(ones) == '1') {
+            ones++;
+        }
+
+        // out = out * 58 + digit, rejecting values which do not fit in total bytes.
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            int carry = c < 128 ? BASE58_INDEXES[c] : -1;
+            if (carry < 0) {
+                return false;
+            }
+            for (int j = total - 1; j >= 0; j--) {
+                carry += 58 * (out[j] & 0xff);
+                out[j] = (byte) carry;
+                carry >>>= 8;
+            }
+            if (carry != 0) {
+                return false;
+            }
+        }
+
+        // Canonical encoding: one leading '1' per leading zero byte.
+        int zeros = 0;
+        while (zeros < total && out[zeros] == 0) {
+            zeros++;
+        }
+        if (zeros != ones) {
+            return false;
+        }
+
+        try {
+            MessageDigest sha256 = s.sha256;
+            sha256.update(out, 0, size);
+            sha256.digest(s.hash, 0, 32);
+            sha256.update(s.hash, 0, 32);
+            sha256.digest(s.hash, 0, 32);
+        } catch (DigestException e) {
+            return false;
+        }
+        for (int i = 0; i < 4; i++) {
+            if (s.hash[i] != out[size + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int bech32Polymod(int chk, int value) {
+        int top = chk >>> 25;
+        chk = (chk & 0x1ffffff) << 5 ^ value;
+        if ((top & 1) != 0) chk ^= 0x3b6a57b2;
+        if ((top & 2) != 0) chk ^= 0x26508e6d;
+        if ((top & 4) != 0) chk ^= 0x1ea119fa;
+        if ((top & 8) != 0) chk ^= 0x3d4233dd;
+        if ((top & 16) != 0) chk ^= 0x2a1462b3;
+        return chk;
+    }
+
+    /**
+     * BIP-173/BIP-350 segwit address of the given human readable part.
+     */
+    private static boolean isSegwitAddress(String hrp, String address) {
+        int length = address.length();
+        int dataStart = hrp.length() + 1;
+        int dataLength = length - dataStart;
+        if (length > 90 || dataLength < 7) {
+            return false;
+        }
+
+        boolean lower = false;
+        boolean upper = false;
+        for (int i = 0; i < length; i++) {
+            char c = address.charAt(i);
+            lower |= c >= 'a' && c <= 'z';
+            upper |= c >= 'A' && c <= 'Z';
+        }
+        if (lower && upper) {
+            return false;
+        }
+
+        int chk = 1;
+        for (int i = 0; i < hrp.length(); i++) {
+            chk = bech32Polymod(chk, hrp.charAt(i) >>> 5);
+        }
+        chk = bech32Polymod(chk, 0);
+        for (int i = 0; i < hrp.length(); i++) {
+            chk = bech32Polymod(chk, hrp.charAt(i) & 31);
+        }
+
+        int version = -1;
+        int bits = 0;
+        int acc = 0;
+        int programLength = 0;
+        for (int i = 0; i < dataLength; i++) {
+            char c = Character.toLowerCase(address.charAt(dataStart + i));
+            int value = c < 128 ? BECH32_INDEXES[c] : -1;
+            if (value < 0) {
+                return false;
+            }
+            chk = bech32Polymod(chk, value);
+
+            if (i == 0) {
+                version = value;
+            } else if (i < dataLength - 6) {
+                // 5 to 8 bits conversion of the witness program, only its length is needed.
+                acc = (acc << 5 | value) & 0xff;
+                bits += 5;
+                if (bits >= 8) {
+                    bits -= 8;
+                    programLength++;
+                }
+            }
+        }
+        if (bits >= 5 || (acc & ((1 << bits) - 1)) != 0) {
+            return false;
+        }
+
+        if (version > 16 || programLength < 2 || programLength > 40) {
+            return false;
+        }
+        if (version == 0) {
+            return chk == BECH32_CONST && (programLength == 20 || programLength == 32);
+        }
+        return chk == BECH32M_CONST;
+    }
+
+    /**
+     * 0x and 40 hex digits, all lower case, all upper case or with the EIP-55 checksum casing.
+     */
+    static boolean isEip55Address(String address) {
+        if (!isHexAddress(address)) {
+            return false;
+        }
+
+        boolean lower = false;
+        boolean upper = false;
+        for (int i = 2; i < 42; i++) {
+            char c = address.charAt(i);
+            lower |= c >= 'a' && c <= 'f';
+            upper |= c >= 'A' && c <= 'F';
+        }
+        if (!(lower && upper)) {
+            return true;
+        }
+
+        Scratch s = scratch.get();
+        keccak256LowerHex(address, 2, 40, s);
+        for (int i = 0; i < 40; i++) {
+            char c = address.charAt(2 + i);
+            if (c >= '0' && c <= '9') {
+                continue;
+            }
+            int nibble = (s.hash[i >> 1] >> ((i & 1) == 0 ? 4 : 0)) & 0x0f;
+            if ((nibble >= 8) != (c >= 'A' && c <= 'F')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keccak-256 (the original padding, as Ethereum) of the lower cased ASCII of
+     * text[offset, offset + length) into s.hash, for inputs shorter than a block.
+     */
+    private static void keccak256LowerHex(String text, int offset, int length, Scratch s) {
+        long[] state = s.state;
+        Arrays.fill(state, 0);
+        for (int i = 0; i < length; i++) {
+            int c = Character.toLowerCase(text.charAt(offset + i));
+            state[i >> 3] ^= (long) c << ((i & 7) << 3);
+        }
+        state[length >> 3] ^= 0x01L << ((length & 7) << 3);
+        state[(KECCAK256_RATE - 1) >> 3] ^= 0x80L << (((KECCAK256_RATE - 1) & 7) << 3);
+
+        keccakF(state, s.b, s.c);
+
+        for (int i = 0; i < 32; i++) {
+            s.hash[i] = (byte) (state[i >> 3] >>> ((i & 7) << 3));
+        }
+    }
+
+    /**
+     * @return Keccak-256 (the original padding, as Ethereum) of data.
+     */
+    static byte[] keccak256(byte[] data) {
+        Scratch s = scratch.get();
+        long[] state = s.state;
+        Arrays.fill(state, 0);
+
+        int offset = 0;
+        while (data.length - offset >= KECCAK256_RATE) {
+            for (int i = 0; i < KECCAK256_RATE; i++) {
+                state[i >> 3] ^= (long) (data[offset + i] & 0xff) << ((i & 7) << 3);
+            }
+            keccakF(state, s.b, s.c);
+            offset += KECCAK256_RATE;
+        }
+
+        int length = data.length - offset;
+        for (int i = 0; i < length; i++) {
+            state[i >> 3] ^= (long) (data[offset + i] & 0xff) << ((i & 7) << 3);
+        }
+        state[length >> 3] ^= 0x01L << ((length & 7) << 3);
+        state[(KECCAK256_RATE - 1) >> 3] ^= 0x80L << (((KECCAK256_RATE - 1) & 7) << 3);
+        keccakF(state, s.b, s.c);
+
+        byte[] hash = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            hash[i] = (byte) (state[i >> 3] >>> ((i & 7) << 3));
+        }
+        return hash;
+    }
+
+    private static void keccakF(long[] a, long[] b, long[] c) {
+        for (int round = 0; round < 24; round++) {
+            for (int x = 0; x < 5; x++) {
+                c[x] = a[x] ^ a[x + 5] ^ a[x + 10] ^ a[x + 15] ^ a[x + 20];
+            }
+            for (int x = 0; x < 5; x++) {
+                long d = c[(x + 4) % 5] ^ Long.rotateLeft(c[(x + 1) % 5], 1);
+                for (int y = 0; y < 25; y += 5) {
+                    a[y + x] ^= d;
+                }
+            }
+            // rho and pi: b[y, 2x + 3y] = rot(a[x, y])
+            for (int x = 0; x < 5; x++) {
+                for (int y = 0; y < 5; y++) {
+                    int index = x + 5 * y;
+                    b[y + 5 * ((2 * x + 3 * y) % 5)] = Long.rotateLeft(a[index], KECCAK_ROTATIONS[index]);
+                }
+            }
+            for (int y = 0; y < 25; y += 5) {
+                for (int x = 0; x < 5; x++) {
+                    a[y + x] = b[y + x] ^ (~b[y + (x + 1) % 5] & b[y + (x + 2) % 5]);
+                }
+            }
+            a[0] ^= KECCAK_ROUND_CONSTANTS[round];
+        }
+    }
+
+    /**
+     * @return the decoded bytes, leading '1's as zero bytes, or null if not base58.
+     */
+    static byte[] decodeBase58(String input) {
+        if (input.isEmpty()) {
+            return null;
+        }
+
+        byte[] input58 = new byte[input.length()];
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            int digit = c < 128 ? BASE58_INDEXES[c] : -1;
+            if (digit < 0) {
+                return null;
+            }
+            input58[i] = (byte) digit;
+        }
+
+        int zeros = 0;
+        while (zeros < input58.length && input58[zeros] == 0) {
+            zeros++;
+        }
+
+        // Repeated division of the base58 number by 256.
+        byte[] decoded = new byte[input.length()];
+        int outputStart = decoded.length;
+        for (int inputStart = zeros; inputStart < input58.length; ) {
+            int remainder = 0;
+            for (int i = inputStart; i < input58.length; i++) {
+                int temp = remainder * 58 + (input58[i] & 0xff);
+                input58[i] = (byte) (temp / 256);
+                remainder = temp % 256;
+            }
+            decoded[--outputStart] = (byte) remainder;
+            if (input58[inputStart] == 0) {
+                inputStart++;
+            }
+        }
+
+        while (outputStart < decoded.length && decoded[outputStart] == 0) {
+            outputStart++;
+        }
+        byte[] result = new byte[zeros + decoded.length - outputStart];
+        System.arraycopy(decoded, outputStart, result, zeros, decoded.length - outputStart);
+        return result;
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Reverse index of the derived addresses: address -> [(masterWalletID, chainID, internal, index), ...].
+ *
+ * An address may have several owners, e.g. an ELA address also derived by the IDChain sub
+ * wallet, or the same mnemonic imported twice. The entries of a key are chained, the table
+ * pointing to the last one added.
+ *
+ * Filled by DerivedKeyCache as addresses are derived or loaded from disk, so only addresses
+ * already listed once are known. Keys are the bytes returned by AddressCodec.key(), stored
+ * in a single pool and found through an open addressing table of 64-bit hashes. A Bloom
+ * filter in front answers most lookups of foreign addresses without probing the table.
+ *
+ * Removals are rare (wallet destruction), they rebuild the table from the kept entries.
+ */
+class AddressIndex {
+
+    static final class Owner {
+        final String masterWalletID;
+        final String chainID;
+        final boolean internal;
+        final int index;
+
+        Owner(String masterWalletID, String chainID, boolean internal, int index) {
+            this.masterWalletID = masterWalletID;
+            this.chainID = chainID;
+            this.internal = internal;
+            this.index = index;
+        }
+
+        JSONObject toJSON() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("masterWalletID", masterWalletID);
+            json.put("chainID", chainID);
+            json.put("internal", internal);
+            json.put("index", index);
+            return json;
+        }
+    }
+
+    private static final int MIN_CAPACITY = 64;
+    private static final int BLOOM_BITS_PER_SLOT = 8;
+    private static final int BLOOM_HASHES = 3;
+
+    private final boolean bloomFilter;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Open addressing table, capacity is a power of two kept at least twice the entry count.
+    // A zero hash marks a free slot, slots hold the entry number.
+    private long[] hashes = new long[MIN_CAPACITY];
+    private int[] slots = new int[MIN_CAPACITY];
+    private long[] bloom;
+
+    // Entries, keys are packed in keyPool.
+    private byte[] keyPool = new byte[1024];
+    private int keyPoolSize = 0;
+    private int[] keyOffsets = new int[MIN_CAPACITY];
+    private int[] keyLengths = new int[MIN_CAPACITY];
+    private int[] owners = new int[MIN_CAPACITY];
+    // index << 1 | internal
+    private int[] positions = new int[MIN_CAPACITY];
+    // Previous entry of the same key, -1 for the first one.
+    private int[] next = new int[MIN_CAPACITY];
+    private int size = 0;
+
+    // Interned (masterWalletID, chainID) pairs the entries refer to.
+    private final HashMap<String, Integer> ownerIds = new HashMap<>();
+    private final ArrayList<String> ownerWallets = new ArrayList<>();
+    private final ArrayList<String> ownerChains = new ArrayList<>();
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong found = new AtomicLong();
+    private final AtomicLong bloomRejects = new AtomicLong();
+
+    AddressIndex(boolean bloomFilter) {
+        this.bloomFilter = bloomFilter;
+        this.bloom = bloomFilter ? new long[MIN_CAPACITY * BLOOM_BITS_PER_SLOT / 64] : null;
+    }
+
+    private static long hash(byte[] key, int offset, int length) {
+        // FNV-1a, then the murmur3 finalizer to spread the low bits used by the table.
+        long h = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            h ^= key[i] & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private boolean keyEquals(int entry, byte[] key, int offset, int length) {
+        if (keyLengths[entry] != length) {
+            return false;
+        }
+        int entryOffset = keyOffsets[entry];
+        for (int i = 0; i < length; i++) {
+            if (keyPool[entryOffset + i] != key[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the slot holding key[offset, offset + length), or the free slot where it would go.
+     */
+    private int find(long h, byte[] key, int offset, int length) {
+        int mask = hashes.length - 1;
+        int i = (int) h & mask;
+        while (hashes[i] != 0) {
+            if (hashes[i] == h && keyEquals(slots[i], key, offset, length)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void bloomAdd(long h) {
+        int bits = bloom.length * 64;
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (h1 + i * h2) & (bits - 1);
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private boolean bloomMayContain(long h) {
+        int bits = bloom.length * 64;
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (h1 + i * h2) & (bits - 1);
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int ownerId(String masterWalletID, String chainID) {
+        String name = masterWalletID + "\n" + chainID;
+        Integer id = ownerIds.get(name);
+        if (id == null) {
+            id = ownerWallets.size();
+            ownerIds.put(name, id);
+            ownerWallets.add(masterWalletID);
+            ownerChains.add(chainID);
+        }
+        return id;
+    }
+
+    void add(String masterWalletID, String chainID, boolean internal, int index, String address) {
+        byte[] key = AddressCodec.key(address);
+        long h = hash(key, 0, key.length);
+        int position = (index << 1) | (internal ? 1 : 0);
+
+        lock.writeLock().lock();
+        try {
+            int owner = ownerId(masterWalletID, chainID);
+            int slot = find(h, key, 0, key.length);
+            if (hashes[slot] != 0) {
+                for (int entry = slots[slot]; entry >= 0; entry = next[entry]) {
+                    if (owners[entry] == owner) {
+                        positions[entry] = position;
+                        return;
+                    }
+                }
+            } else if ((size + 1) * 2 > hashes.length) {
+                rebuild(hashes.length * 2);
+                slot = find(h, key, 0, key.length);
+            }
+
+            if (size == owners.length) {
+                int capacity = size * 2;
+                keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+                keyLengths = Arrays.copyOf(keyLengths, capacity);
+                owners = Arrays.copyOf(owners, capacity);
+                positions = Arrays.copyOf(positions, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            if (keyPoolSize + key.length > keyPool.length) {
+                keyPool = Arrays.copyOf(keyPool, Math.max(keyPool.length * 2, keyPoolSize + key.length));
+            }
+
+            System.arraycopy(key, 0, keyPool, keyPoolSize, key.length);
+            keyOffsets[size] = keyPoolSize;
+            keyLengths[size] = key.length;
+            owners[size] = owner;
+            positions[size] = position;
+            keyPoolSize += key.length;
+
+            if (hashes[slot] != 0) {
+                next[size] = slots[slot];
+            } else {
+                next[size] = -1;
+                hashes[slot] = h;
+                if (bloomFilter) {
+                    bloomAdd(h);
+                }
+            }
+            slots[slot] = size;
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the owners of an address in the order they derived it, empty if it was never derived.
+     */
+    List<Owner> lookup(String address) {
+        byte[] key = AddressCodec.key(address);
+        long h = hash(key, 0, key.length);
+        lookups.incrementAndGet();
+
+        lock.readLock().lock();
+        try {
+            if (bloomFilter && !bloomMayContain(h)) {
+                bloomRejects.incrementAndGet();
+                return Collections.emptyList();
+            }
+
+            int slot = find(h, key, 0, key.length);
+            if (hashes[slot] == 0) {
+                return Collections.emptyList();
+            }
+
+            found.incrementAndGet();
+            ArrayList<Owner> result = new ArrayList<>(1);
+            for (int entry = slots[slot]; entry >= 0; entry = next[entry]) {
+                int owner = owners[entry];
+                result.add(new Owner(ownerWallets.get(owner), ownerChains.get(owner),
+                        (positions[entry] & 1) != 0, positions[entry] >>> 1));
+            }
+            Collections.reverse(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rehash the entries into a table of the given capacity, also used to drop removed entries.
+     */
+    private void rebuild(int capacity) {
+        hashes = new long[capacity];
+        slots = new int[capacity];
+        if (bloomFilter) {
+            bloom = new long[capacity * BLOOM_BITS_PER_SLOT / 64];
+        }
+
+        for (int entry = 0; entry < size; entry++) {
+            long h = hash(keyPool, keyOffsets[entry], keyLengths[entry]);
+            int i = find(h, keyPool, keyOffsets[entry], keyLengths[entry]);
+            if (hashes[i] != 0) {
+                next[entry] = slots[i];
+            } else {
+                next[entry] = -1;
+                hashes[i] = h;
+                if (bloomFilter) {
+                    bloomAdd(h);
+                }
+            }
+            slots[i] = entry;
+        }
+    }
+
+    /**
+     * Drop the entries of the matching owners, chainID null for all the chains of the wallet. The
+     * other owners of the same addresses keep theirs.
+     */
+    private void removeOwners(String masterWalletID, String chainID) {
+        lock.writeLock().lock();
+        try {
+            boolean[] removed = new boolean[ownerWallets.size()];
+            boolean any = false;
+            for (int i = 0; i < removed.length; i++) {
+                removed[i] = ownerWallets.get(i).equals(masterWalletID)
+                        && (chainID == null || ownerChains.get(i).equals(chainID));
+                any |= removed[i];
+            }
+            if (!any) {
+                return;
+            }
+
+            int kept = 0;
+            int keptPoolSize = 0;
+            for (int entry = 0; entry < size; entry++) {
+                if (removed[owners[entry]]) {
+                    continue;
+                }
+                System.arraycopy(keyPool, keyOffsets[entry], keyPool, keptPoolSize, keyLengths[entry]);
+                keyOffsets[kept] = keptPoolSize;
+                keyLengths[kept] = keyLengths[entry];
+                owners[kept] = owners[entry];
+                positions[kept] = positions[entry];
+                keptPoolSize += keyLengths[entry];
+                kept++;
+            }
+            size = kept;
+            keyPoolSize = keptPoolSize;
+
+            int capacity = MIN_CAPACITY;
+            while (capacity < size * 2) {
+                capacity <<= 1;
+            }
+            rebuild(capacity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String masterWalletID, String chainID) {
+        removeOwners(masterWalletID, chainID);
+    }
+
+    void removeWallet(String masterWalletID) {
+        removeOwners(masterWalletID, null);
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            size = 0;
+            keyPoolSize = 0;
+            ownerIds.clear();
+            ownerWallets.clear();
+            ownerChains.clear();
+            rebuild(MIN_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        lock.readLock().lock();
+        try {
+            stats.put("size", size);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("lookups", lookups.get());
+        stats.put("found", found.get());
+        stats.put("bloomRejects", bloomRejects.get());
+        return stats;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.util.Log;
+
+import org.elastos.spvcore.WalletException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Address validity checks, answered by AddressCodec when it knows the chain and by spvcore otherwise.
+ *
+ * In debuggable builds, the local answers are compared with spvcore for the first checks of
+ * each chain and then for a sample of them. A chain on which they ever disagree is checked
+ * by spvcore only, and its cached results dropped, until the manager is destroyed.
+ *
+ * For validateAddresses, results are kept in a bounded LRU keyed by (chainID, address), so
+ * re-validating a list after editing a few entries only checks the new ones. The other
+ * addresses are checked in chunks by the calling thread and the idle workers of the pool.
+ */
+final class AddressValidator {
+
+    private static final String TAG = "AddressValidator";
+
+    interface Check {
+        boolean isValid(String address) throws WalletException;
+    }
+
+    private static final int CACHE_SIZE = 4096;
+    // Addresses checked by a thread between two claims, checks take a few microseconds.
+    private static final int CHUNK_SIZE = 32;
+    // Local answers also asked to spvcore: the first SHADOW_WARMUP of a chain, then one in SHADOW_INTERVAL.
+    private static final long SHADOW_WARMUP = 256;
+    private static final long SHADOW_INTERVAL = 64;
+
+    private final LinkedHashMap<String, Boolean> cache = new LinkedHashMap<String, Boolean>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // chainID -> number of local answers, negative once the chain fell back to spvcore.
+    private final ConcurrentHashMap<String, AtomicLong> localChecks = new ConcurrentHashMap<>();
+    private final AtomicLong localAnswers = new AtomicLong();
+    private final AtomicLong shadowChecks = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private volatile boolean shadowChecksEnabled = false;
+
+    /**
+     * Also ask spvcore for a sample of the local answers, for debuggable builds only.
+     */
+    void setShadowChecks(boolean enabled) {
+        shadowChecksEnabled = enabled;
+    }
+
+    private AtomicLong localChecks(String chainID) {
+        AtomicLong checks = localChecks.get(chainID);
+        if (checks == null) {
+            checks = new AtomicLong();
+            AtomicLong existing = localChecks.putIfAbsent(chainID, checks);
+            if (existing != null) {
+                checks = existing;
+            }
+        }
+        return checks;
+    }
+
+    /**
+     * @param network network type given to setNetwork.
+     * @param check asks spvcore, for chains AddressCodec does not know and for the shadow checks.
+     */
+    boolean isValid(String network, String chainID, String address, Check check) throws WalletException {
+        AtomicLong checks = localChecks(chainID);
+        long n = checks.get();
+        if (n >= 0) {
+            int local = AddressCodec.validate(network, chainID, address);
+            if (local != AddressCodec.UNKNOWN) {
+                n = checks.getAndIncrement();
+                if (!shadowChecksEnabled || n >= SHADOW_WARMUP && n % SHADOW_INTERVAL != 0) {
+                    localAnswers.incrementAndGet();
+                    return local == AddressCodec.VALID;
+                }
+
+                shadowChecks.incrementAndGet();
+                boolean valid = check.isValid(address);
+                if (valid != (local == AddressCodec.VALID)) {
+                    mismatches.incrementAndGet();
+                    checks.set(Long.MIN_VALUE);
+                    forgetChain(chainID);
+                    Log.w(TAG, "Local check of " + chainID + " address " + address + " is " + (local == AddressCodec.VALID)
+                            + ", spvcore says " + valid + ", " + chainID + " addresses are checked by spvcore from now on");
+                }
+                return valid;
+            }
+        }
+
+        fallbacks.incrementAndGet();
+        return check.isValid(address);
+    }
+
+    /**
+     * Drop the cached results of a chain, they were answered by the codec it no longer trusts.
+     */
+    private void forgetChain(String chainID) {
+        String prefix = key(chainID, "");
+        synchronized (cache) {
+            Iterator<String> keys = cache.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next().startsWith(prefix)) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    private static String key(String chainID, String address) {
+        return chainID + "\n" + address;
+    }
+
+    /**
+     * @return the indices of the invalid addresses, in ascending order. Null entries are invalid.
+     */
+    int[] validate(String network, String chainID, JSONArray addresses, final Check check, ActionExecutor executor)
+            throws JSONException, WalletException, InterruptedException {
+        final int count = addresses.length();
+        final String[] values = new String[count];
+        final boolean[] invalid = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = addresses.isNull(i) ? null : addresses.getString(i);
+        }
+
+        final int[] pending = new int[count];
+        int pendingCount = 0;
+        synchronized (cache) {
+            for (int i = 0; i < count; i++) {
+                if (values[i] == null) {
+                    invalid[i] = true;
+                    continue;
+                }
+                Boolean valid = cache.get(key(chainID, values[i]));
+                if (valid != null) {
+                    invalid[i] = !valid;
+                } else {
+                    pending[pendingCount++] = i;
+                }
+            }
+        }
+        hits.addAndGet(count - pendingCount);
+        misses.addAndGet(pendingCount);
+
+        if (pendingCount > 0) {
+            AtomicLong checks = localChecks(chainID);
+            boolean trusted = checks.get() >= 0;
+            ParallelLoop.run(executor, pendingCount, CHUNK_SIZE, p -> {
+                int i = pending[p];
+                invalid[i] = !isValid(network, chainID, values[i], check);
+            });
+
+            // Local answers of a chain which fell back meanwhile are returned but not cached.
+            if (!trusted || checks.get() >= 0) {
+                synchronized (cache) {
+                    for (int p = 0; p < pendingCount; p++) {
+                        int i = pending[p];
+                        cache.put(key(chainID, values[i]), !invalid[i]);
+                    }
+                }
+            }
+        }
+
+        int invalidCount = 0;
+        for (boolean b : invalid) {
+            if (b) {
+                invalidCount++;
+            }
+        }
+        int[] indices = new int[invalidCount];
+        for (int i = 0, j = 0; i < count; i++) {
+            if (invalid[i]) {
+                indices[j++] = i;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Forget the cached results and the chains which fell back to spvcore, e.g. for another network.
+     */
+    void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        localChecks.clear();
+    }
+
+    JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        synchronized (cache) {
+            stats.put("size", cache.size());
+        }
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("localAnswers", localAnswers.get());
+        stats.put("shadowChecks", shadowChecks.get());
+        stats.put("mismatches", mismatches.get());
+        stats.put("fallbacks", fallbacks.get());
+        return stats;
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.HashMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Coin selection over a wallet's UTXOs, producing the inputs argument of the create*Transaction actions.
+ *
+ * UTXOs are parsed once into primitive arrays: amounts, outpoint hashes packed in one byte
+ * array, output indices and interned addresses. Two strategies are offered:
+ * - branch and bound, searching for inputs paying the amount and fee with an excess below
+ *   the cost of a change output, so no change is created (as Bitcoin Core's SelectCoinsBnB);
+ * - largest first, taking the largest UTXOs until the amount and fee are covered.
+ *
+ * Fees are computed from an estimate of the serialized transaction size. Each input is
+ * charged the size of its outpoint plus the redeem program of its address, the program
+ * being counted once per address in the final fee.
+ */
+final class CoinSelector {
+
+    static final String STRATEGY_AUTO = "auto";
+    static final String STRATEGY_BNB = "bnb";
+    static final String STRATEGY_LARGEST_FIRST = "largestFirst";
+
+    // Serialized sizes, in bytes, of the parts of a transaction.
+    static final int TX_BASE_SIZE = 32;
+    static final int INPUT_SIZE = 40;
+    static final int OUTPUT_SIZE = 70;
+    static final int PROGRAM_SIZE = 105;
+
+    private static final int HASH_SIZE = 32;
+    private static final int BNB_MAX_TRIES = 100000;
+
+    static final class InsufficientFundsException extends Exception {
+        InsufficientFundsException(String message) {
+            super(message);
+        }
+    }
+
+    private final int count;
+    private final long[] amounts;
+    private final byte[] hashes;
+    private final int[] indices;
+    private final int[] addressIds;
+    private final String[] addresses;
+
+    /**
+     * @param utxos [{Address: String, Amount: String, TxHash: String, Index: int}, ...], as the inputs
+     *              of the create*Transaction actions.
+     */
+    CoinSelector(JSONArray utxos) throws JSONException {
+        count = utxos.length();
+        amounts = new long[count];
+        hashes = new byte[count * HASH_SIZE];
+        indices = new int[count];
+        addressIds = new int[count];
+
+        HashMap<String, Integer> ids = new HashMap<>();
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            JSONObject utxo = utxos.getJSONObject(i);
+            String address = utxo.getString("Address");
+            Integer id = ids.get(address);
+            if (id == null) {
+                id = ids.size();
+                ids.put(address, id);
+                names[id] = address;
+            }
+            addressIds[i] = id;
+
+            try {
+                amounts[i] = Long.parseLong(utxo.getString("Amount"));
+            } catch (NumberFormatException e) {
+                throw new JSONException("UTXO " + i + ": invalid Amount");
+            }
+            if (amounts[i] < 0) {
+                throw new JSONException("UTXO " + i + ": invalid Amount");
+            }
+
+            String hash = utxo.getString("TxHash");
+            if (hash.length() != HASH_SIZE * 2) {
+                throw new JSONException("UTXO " + i + ": invalid TxHash");
+            }
+            for (int j = 0; j < HASH_SIZE; j++) {
+                int hi = Character.digit(hash.charAt(j * 2), 16);
+                int lo = Character.digit(hash.charAt(j * 2 + 1), 16);
+                if (hi < 0 || lo < 0) {
+                    throw new JSONException("UTXO " + i + ": invalid TxHash");
+                }
+                hashes[i * HASH_SIZE + j] = (byte) ((hi << 4) | lo);
+            }
+
+            indices[i] = utxo.getInt("Index");
+        }
+
+        addresses = new String[ids.size()];
+        System.arraycopy(names, 0, addresses, 0, addresses.length);
+    }
+
+    static final class Selection {
+        final int[] picked;
+        final long total;
+        final long fee;
+        final long change;
+        final int size;
+        final String strategy;
+
+        Selection(int[] picked, long total, long fee, long change, int size, String strategy) {
+            this.picked = picked;
+            this.total = total;
+            this.fee = fee;
+            this.change = change;
+            this.size = size;
+            this.strategy = strategy;
+        }
+    }
+
+    private static long feeFor(int size, long feePerKB) {
+        return (size * feePerKB + 999) / 1000;
+    }
+
+    /**
+     * @param amount sum of the outputs, in SELA.
+     * @param feePerKB fee rate, in SELA per 1000 bytes.
+     * @param outputCount number of outputs paying amount, without change.
+     */
+    Selection select(long amount, long feePerKB, int outputCount, String strategy) throws InsufficientFundsException {
+        long inputCost = feeFor(INPUT_SIZE + PROGRAM_SIZE, feePerKB);
+        long changeCost = feeFor(OUTPUT_SIZE, feePerKB);
+        long target = amount + feeFor(TX_BASE_SIZE + outputCount * OUTPUT_SIZE, feePerKB);
+
+        // UTXOs worth more than what they cost to spend, by decreasing effective value.
+        int[] order = new int[count];
+        long[] effective = new long[count];
+        int usable = 0;
+        long available = 0;
+        for (int i = 0; i < count; i++) {
+            if (amounts[i] > inputCost) {
+                order[usable] = i;
+                effective[usable] = amounts[i] - inputCost;
+                available += effective[usable];
+                usable++;
+            }
+        }
+        sortByDecreasingValue(order, effective, usable);
+
+        if (available < target) {
+            throw new InsufficientFundsException("Insufficient funds: " + available + " spendable, "
+                    + target + " needed");
+        }
+
+        if (!STRATEGY_LARGEST_FIRST.equals(strategy)) {
+            int[] picked = branchAndBound(order, effective, usable, available, target, changeCost);
+            if (picked != null) {
+                return selection(picked, amount, feePerKB, outputCount, false, STRATEGY_BNB);
+            }
+            if (STRATEGY_BNB.equals(strategy)) {
+                throw new InsufficientFundsException("No inputs match the amount without change");
+            }
+        }
+
+        int n = 0;
+        long value = 0;
+        while (value < target) {
+            value += effective[n++];
+        }
+        int[] picked = new int[n];
+        System.arraycopy(order, 0, picked, 0, n);
+        // The change output is only worth creating if it pays for itself.
+        return selection(picked, amount, feePerKB, outputCount, value - target > changeCost, STRATEGY_LARGEST_FIRST);
+    }
+
+    private Selection selection(int[] picked, long amount, long feePerKB, int outputCount, boolean withChange,
+                                String strategy) {
+        long total = 0;
+        boolean[] seen = new boolean[addresses.length];
+        int programs = 0;
+        for (int i : picked) {
+            total += amounts[i];
+            if (!seen[addressIds[i]]) {
+                seen[addressIds[i]] = true;
+                programs++;
+            }
+        }
+
+        int size = TX_BASE_SIZE + (outputCount + (withChange ? 1 : 0)) * OUTPUT_SIZE
+                + picked.length * INPUT_SIZE + programs * PROGRAM_SIZE;
+        long fee = feeFor(size, feePerKB);
+        long change = total - amount - fee;
+        if (!withChange) {
+            // Left to the fee, it is less than a change output would cost.
+            fee += change;
+            change = 0;
+        }
+        return new Selection(picked, total, fee, change, size, strategy);
+    }
+
+    /**
+     * Depth first search of the subsets, including before excluding each UTXO in value order.
+     *
+     * @return UTXOs whose effective value is in [target, target + changeCost] with the least
+     * excess, or null if none was found within BNB_MAX_TRIES.
+     */
+    private static int[] branchAndBound(int[] order, long[] effective, int usable, long available, long target,
+                                        long changeCost) {
+        int[] selection = new int[usable];
+        int selected = 0;
+        int[] best = null;
+        int bestCount = 0;
+        long bestExcess = Long.MAX_VALUE;
+
+        long value = 0;
+        long remaining = available;
+        int index = 0;
+        for (int tries = 0; tries < BNB_MAX_TRIES; tries++, index++) {
+            boolean backtrack = false;
+            if (value + remaining < target || value > target + changeCost) {
+                backtrack = true;
+            } else if (value >= target) {
+                if (value - target < bestExcess) {
+                    bestExcess = value - target;
+                    best = selection.clone();
+                    bestCount = selected;
+                    if (bestExcess == 0) {
+                        break;
+                    }
+                }
+                backtrack = true;
+            }
+
+            if (backtrack) {
+                if (selected == 0) {
+                    break;
+                }
+                // Give back the UTXOs skipped after the last included one, then exclude it.
+                for (index--; index > selection[selected - 1]; index--) {
+                    remaining += effective[index];
+                }
+                value -= effective[index];
+                selected--;
+            } else {
+                remaining -= effective[index];
+                // Excluding a UTXO then including one of the same value is the same subset.
+                if (selected == 0 || index - 1 == selection[selected - 1] || effective[index] != effective[index - 1]) {
+                    selection[selected++] = index;
+                    value += effective[index];
+                }
+            }
+        }
+
+        if (best == null) {
+            return null;
+        }
+        int[] picked = new int[bestCount];
+        for (int i = 0; i < bestCount; i++) {
+            picked[i] = order[best[i]];
+        }
+        return picked;
+    }
+
+    /**
+     * Merge sort of order and values together, by decreasing value.
+     */
+    private static void sortByDecreasingValue(int[] order, long[] values, int n) {
+        int[] orderTmp = new int[n];
+        long[] valuesTmp = new long[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n - width; lo += width << 1) {
+                int mid = lo + width;
+                int hi = Math.min(lo + (width << 1), n);
+                int i = lo;
+                int j = mid;
+                int k = lo;
+                while (i < mid && j < hi) {
+                    if (values[i] >= values[j]) {
+                        orderTmp[k] = order[i];
+                        valuesTmp[k++] = values[i++];
+                    } else {
+                        orderTmp[k] = order[j];
+                        valuesTmp[k++] = values[j++];
+                    }
+                }
+                while (i < mid) {
+                    orderTmp[k] = order[i];
+                    valuesTmp[k++] = values[i++];
+                }
+                while (j < hi) {
+                    orderTmp[k] = order[j];
+                    valuesTmp[k++] = values[j++];
+                }
+                System.arraycopy(orderTmp, lo, order, lo, hi - lo);
+                System.arraycopy(valuesTmp, lo, values, lo, hi - lo);
+            }
+        }
+    }
+
+    /**
+     * @return the JSON text of the selected UTXOs, as the inputs of the create*Transaction actions.
+     */
+    String inputs(Selection selection) {
+        StringBuilder sb = new StringBuilder(selection.picked.length * 160 + 2);
+        sb.append('[');
+        for (int n = 0; n < selection.picked.length; n++) {
+            int i = selection.picked[n];
+            if (n > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"Address\":").append(JSONObject.quote(addresses[addressIds[i]]));
+            sb.append(",\"Amount\":\"").append(amounts[i]);
+            sb.append("\",\"TxHash\":\"");
+            for (int j = 0; j < HASH_SIZE; j++) {
+                int b = hashes[i * HASH_SIZE + j];
+                sb.append(Character.forDigit((b >> 4) & 0x0f, 16)).append(Character.forDigit(b & 0x0f, 16));
+            }
+            sb.append("\",\"Index\":").append(indices[i]).append('}');
+        }
+        return sb.append(']').toString();
+    }
+}
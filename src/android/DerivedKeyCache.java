@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elastos.spvcore.WalletException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Addresses and public keys derived by spvcore, per (masterWalletID, chainID, internal).
+ *
+ * HD derivation is deterministic, so every derived index is kept in an array indexed by
+ * derivation index. A range request is served from memory and only the indices never
+ * derived are asked to spvcore, one call per run of missing indices. Sub wallets which
+ * do not derive the range they are asked, like single address wallets, are detected by
+ * deriving [0, PROBE_COUNT) before any of their items is cached, and passed through from
+ * then on: whatever range a caller asks first, their address is never kept at its index.
+ *
+ * With a DerivedKeyStore set, a sub wallet's items are loaded from disk on its first use
+ * and every newly derived run is appended to it, so a restart does not derive them again.
+ * Addresses are also added to the AddressIndex as they are derived or loaded.
+ */
+class DerivedKeyCache {
+
+    enum Kind {
+        ADDRESS,
+        PUBLIC_KEY,
+    }
+
+    interface Deriver {
+        /**
+         * @return the JSON array of items [start, start + count) as returned by spvcore.
+         */
+        String derive(int start, int count) throws WalletException;
+    }
+
+    // Indices from this one on are not cached, they are far beyond any gap limit scan.
+    private static final int MAX_INDEX = 1 << 16;
+    private static final int MIN_CAPACITY = 32;
+    // Items a ranged sub wallet derives for [0, PROBE_COUNT), a single address one returns 1.
+    private static final int PROBE_COUNT = 2;
+
+    // masterWalletID -> chainID -> ranges indexed by kind and internal.
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Range[]>> wallets = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AddressIndex addressIndex;
+
+    private volatile DerivedKeyStore store = null;
+    // Set once all the sub wallets of the store were loaded.
+    private volatile boolean storeLoaded = false;
+
+    private static final class Range {
+        String[] items = new String[0];
+        boolean passThrough = false;
+        // Set once the sub wallet was seen deriving the indices it is asked.
+        boolean ranged = false;
+    }
+
+    DerivedKeyCache(AddressIndex addressIndex) {
+        this.addressIndex = addressIndex;
+    }
+
+    /**
+     * @return the JSON array of items [start, start + count), derived only where not cached.
+     */
+    String get(String masterWalletID, String chainID, Kind kind, boolean internal, int start, int count,
+               Deriver deriver) throws WalletException, JSONException {
+        if (start < 0 || count <= 0 || count > MAX_INDEX - start) {
+            return deriver.derive(start, count);
+        }
+
+        Range range = range(masterWalletID, chainID, kind, internal);
+        String[] items = new String[count];
+        synchronized (range) {
+            if (range.passThrough) {
+                return deriver.derive(start, count);
+            }
+            int cached = Math.max(0, Math.min(count, range.items.length - start));
+            if (cached > 0) {
+                System.arraycopy(range.items, start, items, 0, cached);
+            }
+        }
+
+        int missing = 0;
+        for (int i = 0; i < count; ) {
+            if (items[i] != null) {
+                i++;
+                continue;
+            }
+
+            if (!probe(range, masterWalletID, chainID, kind, internal, deriver)) {
+                return deriver.derive(start, count);
+            }
+
+            int runStart = i;
+            while (i < count && items[i] == null) {
+                i++;
+            }
+
+            String derived = deriver.derive(start + runStart, i - runStart);
+            JSONArray derivedItems = new JSONArray(derived);
+            if (derivedItems.length() != i - runStart) {
+                synchronized (range) {
+                    range.passThrough = true;
+                    range.items = new String[0];
+                }
+                return runStart == 0 && i == count ? derived : deriver.derive(start, count);
+            }
+
+            for (int j = 0; j < derivedItems.length(); j++) {
+                items[runStart + j] = derivedItems.getString(j);
+                if (kind == Kind.ADDRESS) {
+                    addressIndex.add(masterWalletID, chainID, internal, start + runStart + j, items[runStart + j]);
+                }
+            }
+            missing += i - runStart;
+            store(range, masterWalletID, chainID, kind, internal, start + runStart, items, runStart, i - runStart);
+        }
+
+        hits.addAndGet(count - missing);
+        misses.addAndGet(missing);
+
+        return encode(items);
+    }
+
+    /**
+     * Derive [0, PROBE_COUNT) once per range, before caching any item of it.
+     *
+     * @return true if the sub wallet derives the indices it is asked, false if it is passed through.
+     */
+    private boolean probe(Range range, String masterWalletID, String chainID, Kind kind, boolean internal,
+                          Deriver deriver) throws WalletException, JSONException {
+        synchronized (range) {
+            if (range.ranged || range.passThrough) {
+                return range.ranged;
+            }
+        }
+
+        JSONArray derivedItems = new JSONArray(deriver.derive(0, PROBE_COUNT));
+        if (derivedItems.length() != PROBE_COUNT) {
+            synchronized (range) {
+                range.passThrough = true;
+                range.items = new String[0];
+            }
+            return false;
+        }
+
+        String[] items = new String[PROBE_COUNT];
+        for (int j = 0; j < PROBE_COUNT; j++) {
+            items[j] = derivedItems.getString(j);
+            if (kind == Kind.ADDRESS) {
+                addressIndex.add(masterWalletID, chainID, internal, j, items[j]);
+            }
+        }
+        synchronized (range) {
+            range.ranged = true;
+        }
+        store(range, masterWalletID, chainID, kind, internal, 0, items, 0, PROBE_COUNT);
+        return true;
+    }
+
+    private Range range(String masterWalletID, String chainID, Kind kind, boolean internal) {
+        return ranges(masterWalletID, chainID, true)[kind.ordinal() * 2 + (internal ? 1 : 0)];
+    }
+
+    private Range[] ranges(String masterWalletID, String chainID, boolean create) {
+        ConcurrentHashMap<String, Range[]> chains = wallets.get(masterWalletID);
+        if (chains == null) {
+            chains = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, Range[]> existing = wallets.putIfAbsent(masterWalletID, chains);
+            if (existing != null) {
+                chains = existing;
+            }
+        }
+
+        Range[] ranges = chains.get(chainID);
+        if (ranges == null) {
+            ranges = new Range[Kind.values().length * 2];
+            for (int i = 0; i < ranges.length; i++) {
+                ranges[i] = new Range();
+            }
+            load(masterWalletID, chainID, create, ranges);
+            Range[] existing = chains.putIfAbsent(chainID, ranges);
+            if (existing != null) {
+                ranges = existing;
+            }
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Load every sub wallet of the store not in memory yet, so that the AddressIndex knows
+     * all the addresses derived before a restart.
+     */
+    void loadStore() {
+        DerivedKeyStore store = this.store;
+        if (store == null || storeLoaded) {
+            return;
+        }
+
+        for (String[] subWallet : store.list()) {
+            ranges(subWallet[0], subWallet[1], false);
+        }
+        storeLoaded = true;
+    }
+
+    /**
+     * Fill the ranges of a sub wallet, not published yet, from the store.
+     */
+    private void load(final String masterWalletID, final String chainID, boolean create, final Range[] ranges) {
+        DerivedKeyStore store = this.store;
+        if (store == null) {
+            return;
+        }
+
+        store.load(masterWalletID, chainID, create, new DerivedKeyStore.Visitor() {
+            @Override
+            public void item(int kind, boolean internal, int index, String value) {
+                if (kind < 1 || kind > Kind.values().length || index < 0 || index >= MAX_INDEX) {
+                    return;
+                }
+                Range range = ranges[(kind - 1) * 2 + (internal ? 1 : 0)];
+                grow(range, index + 1);
+                range.items[index] = value;
+                range.ranged = true;
+                if (kind - 1 == Kind.ADDRESS.ordinal()) {
+                    addressIndex.add(masterWalletID, chainID, internal, index, value);
+                }
+            }
+        });
+    }
+
+    /**
+     * Keep items[offset, offset + count), derived for the indices from start on, and append to the
+     * store the ones the range does not have yet: two threads deriving the same indices under a
+     * shared lock persist them once.
+     */
+    private void store(Range range, String masterWalletID, String chainID, Kind kind, boolean internal, int start,
+                       String[] items, int offset, int count) {
+        DerivedKeyStore store = this.store;
+        synchronized (range) {
+            if (range.passThrough) {
+                return;
+            }
+
+            grow(range, start + count);
+            for (int i = 0; i < count; ) {
+                if (range.items[start + i] != null) {
+                    i++;
+                    continue;
+                }
+
+                int runStart = i;
+                while (i < count && range.items[start + i] == null) {
+                    range.items[start + i] = items[offset + i];
+                    i++;
+                }
+                if (store != null) {
+                    store.append(masterWalletID, chainID, kind.ordinal() + 1, internal, start + runStart,
+                            items, offset + runStart, i - runStart);
+                }
+            }
+        }
+    }
+
+    private static void grow(Range range, int end) {
+        if (end > range.items.length) {
+            int capacity = Math.max(MIN_CAPACITY, range.items.length);
+            while (capacity < end) {
+                capacity <<= 1;
+            }
+            range.items = Arrays.copyOf(range.items, Math.min(capacity, MAX_INDEX));
+        }
+    }
+
+    private static String encode(String[] items) {
+        StringBuilder sb = new StringBuilder(items.length * 48 + 2);
+        sb.append('[');
+        for (int i = 0; i < items.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(JSONObject.quote(items[i]));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Set the store backing the cache, the previous one is closed. Null disables persistence.
+     */
+    void setStore(DerivedKeyStore store) {
+        DerivedKeyStore previous = this.store;
+        this.store = store;
+        this.storeLoaded = false;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Forget a sub wallet, in memory and on disk.
+     */
+    void remove(String masterWalletID, String chainID) {
+        ConcurrentHashMap<String, Range[]> chains = wallets.get(masterWalletID);
+        if (chains != null) {
+            chains.remove(chainID);
+        }
+        addressIndex.remove(masterWalletID, chainID);
+
+        DerivedKeyStore store = this.store;
+        if (store != null) {
+            store.remove(masterWalletID, chainID);
+        }
+    }
+
+    /**
+     * Forget all the sub wallets of a master wallet, in memory and on disk.
+     */
+    void removeWallet(String masterWalletID) {
+        wallets.remove(masterWalletID);
+        addressIndex.removeWallet(masterWalletID);
+
+        DerivedKeyStore store = this.store;
+        if (store != null) {
+            store.removeWallet(masterWalletID);
+        }
+    }
+
+    /**
+     * Drop the items held in memory, the store is kept and reloaded from on next use.
+     * The AddressIndex is kept too, reloaded addresses replace their own entries.
+     */
+    void clear() {
+        wallets.clear();
+    }
+
+    JSONObject getStats() throws JSONException {
+        long items = 0;
+        for (ConcurrentHashMap<String, Range[]> chains : wallets.values()) {
+            for (Range[] ranges : chains.values()) {
+                for (Range range : ranges) {
+                    synchronized (range) {
+                        for (String item : range.items) {
+                            if (item != null) {
+                                items++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        JSONObject stats = new JSONObject();
+        stats.put("items", items);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+}
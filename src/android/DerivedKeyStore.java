@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import android.util.Log;
+
+/**
+ * Derived addresses and public keys persisted per (masterWalletID, chainID), so that
+ * they are not derived again through spvcore after a restart.
+ *
+ * Each sub wallet has an append-only file <root>/<masterWalletID>/<chainID>.idx, memory
+ * mapped while the manager is up. The header holds a version and a hash of the network,
+ * a file written for another network or version is truncated on open. Every record has
+ * its own CRC32: a record torn by a crash, and everything after it, is dropped on open
+ * and written over by the next append.
+ *
+ * Persistence is best effort, I/O errors are logged and the file is ignored.
+ */
+class DerivedKeyStore {
+
+    private static final String TAG = "DerivedKeyStore";
+
+    private static final int MAGIC = 0x45444b49;
+    private static final int VERSION = 1;
+
+    // magic, version, network hash, header crc
+    private static final int HEADER_SIZE = 16;
+    // kind, internal, length, index ... crc
+    private static final int RECORD_OVERHEAD = 12;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    interface Visitor {
+        void item(int kind, boolean internal, int index, String value);
+    }
+
+    private final File root;
+    private final int networkHash;
+    private final HashMap<String, IndexFile> files = new HashMap<>();
+
+    /**
+     * @param root directory of the index files.
+     * @param network identifies the network the keys are derived for, type and config.
+     */
+    DerivedKeyStore(String root, String network) {
+        this.root = new File(root);
+        this.networkHash = crc(network.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    private static String key(String masterWalletID, String chainID) {
+        return masterWalletID + "/" + chainID;
+    }
+
+    private File fileOf(String masterWalletID, String chainID) {
+        return new File(new File(root, masterWalletID), chainID + ".idx");
+    }
+
+    /**
+     * @return the (masterWalletID, chainID) pairs having a file.
+     */
+    synchronized List<String[]> list() {
+        ArrayList<String[]> subWallets = new ArrayList<>();
+        File[] wallets = root.listFiles();
+        if (wallets == null) {
+            return subWallets;
+        }
+
+        for (File wallet : wallets) {
+            File[] chains = wallet.listFiles();
+            if (chains == null) {
+                continue;
+            }
+            for (File chain : chains) {
+                String name = chain.getName();
+                if (name.endsWith(".idx")) {
+                    subWallets.add(new String[]{wallet.getName(), name.substring(0, name.length() - 4)});
+                }
+            }
+        }
+        return subWallets;
+    }
+
+    /**
+     * Open the file of a sub wallet and pass every persisted item to the visitor.
+     *
+     * @param create false to skip sub wallets without file, appends to them are then ignored.
+     */
+    synchronized void load(String masterWalletID, String chainID, boolean create, Visitor visitor) {
+        IndexFile file = files.get(key(masterWalletID, chainID));
+        try {
+            if (file == null) {
+                if (!create && !fileOf(masterWalletID, chainID).exists()) {
+                    return;
+                }
+                file = new IndexFile(fileOf(masterWalletID, chainID), networkHash);
+                files.put(key(masterWalletID, chainID), file);
+            }
+            file.scan(visitor);
+        } catch (IOException e) {
+            Log.w(TAG, "Load " + masterWalletID + ":" + chainID + " failed: " + e);
+        }
+    }
+
+    /**
+     * Append items[offset, offset + count) derived from index start.
+     */
+    synchronized void append(String masterWalletID, String chainID, int kind, boolean internal, int start,
+                             String[] items, int offset, int count) {
+        IndexFile file = files.get(key(masterWalletID, chainID));
+        if (file == null) {
+            return;
+        }
+
+        try {
+            for (int i = 0; i < count; i++) {
+                file.append(kind, internal, start + i, items[offset + i]);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Append " + masterWalletID + ":" + chainID + " failed: " + e);
+        }
+    }
+
+    synchronized void remove(String masterWalletID, String chainID) {
+        IndexFile file = files.remove(key(masterWalletID, chainID));
+        if (file != null) {
+            file.close();
+        }
+        fileOf(masterWalletID, chainID).delete();
+    }
+
+    synchronized void removeWallet(String masterWalletID) {
+        String prefix = masterWalletID + "/";
+        Iterator<Map.Entry<String, IndexFile>> it = files.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, IndexFile> entry = it.next();
+            if (entry.getKey().startsWith(prefix)) {
+                entry.getValue().close();
+                it.remove();
+            }
+        }
+
+        File dir = new File(root, masterWalletID);
+        File[] children = dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    synchronized void close() {
+        for (IndexFile file : files.values()) {
+            file.close();
+        }
+        files.clear();
+    }
+
+    private static final class IndexFile {
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+        private int end;
+
+        IndexFile(File file, int networkHash) throws IOException {
+            file.getParentFile().mkdirs();
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                channel.truncate(0);
+                size = 0;
+            }
+            map(Math.max(INITIAL_CAPACITY, (int) size));
+
+            if (size < HEADER_SIZE || !headerValid(networkHash)) {
+                channel.truncate(0);
+                map(INITIAL_CAPACITY);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, networkHash);
+                buffer.putInt(12, headerCrc());
+            }
+            end = HEADER_SIZE;
+            scan(null);
+        }
+
+        private void map(int capacity) throws IOException {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+
+        private int headerCrc() {
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < 12; i++) {
+                crc.update(buffer.get(i));
+            }
+            return (int) crc.getValue();
+        }
+
+        private boolean headerValid(int networkHash) {
+            return buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION
+                    && buffer.getInt(8) == networkHash && buffer.getInt(12) == headerCrc();
+        }
+
+        /**
+         * Walk the valid records, the append position is set after the last one.
+         */
+        void scan(Visitor visitor) {
+            int pos = HEADER_SIZE;
+            int capacity = buffer.capacity();
+            CRC32 crc = new CRC32();
+            byte[] bytes = new byte[256];
+
+            while (pos + RECORD_OVERHEAD <= capacity) {
+                int kind = buffer.get(pos);
+                int length = buffer.getShort(pos + 2) & 0xffff;
+                if (kind == 0 || pos + RECORD_OVERHEAD + length > capacity) {
+                    break;
+                }
+
+                if (bytes.length < length) {
+                    bytes = new byte[length];
+                }
+                ByteBuffer record = buffer.duplicate();
+                record.position(pos);
+                record.get(bytes, 0, 8);
+                crc.reset();
+                crc.update(bytes, 0, 8);
+                record.get(bytes, 0, length);
+                crc.update(bytes, 0, length);
+                if ((int) crc.getValue() != buffer.getInt(pos + 8 + length)) {
+                    break;
+                }
+
+                if (visitor != null) {
+                    visitor.item(kind, buffer.get(pos + 1) != 0, buffer.getInt(pos + 4),
+                            new String(bytes, 0, length, StandardCharsets.UTF_8));
+                }
+                pos += RECORD_OVERHEAD + length;
+            }
+
+            if (pos > end) {
+                end = pos;
+            }
+        }
+
+        void append(int kind, boolean internal, int index, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int size = RECORD_OVERHEAD + bytes.length;
+            if (end + size > buffer.capacity()) {
+                int capacity = buffer.capacity();
+                while (end + size > capacity) {
+                    capacity <<= 1;
+                }
+                map(capacity);
+            }
+
+            buffer.put(end, (byte) kind);
+            buffer.put(end + 1, (byte) (internal ? 1 : 0));
+            buffer.putShort(end + 2, (short) bytes.length);
+            buffer.putInt(end + 4, index);
+            ByteBuffer record = buffer.duplicate();
+            record.position(end + 8);
+            record.put(bytes);
+
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < 8; i++) {
+                crc.update(buffer.get(end + i));
+            }
+            crc.update(bytes, 0, bytes.length);
+            buffer.putInt(end + 8 + bytes.length, (int) crc.getValue());
+
+            end += size;
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+                raf.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Close failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Log-linear histogram of non negative values, latencies in microseconds or sizes in bytes.
+ *
+ * Values are counted in 16 buckets per power of two, so a percentile is reported within
+ * 1/16 of the value, up to MAX_VALUE. Recording is lock free and allocation free, except
+ * for the buckets allocated on the first one: most actions are never called.
+ */
+final class Histogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_BITS = 36;
+    static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKET_COUNT = (MAX_BITS - SUB_BITS + 1) * SUB_COUNT;
+
+    private volatile AtomicLongArray buckets = null;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+
+        AtomicLongArray buckets = this.buckets;
+        if (buckets == null) {
+            buckets = allocate();
+        }
+        buckets.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Retry against the new max.
+        }
+    }
+
+    private synchronized AtomicLongArray allocate() {
+        if (buckets == null) {
+            buckets = new AtomicLongArray(BUCKET_COUNT);
+        }
+        return buckets;
+    }
+
+    /**
+     * Values below 2 * SUB_COUNT have a bucket each, above that the exponent selects a run of
+     * SUB_COUNT buckets and the SUB_BITS bits after the leading one the bucket in the run.
+     */
+    private static int bucket(long value) {
+        if (value < 2 * SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return shift * SUB_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the highest value counted in a bucket.
+     */
+    private static long bucketMax(int bucket) {
+        if (bucket < 2 * SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_COUNT - 1;
+        long mantissa = bucket % SUB_COUNT + SUB_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * @param reset to start counting again from zero, values recorded meanwhile may be split.
+     * @return {count, mean, p50, p99, p999, max}.
+     */
+    JSONObject toJSON(boolean reset) throws JSONException {
+        AtomicLongArray buckets = this.buckets;
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        if (buckets != null) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = reset ? buckets.getAndSet(i, 0) : buckets.get(i);
+                total += counts[i];
+            }
+        }
+        long sum = reset ? this.sum.getAndSet(0) : this.sum.get();
+        long max = reset ? this.max.getAndSet(0) : this.max.get();
+        if (reset) {
+            count.getAndSet(0);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("count", total);
+        json.put("mean", total > 0 ? sum / total : 0);
+        json.put("p50", percentile(counts, total, max, 0.5));
+        json.put("p99", percentile(counts, total, max, 0.99));
+        json.put("p999", percentile(counts, total, max, 0.999));
+        json.put("max", max);
+        return json;
+    }
+
+    long getCount() {
+        return count.get();
+    }
+
+    private static long percentile(long[] counts, long total, long max, double fraction) {
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketMax(i), max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.elastos.essentials.plugins.wallet;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONObject;
+
+/**
+ * Callback context sending the JSON strings returned by spvcore as JSON results.
+ *
+ * A string result is quoted by the bridge and parsed again by the caller, a JSON
+ * result is parsed once by cordova.js. The text from spvcore is already encoded,
+ * so it is passed through as is instead of being parsed into a JSONObject only to
+ * be serialized back. Strings which are not a JSON object or array, like addresses
+ * or digests, are still sent as strings.
+ */
+final class JsonResultContext extends CallbackContext {
+
+    private final CallbackContext target;
+
+    JsonResultContext(CallbackContext target, CordovaWebView webView) {
+        super(target.getCallbackId(), webView);
+        this.target = target;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return target.isFinished();
+    }
+
+    @Override
+    public void sendPluginResult(PluginResult pluginResult) {
+        target.sendPluginResult(pluginResult);
+    }
+
+    @Override
+    public void success(String message) {
+        if (isEncodedJson(message)) {
+            target.sendPluginResult(new PluginResult(PluginResult.Status.OK, new EncodedJSON(message)));
+        } else {
+            target.success(message);
+        }
+    }
+
+    static boolean isEncodedJson(String message) {
+        if (message == null) {
+            return false;
+        }
+
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{' || c == '[';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * PluginResult encodes a JSON message with toString(), which returns the spvcore text unchanged.
+     */
+    static final class EncodedJSON extends JSONObject {
+        private final String encoded;
+
+        EncodedJSON(String encoded) {
+            this.encoded = encoded;
+        }
+
+        @Override
+        public String toString() {
+            return encoded;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elastos.spvcore.MasterWallet;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Master wallet handles keyed by masterWalletID.
+ *
+ * Filled by the create/import actions and getAllMasterWallets, evicted by destroyWallet
+ * and manager disposal. Hits and misses are counted so it can be checked that the hot
+ * path does not fall back to MasterWalletManager.GetMasterWallet().
+ *
+ * Once the wallets were listed, their IDs are kept in spvcore's order so that a listing
+ * does not ask spvcore again. Basic info and supported chains, fixed for the life of a
+ * wallet, are cached with the handle.
+ */
+class MasterWalletRegistry {
+
+    private final ConcurrentHashMap<String, MasterWallet> masterWallets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> basicInfos = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String[]> supportedChains = new ConcurrentHashMap<>();
+
+    // IDs of all the wallets in spvcore's order, null until listed by putAll().
+    private ArrayList<String> ids = null;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // Bumped by every eviction, a bulk fill racing with one is dropped.
+    private int modCount = 0;
+
+    /**
+     * @return the cached handle, or null on a miss, the caller then asks spvcore and put()s it.
+     */
+    MasterWallet get(String masterWalletID) {
+        MasterWallet masterWallet = masterWallets.get(masterWalletID);
+        if (masterWallet != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return masterWallet;
+    }
+
+    synchronized void put(String masterWalletID, MasterWallet masterWallet) {
+        if (masterWallet != null) {
+            if (masterWallets.put(masterWalletID, masterWallet) == null && ids != null
+                    && !ids.contains(masterWalletID)) {
+                ids.add(masterWalletID);
+            }
+        }
+    }
+
+    /**
+     * Cache a handle read from spvcore on a miss, unless a wallet was evicted since.
+     *
+     * @param marker value of marker() taken before the handle was read from spvcore.
+     */
+    synchronized void put(String masterWalletID, MasterWallet masterWallet, int marker) {
+        if (marker == modCount) {
+            put(masterWalletID, masterWallet);
+        }
+    }
+
+    /**
+     * @return the IDs of all the wallets, or null if they were not listed yet.
+     */
+    synchronized List<String> ids() {
+        return ids != null ? new ArrayList<>(ids) : null;
+    }
+
+    String basicInfo(String masterWalletID, MasterWallet masterWallet) {
+        String basicInfo = basicInfos.get(masterWalletID);
+        if (basicInfo == null) {
+            basicInfo = NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo());
+            basicInfos.put(masterWalletID, basicInfo);
+        }
+        return basicInfo;
+    }
+
+    String[] supportedChains(String masterWalletID, MasterWallet masterWallet) {
+        String[] chains = supportedChains.get(masterWalletID);
+        if (chains == null) {
+            chains = NativeCalls.call("MasterWallet.GetSupportedChains", () -> masterWallet.GetSupportedChains());
+            supportedChains.put(masterWalletID, chains);
+        }
+        return chains;
+    }
+
+    synchronized int marker() {
+        return modCount;
+    }
+
+    /**
+     * Cache all the wallets returned by MasterWalletManager.GetAllMasterWallets().
+     *
+     * @param marker value of marker() taken before the list was read from spvcore.
+     */
+    synchronized void putAll(List<MasterWallet> masterWalletList, int marker) {
+        if (marker != modCount) {
+            return;
+        }
+
+        ArrayList<String> listed = new ArrayList<>(masterWalletList.size());
+        for (int i = 0; i < masterWalletList.size(); i++) {
+            MasterWallet masterWallet = masterWalletList.get(i);
+            String masterWalletID = NativeCalls.call("MasterWallet.GetID", () -> masterWallet.GetID());
+            masterWallets.put(masterWalletID, masterWallet);
+            listed.add(masterWalletID);
+        }
+        ids = listed;
+    }
+
+    synchronized void remove(String masterWalletID) {
+        modCount++;
+        masterWallets.remove(masterWalletID);
+        basicInfos.remove(masterWalletID);
+        supportedChains.remove(masterWalletID);
+        if (ids != null) {
+            ids.remove(masterWalletID);
+        }
+    }
+
+    synchronized void clear() {
+        modCount++;
+        masterWallets.clear();
+        basicInfos.clear();
+        supportedChains.clear();
+        ids = null;
+    }
+
+    JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        stats.put("size", masterWallets.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+}
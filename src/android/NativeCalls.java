@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Accounting of the calls into spvcore, per method and per action.
+ *
+ * Every call of a spvcore method goes through call() or run() with the name of the method,
+ * e.g. "SubWallet.SignTransaction". Each method has a latency histogram, and the action
+ * running on the calling thread counts its calls by method too, so that the native hops an
+ * action costs can be told apart from the time they take. Dispatch sets the action of its
+ * thread, ParallelLoop passes it on to the workers helping.
+ */
+final class NativeCalls {
+
+    interface Call<T> {
+        T call();
+    }
+
+    interface VoidCall {
+        void run();
+    }
+
+    private static final ConcurrentHashMap<String, Histogram> methods = new ConcurrentHashMap<>();
+    private static final ThreadLocal<ActionMetrics> current = new ThreadLocal<>();
+
+    private NativeCalls() {
+    }
+
+    static <T> T call(String method, Call<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            record(method, start, System.nanoTime());
+        }
+    }
+
+    static void run(String method, VoidCall call) {
+        long start = System.nanoTime();
+        try {
+            call.run();
+        } finally {
+            record(method, start, System.nanoTime());
+        }
+    }
+
+    private static void record(String method, long start, long end) {
+        long nanos = end - start;
+        Histogram histogram = methods.get(method);
+        if (histogram == null) {
+            histogram = new Histogram();
+            Histogram existing = methods.putIfAbsent(method, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        histogram.record(nanos / 1000);
+
+        ActionMetrics action = current.get();
+        if (action != null) {
+            action.recordNative(method, nanos / 1000);
+        }
+        Trace.recordChild(method, "jni", start, end);
+    }
+
+    /**
+     * Attribute the native calls of the current thread to an action, until exit().
+     *
+     * @return the action attributed before, to pass to exit().
+     */
+    static ActionMetrics enter(ActionMetrics action) {
+        ActionMetrics previous = current.get();
+        current.set(action);
+        return previous;
+    }
+
+    static void exit(ActionMetrics previous) {
+        current.set(previous);
+    }
+
+    static ActionMetrics current() {
+        return current.get();
+    }
+
+    /**
+     * @return {method: {count, mean, p50, p99, p999, max}} in microseconds, for the methods called.
+     */
+    static JSONObject toJSON(boolean reset) throws JSONException {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, Histogram> entry : methods.entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                json.put(entry.getKey(), entry.getValue().toJSON(reset));
+            }
+        }
+        return json;
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.elastos.spvcore.WalletException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.util.Log;
+
+/**
+ * Nonces of the EVM sub wallets, allocated per (masterWalletID, chainID, address) so that
+ * transfers can be created and signed concurrently without two of them using one nonce.
+ *
+ * A nonce is reserved before creating its transaction, then committed once the transaction
+ * was published or released if it was not. Released nonces are handed out again before new
+ * ones, so a failed transfer does not leave a gap the following ones would wait on. The
+ * nonce known by the network, when given, is a floor: nonces below it are used already.
+ *
+ * The state of an address is appended to a journal on every change, and the journal read
+ * back on open, last state winning. Nonces reserved but neither committed nor released
+ * before a restart stay reserved, their transactions may have been published. A torn last
+ * record is dropped, the journal is rewritten with the live states once mostly stale.
+ * As for DerivedKeyStore, I/O errors are logged and allocation goes on in memory.
+ */
+class NonceAllocator {
+
+    private static final String TAG = "NonceAllocator";
+
+    private static final int MAGIC = 0x454e4f4e;
+    private static final int VERSION = 1;
+
+    // magic, version, network hash, header crc
+    private static final int HEADER_SIZE = 16;
+    // length ... crc
+    private static final int RECORD_OVERHEAD = 8;
+    private static final int COMPACT_SIZE = 256 * 1024;
+    // Reserved and released nonces per address, far beyond any burst.
+    private static final int MAX_OUTSTANDING = 4096;
+
+    static final class NonceException extends Exception {
+        NonceException(String message) {
+            super(message);
+        }
+    }
+
+    interface AddressSource {
+        String address() throws WalletException;
+    }
+
+    private static final class State {
+        // Lowest nonce never handed out.
+        long next;
+        final TreeSet<Long> reserved = new TreeSet<>();
+        final TreeSet<Long> released = new TreeSet<>();
+
+        State(long next) {
+            this.next = next;
+        }
+    }
+
+    // masterWalletID \n chainID \n address -> state
+    private final HashMap<String, State> states = new HashMap<>();
+    // masterWalletID \n chainID -> address, the address of an EVM sub wallet never changes.
+    private final ConcurrentHashMap<String, String> addresses = new ConcurrentHashMap<>();
+
+    private RandomAccessFile journal = null;
+    private File journalFile = null;
+    private int networkHash = 0;
+    private long end = 0;
+    private long compactAt = COMPACT_SIZE;
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static String key(String masterWalletID, String chainID, String address) {
+        return masterWalletID + "\n" + chainID + "\n" + address.toLowerCase();
+    }
+
+    /**
+     * @return the address of an EVM sub wallet, asked to the source only once.
+     */
+    String address(String masterWalletID, String chainID, AddressSource source) throws WalletException,
+            JSONException {
+        String subWallet = masterWalletID + "\n" + chainID;
+        String address = addresses.get(subWallet);
+        if (address == null) {
+            address = new JSONArray(source.address()).getString(0);
+            addresses.put(subWallet, address);
+        }
+        return address;
+    }
+
+    /**
+     * Reserve the lowest nonce released or never handed out.
+     *
+     * @param networkNonce nonce the network expects next for the address, or -1 if unknown. Needed for the
+     *                     first reservation of an address.
+     */
+    synchronized long reserve(String masterWalletID, String chainID, String address, long networkNonce)
+            throws NonceException {
+        String key = key(masterWalletID, chainID, address);
+        State state = states.get(key);
+        if (state == null) {
+            if (networkNonce < 0) {
+                throw new NonceException("The network nonce of " + address + " is needed for its first reservation");
+            }
+            state = new State(networkNonce);
+            states.put(key, state);
+        } else if (networkNonce > state.next) {
+            state.next = networkNonce;
+        }
+        if (networkNonce > 0) {
+            state.reserved.headSet(networkNonce).clear();
+            state.released.headSet(networkNonce).clear();
+        }
+
+        if (state.reserved.size() >= MAX_OUTSTANDING) {
+            throw new NonceException(state.reserved.size() + " nonces of " + address + " are reserved already");
+        }
+
+        long nonce;
+        if (!state.released.isEmpty()) {
+            nonce = state.released.pollFirst();
+        } else {
+            nonce = state.next++;
+        }
+        state.reserved.add(nonce);
+
+        write(key, state);
+        return nonce;
+    }
+
+    /**
+     * The transaction using a reserved nonce was published.
+     *
+     * @return false if the nonce was not reserved.
+     */
+    synchronized boolean commit(String masterWalletID, String chainID, String address, long nonce) {
+        String key = key(masterWalletID, chainID, address);
+        State state = states.get(key);
+        if (state == null || !state.reserved.remove(nonce)) {
+            return false;
+        }
+
+        write(key, state);
+        return true;
+    }
+
+    /**
+     * The transaction using a reserved nonce was not published, the nonce is handed out again.
+     *
+     * @return false if the nonce was not reserved.
+     */
+    synchronized boolean release(String masterWalletID, String chainID, String address, long nonce) {
+        String key = key(masterWalletID, chainID, address);
+        State state = states.get(key);
+        if (state == null || !state.reserved.remove(nonce)) {
+            return false;
+        }
+
+        if (nonce == state.next - 1) {
+            state.next--;
+            while (!state.released.isEmpty() && state.released.last() == state.next - 1) {
+                state.released.pollLast();
+                state.next--;
+            }
+        } else {
+            state.released.add(nonce);
+        }
+
+        write(key, state);
+        return true;
+    }
+
+    /**
+     * @return {next, reserved: [nonce, ...], released: [nonce, ...]}, or null if the address has no state.
+     */
+    synchronized JSONObject getState(String masterWalletID, String chainID, String address) throws JSONException {
+        State state = states.get(key(masterWalletID, chainID, address));
+        if (state == null) {
+            return null;
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("next", state.next);
+        json.put("reserved", new JSONArray(state.reserved));
+        json.put("released", new JSONArray(state.released));
+        return json;
+    }
+
+    synchronized void remove(String masterWalletID, String chainID) {
+        addresses.remove(masterWalletID + "\n" + chainID);
+        removeKeys(masterWalletID + "\n" + chainID + "\n");
+    }
+
+    synchronized void removeWallet(String masterWalletID) {
+        Iterator<String> it = addresses.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().startsWith(masterWalletID + "\n")) {
+                it.remove();
+            }
+        }
+        removeKeys(masterWalletID + "\n");
+    }
+
+    private void removeKeys(String prefix) {
+        Iterator<String> it = states.keySet().iterator();
+        while (it.hasNext()) {
+            String key = it.next();
+            if (key.startsWith(prefix)) {
+                it.remove();
+                write(key, null);
+            }
+        }
+    }
+
+    /**
+     * Load the journal, the states in memory are replaced by its content.
+     *
+     * @param network identifies the network the nonces are for, type and config.
+     */
+    synchronized void open(String path, String network) {
+        close();
+
+        byte[] bytes = network.getBytes(StandardCharsets.UTF_8);
+        networkHash = crc(bytes, 0, bytes.length);
+        journalFile = new File(path);
+        try {
+            journalFile.getParentFile().mkdirs();
+            journal = new RandomAccessFile(journalFile, "rw");
+            replay();
+        } catch (IOException e) {
+            Log.w(TAG, "Open " + path + " failed: " + e);
+            closeJournal();
+        }
+    }
+
+    synchronized void close() {
+        closeJournal();
+        states.clear();
+        addresses.clear();
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Close failed: " + e);
+            }
+            journal = null;
+        }
+    }
+
+    private void replay() throws IOException {
+        compactAt = COMPACT_SIZE;
+        long size = journal.length();
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE || !readHeader()) {
+            writeHeader();
+            return;
+        }
+
+        byte[] bytes = new byte[(int) size];
+        journal.seek(0);
+        journal.readFully(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        int position = HEADER_SIZE;
+        while (position + RECORD_OVERHEAD <= bytes.length) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > bytes.length - position - RECORD_OVERHEAD
+                    || buffer.getInt(position + 4 + length) != crc(bytes, position + 4, length)) {
+                break;
+            }
+            readState(buffer, position + 4);
+            position += length + RECORD_OVERHEAD;
+        }
+
+        end = position;
+        if (end < size) {
+            journal.setLength(end);
+        }
+        compactAt = Math.max(COMPACT_SIZE, end * 2);
+    }
+
+    private boolean readHeader() throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        journal.seek(0);
+        journal.readFully(header);
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        return buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION && buffer.getInt(8) == networkHash
+                && buffer.getInt(12) == crc(header, 0, 12);
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(networkHash);
+        header.putInt(crc(header.array(), 0, 12));
+        journal.setLength(0);
+        journal.write(header.array());
+        end = HEADER_SIZE;
+    }
+
+    // key length, key, next, reserved count, released count, nonces; next is -1 for a removed state.
+    private void readState(ByteBuffer buffer, int position) {
+        buffer.position(position);
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        String key = new String(bytes, StandardCharsets.UTF_8);
+        long next = buffer.getLong();
+        int reservedCount = buffer.getShort() & 0xffff;
+        int releasedCount = buffer.getShort() & 0xffff;
+
+        if (next < 0) {
+            states.remove(key);
+            return;
+        }
+
+        State state = new State(next);
+        for (int i = 0; i < reservedCount; i++) {
+            state.reserved.add(buffer.getLong());
+        }
+        for (int i = 0; i < releasedCount; i++) {
+            state.released.add(buffer.getLong());
+        }
+        states.put(key, state);
+    }
+
+    private static byte[] encode(String key, State state) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int count = state != null ? state.reserved.size() + state.released.size() : 0;
+        int length = 2 + bytes.length + 8 + 4 + count * 8;
+
+        ByteBuffer record = ByteBuffer.allocate(length + RECORD_OVERHEAD);
+        record.putInt(length);
+        record.putShort((short) bytes.length).put(bytes);
+        if (state != null) {
+            record.putLong(state.next);
+            record.putShort((short) state.reserved.size()).putShort((short) state.released.size());
+            for (long nonce : state.reserved) {
+                record.putLong(nonce);
+            }
+            for (long nonce : state.released) {
+                record.putLong(nonce);
+            }
+        } else {
+            record.putLong(-1).putShort((short) 0).putShort((short) 0);
+        }
+        record.putInt(crc(record.array(), 4, length));
+        return record.array();
+    }
+
+    private void write(String key, State state) {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            if (end > compactAt) {
+                compact();
+            }
+            byte[] record = encode(key, state);
+            journal.seek(end);
+            journal.write(record);
+            end += record.length;
+        } catch (IOException e) {
+            Log.w(TAG, "Write " + journalFile + " failed: " + e);
+            closeJournal();
+        }
+    }
+
+    /**
+     * Rewrite the journal with the live states only, if they are a small part of it.
+     */
+    private void compact() throws IOException {
+        int size = HEADER_SIZE;
+        byte[][] records = new byte[states.size()][];
+        int n = 0;
+        for (Map.Entry<String, State> entry : states.entrySet()) {
+            records[n] = encode(entry.getKey(), entry.getValue());
+            size += records[n++].length;
+        }
+        // Not again before the journal grew as much as the live states.
+        compactAt = Math.max(COMPACT_SIZE, size * 4L);
+        if (size > end / 4) {
+            return;
+        }
+
+        File tmp = new File(journalFile.getPath() + ".tmp");
+        RandomAccessFile compacted = new RandomAccessFile(tmp, "rw");
+        RandomAccessFile previous = journal;
+        long previousEnd = end;
+        try {
+            journal = compacted;
+            writeHeader();
+            for (byte[] record : records) {
+                journal.write(record);
+                end += record.length;
+            }
+        } catch (IOException e) {
+            compacted.close();
+            journal = previous;
+            end = previousEnd;
+            tmp.delete();
+            throw e;
+        }
+
+        previous.close();
+        if (!tmp.renameTo(journalFile)) {
+            journal = null;
+            compacted.close();
+            throw new IOException("Rename " + tmp + " failed");
+        }
+    }
+}
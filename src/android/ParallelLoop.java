@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the iterations of a loop on the calling thread and the idle workers of the pool.
+ *
+ * Iterations are claimed in chunks. The calling thread keeps claiming until none is left
+ * and never waits for a chunk nobody started, so a saturated pool only makes the loop
+ * sequential, as in ActionBatch. The caller holds the locks the iterations need for the
+ * whole loop, its action and trace span are the ones the helpers' native calls are
+ * attributed to.
+ */
+final class ParallelLoop {
+
+    interface Body<E extends Exception> {
+        void run(int index) throws E;
+    }
+
+    private final int count;
+    private final int chunkSize;
+    private final int chunks;
+    private final Body<?> body;
+    private final ActionMetrics action = NativeCalls.current();
+    private final Trace.Span span = Trace.current();
+
+    private final AtomicInteger next = new AtomicInteger(0);
+    private final CountDownLatch done;
+    // First exception thrown by the body, the remaining iterations are skipped.
+    private volatile Exception failure = null;
+
+    private ParallelLoop(int count, int chunkSize, Body<?> body) {
+        this.count = count;
+        this.chunkSize = chunkSize;
+        this.chunks = (count + chunkSize - 1) / chunkSize;
+        this.body = body;
+        this.done = new CountDownLatch(chunks);
+    }
+
+    /**
+     * Run body for the indices [0, count), rethrowing the first exception it threw.
+     */
+    @SuppressWarnings("unchecked")
+    static <E extends Exception> void run(ActionExecutor executor, int count, int chunkSize, Body<E> body)
+            throws E, InterruptedException {
+        ParallelLoop loop = new ParallelLoop(count, chunkSize, body);
+
+        int helpers = Math.min(loop.chunks, executor.getWorkerCount()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            if (!executor.submit(loop::drain)) {
+                break;
+            }
+        }
+
+        loop.drain();
+        loop.done.await();
+
+        if (loop.failure instanceof RuntimeException) {
+            throw (RuntimeException) loop.failure;
+        }
+        if (loop.failure != null) {
+            throw (E) loop.failure;
+        }
+    }
+
+    private void drain() {
+        ActionMetrics previous = NativeCalls.enter(action);
+        Trace.Span previousSpan = Trace.enter(span);
+        try {
+            int chunk;
+            while ((chunk = next.getAndIncrement()) < chunks) {
+                try {
+                    int end = Math.min(count, (chunk + 1) * chunkSize);
+                    for (int i = chunk * chunkSize; i < end && failure == null; i++) {
+                        body.run(i);
+                    }
+                } catch (Exception e) {
+                    failure = e;
+                } finally {
+                    done.countDown();
+                }
+            }
+        } finally {
+            Trace.exit(previousSpan);
+            NativeCalls.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.HashMap;
+
+import org.elastos.spvcore.MainchainSubWallet;
+import org.elastos.spvcore.WalletException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Digest, sign and create steps of a CR proposal family run in one action.
+ *
+ * A family is named after the action creating its transaction, e.g.
+ * "createProposalTransaction", and accepts the digest actions of that family, e.g.
+ * "proposalOwnerDigest" and "proposalCRCouncilMemberDigest". Each step computes a digest of
+ * the payload as it stands, signs it with the key of an address and stores the signature in
+ * a field of the payload, so later digests cover the earlier signatures.
+ */
+final class ProposalPipeline {
+
+    interface Digest {
+        String digest(MainchainSubWallet subWallet, String payload) throws WalletException;
+    }
+
+    interface Create {
+        String create(MainchainSubWallet subWallet, String inputs, String payload, String fee, String memo)
+                throws WalletException;
+    }
+
+    interface Signer {
+        /**
+         * @param chainID chain of the signing sub wallet, null for the one creating the transaction.
+         */
+        String sign(String chainID, String address, String digest) throws WalletException;
+    }
+
+    private static final class Family {
+        final Create create;
+        // NativeCalls labels, the action names capitalized.
+        final String createMethod;
+        final HashMap<String, Digest> digests = new HashMap<>();
+        final HashMap<String, String> methods = new HashMap<>();
+
+        Family(String name, Create create) {
+            this.create = create;
+            this.createMethod = method(name);
+        }
+
+        Family digest(String name, Digest digest) {
+            digests.put(name, digest);
+            methods.put(name, method(name));
+            return this;
+        }
+    }
+
+    private static final HashMap<String, Family> families = new HashMap<>();
+
+    private static Family family(String name, Create create) {
+        Family family = new Family(name, create);
+        families.put(name, family);
+        return family;
+    }
+
+    private static String method(String action) {
+        return "MainchainSubWallet." + Character.toUpperCase(action.charAt(0)) + action.substring(1);
+    }
+
+    static {
+        family("createProposalTransaction", MainchainSubWallet::CreateProposalTransaction)
+                .digest("proposalOwnerDigest", MainchainSubWallet::ProposalOwnerDigest)
+                .digest("proposalCRCouncilMemberDigest", MainchainSubWallet::ProposalCRCouncilMemberDigest);
+        family("createProposalReviewTransaction", MainchainSubWallet::CreateProposalReviewTransaction)
+                .digest("proposalReviewDigest", MainchainSubWallet::ProposalReviewDigest);
+        family("createProposalTrackingTransaction", MainchainSubWallet::CreateProposalTrackingTransaction)
+                .digest("proposalTrackingOwnerDigest", MainchainSubWallet::ProposalTrackingOwnerDigest)
+                .digest("proposalTrackingNewOwnerDigest", MainchainSubWallet::ProposalTrackingNewOwnerDigest)
+                .digest("proposalTrackingSecretaryDigest", MainchainSubWallet::ProposalTrackingSecretaryDigest);
+        family("createSecretaryGeneralElectionTransaction", MainchainSubWallet::CreateSecretaryGeneralElectionTransaction)
+                .digest("proposalSecretaryGeneralElectionDigest", MainchainSubWallet::ProposalSecretaryGeneralElectionDigest)
+                .digest("proposalSecretaryGeneralElectionCRCouncilMemberDigest",
+                        MainchainSubWallet::ProposalSecretaryGeneralElectionCRCouncilMemberDigest);
+        family("createProposalChangeOwnerTransaction", MainchainSubWallet::CreateProposalChangeOwnerTransaction)
+                .digest("proposalChangeOwnerDigest", MainchainSubWallet::ProposalChangeOwnerDigest)
+                .digest("proposalChangeOwnerCRCouncilMemberDigest", MainchainSubWallet::ProposalChangeOwnerCRCouncilMemberDigest);
+        family("createTerminateProposalTransaction", MainchainSubWallet::CreateTerminateProposalTransaction)
+                .digest("terminateProposalOwnerDigest", MainchainSubWallet::TerminateProposalOwnerDigest)
+                .digest("terminateProposalCRCouncilMemberDigest", MainchainSubWallet::TerminateProposalCRCouncilMemberDigest);
+        family("createReserveCustomIDTransaction", MainchainSubWallet::CreateReserveCustomIDTransaction)
+                .digest("reserveCustomIDOwnerDigest", MainchainSubWallet::ReserveCustomIDOwnerDigest)
+                .digest("reserveCustomIDCRCouncilMemberDigest", MainchainSubWallet::ReserveCustomIDCRCouncilMemberDigest);
+        family("createReceiveCustomIDTransaction", MainchainSubWallet::CreateReceiveCustomIDTransaction)
+                .digest("receiveCustomIDOwnerDigest", MainchainSubWallet::ReceiveCustomIDOwnerDigest)
+                .digest("receiveCustomIDCRCouncilMemberDigest", MainchainSubWallet::ReceiveCustomIDCRCouncilMemberDigest);
+        family("createChangeCustomIDFeeTransaction", MainchainSubWallet::CreateChangeCustomIDFeeTransaction)
+                .digest("changeCustomIDFeeOwnerDigest", MainchainSubWallet::ChangeCustomIDFeeOwnerDigest)
+                .digest("changeCustomIDFeeCRCouncilMemberDigest", MainchainSubWallet::ChangeCustomIDFeeCRCouncilMemberDigest);
+        family("createProposalWithdrawTransaction", MainchainSubWallet::CreateProposalWithdrawTransaction)
+                .digest("proposalWithdrawDigest", MainchainSubWallet::ProposalWithdrawDigest);
+        family("createRegisterSidechainTransaction", MainchainSubWallet::CreateRegisterSidechainTransaction)
+                .digest("registerSidechainOwnerDigest", MainchainSubWallet::RegisterSidechainOwnerDigest)
+                .digest("registerSidechainCRCouncilMemberDigest", MainchainSubWallet::RegisterSidechainCRCouncilMemberDigest);
+    }
+
+    private ProposalPipeline() {
+    }
+
+    /**
+     * Check the transaction and steps before anything is signed.
+     *
+     * @return null if valid, or the error message.
+     */
+    static String check(String transaction, JSONArray steps) throws JSONException {
+        Family family = families.get(transaction);
+        if (family == null) {
+            return "Unknown proposal transaction '" + transaction + "'";
+        }
+
+        for (int i = 0; i < steps.length(); i++) {
+            JSONObject step = steps.getJSONObject(i);
+            String digest = step.getString("digest");
+            if (!family.digests.containsKey(digest)) {
+                return "Step " + i + ": '" + digest + "' is not a digest of " + transaction;
+            }
+            step.getString("address");
+            step.getString("field");
+        }
+        return null;
+    }
+
+    /**
+     * @param steps [{digest, address, field, chainID?}, ...], validated by check().
+     * @return the transaction JSON returned by spvcore.
+     */
+    static String run(MainchainSubWallet subWallet, String transaction, JSONObject payload, JSONArray steps,
+                      String inputs, String fee, String memo, Signer signer) throws WalletException, JSONException {
+        Family family = families.get(transaction);
+
+        for (int i = 0; i < steps.length(); i++) {
+            JSONObject step = steps.getJSONObject(i);
+            String name = step.getString("digest");
+            String text = payload.toString();
+            String digest = NativeCalls.call(family.methods.get(name),
+                    () -> family.digests.get(name).digest(subWallet, text));
+            String signature = signer.sign(step.optString("chainID", null), step.getString("address"), digest);
+            payload.put(step.getString("field"), signature);
+        }
+
+        String text = payload.toString();
+        return NativeCalls.call(family.createMethod,
+                () -> family.create.create(subWallet, inputs, text, fee, memo));
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.json.JSONObject;
+
+import android.util.Log;
+
+/**
+ * The last SLOTS actions slower than a threshold, in a memory mapped ring file.
+ *
+ * Each entry is a JSON object in a fixed size slot: sequence number, length, CRC32 and the
+ * entry. A writer claims the slot of the next sequence number and writes it in place, so
+ * recording neither locks nor waits for the disk, the kernel writes the pages back. A slot
+ * torn by a crash or by a concurrent write fails its CRC and is skipped when read. The
+ * sequence goes on from the highest one found on open.
+ *
+ * Entries hold the IDs of the wallet, the timings and, per argument, the size of strings,
+ * arrays and objects or the type of numbers and booleans. Never the values of arguments,
+ * and not even the sizes of the secret ones, see ActionSpec.describeArgs().
+ *
+ * Persistence is best effort, I/O errors are logged and nothing is recorded.
+ */
+final class SlowActionJournal {
+
+    private static final String TAG = "SlowActionJournal";
+
+    private static final int MAGIC = 0x534c4f57;
+    private static final int VERSION = 1;
+
+    private static final int SLOTS = 256;
+    private static final int SLOT_SIZE = 1024;
+    // magic, version, slots, slot size, threshold millis, padding
+    private static final int HEADER_SIZE = 32;
+    private static final int THRESHOLD_OFFSET = 16;
+    // sequence, length, crc
+    private static final int SLOT_OVERHEAD = 16;
+    private static final int FILE_SIZE = HEADER_SIZE + SLOTS * SLOT_SIZE;
+
+    static final long DEFAULT_THRESHOLD_MILLIS = 1000;
+
+    private final AtomicLong next = new AtomicLong(1);
+    private volatile MappedByteBuffer buffer = null;
+    // Negative when disabled.
+    private volatile long thresholdMicros = DEFAULT_THRESHOLD_MILLIS * 1000;
+
+    synchronized void open(String path) {
+        close();
+
+        File file = new File(path);
+        file.getParentFile().mkdirs();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            boolean fresh = channel.size() != FILE_SIZE;
+            if (fresh) {
+                channel.truncate(0);
+            }
+            // The mapping stays valid once the channel is closed.
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            if (fresh || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION
+                    || mapped.getInt(8) != SLOTS || mapped.getInt(12) != SLOT_SIZE) {
+                for (int i = 0; i < SLOTS; i++) {
+                    mapped.putLong(HEADER_SIZE + i * SLOT_SIZE, 0);
+                }
+                mapped.putInt(0, MAGIC);
+                mapped.putInt(4, VERSION);
+                mapped.putInt(8, SLOTS);
+                mapped.putInt(12, SLOT_SIZE);
+                mapped.putLong(THRESHOLD_OFFSET, DEFAULT_THRESHOLD_MILLIS);
+            }
+
+            long millis = mapped.getLong(THRESHOLD_OFFSET);
+            thresholdMicros = millis < 0 ? -1 : millis * 1000;
+
+            long last = 0;
+            for (Entry entry : scan(mapped)) {
+                last = Math.max(last, entry.sequence);
+            }
+            next.set(last + 1);
+            buffer = mapped;
+        } catch (IOException e) {
+            Log.w(TAG, "Open " + path + " failed: " + e);
+        }
+    }
+
+    synchronized void close() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+    }
+
+    /**
+     * @param millis latency from which actions are recorded, negative to record none.
+     */
+    void setThresholdMillis(long millis) {
+        thresholdMicros = millis < 0 ? -1 : millis * 1000;
+        MappedByteBuffer mapped = buffer;
+        if (mapped != null) {
+            mapped.putLong(THRESHOLD_OFFSET, millis < 0 ? -1 : millis);
+        }
+    }
+
+    long getThresholdMillis() {
+        long micros = thresholdMicros;
+        return micros < 0 ? -1 : micros / 1000;
+    }
+
+    boolean isSlow(long micros) {
+        long threshold = thresholdMicros;
+        return threshold >= 0 && micros >= threshold && buffer != null;
+    }
+
+    /**
+     * @param args the argument sizes as a JSON object, see ActionSpec.describeArgs(), dropped if the entry
+     *             does not fit in a slot.
+     * @param errorCode code of the error result, ActionMetrics.NO_ERROR if none.
+     */
+    void record(String action, String masterWalletID, String chainID, String args, int requestSize,
+                long queueMicros, long lockMicros, long execMicros, int errorCode) {
+        MappedByteBuffer mapped = buffer;
+        if (mapped == null) {
+            return;
+        }
+
+        long sequence = next.getAndIncrement();
+        byte[] bytes = entry(sequence, action, masterWalletID, chainID, args, requestSize, queueMicros, lockMicros,
+                execMicros, errorCode);
+        if (bytes.length > SLOT_SIZE - SLOT_OVERHEAD) {
+            bytes = entry(sequence, action, masterWalletID, chainID, null, requestSize, queueMicros, lockMicros,
+                    execMicros, errorCode);
+            if (bytes.length > SLOT_SIZE - SLOT_OVERHEAD) {
+                return;
+            }
+        }
+
+        int pos = HEADER_SIZE + (int) (sequence % SLOTS) * SLOT_SIZE;
+        ByteBuffer slot = mapped.duplicate();
+        slot.position(pos);
+        slot.putLong(sequence);
+        slot.putInt(bytes.length);
+        slot.putInt(crc(sequence, bytes, bytes.length));
+        slot.put(bytes);
+    }
+
+    // Over the sequence, the length and the entry.
+    private static int crc(long sequence, byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(12).putLong(sequence).putInt(length).array());
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] entry(long sequence, String action, String masterWalletID, String chainID, String args,
+                                int requestSize, long queueMicros, long lockMicros, long execMicros, int errorCode) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"sequence\":").append(sequence)
+                .append(",\"time\":").append(System.currentTimeMillis())
+                .append(",\"action\":").append(JSONObject.quote(action));
+        if (masterWalletID != null) {
+            sb.append(",\"masterWalletID\":").append(JSONObject.quote(masterWalletID));
+        }
+        if (chainID != null) {
+            sb.append(",\"chainID\":").append(JSONObject.quote(chainID));
+        }
+        if (args != null) {
+            sb.append(",\"args\":").append(args);
+        }
+        if (requestSize >= 0) {
+            sb.append(",\"requestBytes\":").append(requestSize);
+        }
+        sb.append(",\"queueMicros\":").append(queueMicros)
+                .append(",\"lockMicros\":").append(lockMicros)
+                .append(",\"execMicros\":").append(execMicros);
+        if (errorCode != ActionMetrics.NO_ERROR) {
+            sb.append(",\"errorCode\":").append(errorCode);
+        }
+        return sb.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the JSON array of the last entries, most recent first.
+     */
+    String recent(int limit) {
+        MappedByteBuffer mapped = buffer;
+        if (mapped == null) {
+            return "[]";
+        }
+
+        ArrayList<Entry> entries = scan(mapped);
+        Collections.sort(entries, (a, b) -> Long.compare(b.sequence, a.sequence));
+
+        StringBuilder sb = new StringBuilder(512 * Math.min(limit, entries.size()) + 2);
+        sb.append('[');
+        for (int i = 0; i < entries.size() && i < limit; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(entries.get(i).json);
+        }
+        return sb.append(']').toString();
+    }
+
+    private static final class Entry {
+        final long sequence;
+        final String json;
+
+        Entry(long sequence, String json) {
+            this.sequence = sequence;
+            this.json = json;
+        }
+    }
+
+    private static ArrayList<Entry> scan(MappedByteBuffer mapped) {
+        ArrayList<Entry> entries = new ArrayList<>();
+        byte[] bytes = new byte[SLOT_SIZE];
+        for (int i = 0; i < SLOTS; i++) {
+            int pos = HEADER_SIZE + i * SLOT_SIZE;
+            long sequence = mapped.getLong(pos);
+            int length = mapped.getInt(pos + 8);
+            if (sequence <= 0 || length <= 0 || length > SLOT_SIZE - SLOT_OVERHEAD) {
+                continue;
+            }
+
+            ByteBuffer slot = mapped.duplicate();
+            slot.position(pos + SLOT_OVERHEAD);
+            slot.get(bytes, 0, length);
+            if (crc(sequence, bytes, length) == mapped.getInt(pos + 12)) {
+                entries.add(new Entry(sequence, new String(bytes, 0, length, StandardCharsets.UTF_8)));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.elastos.spvcore.MasterWallet;
+import org.elastos.spvcore.SubWallet;
+
+/**
+ * Sub wallet handles keyed by (masterWalletID, chainID).
+ *
+ * A master wallet's sub wallets are loaded all at once on first use. From then on the
+ * entry is kept in sync by createSubWallet/destroySubWallet, so lookups, including
+ * misses for chains the wallet does not have, never cross JNI nor allocate.
+ */
+class SubWalletRegistry {
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, SubWallet>> wallets = new ConcurrentHashMap<>();
+
+    // Bumped by every mutation, a load racing with one is dropped instead of installing a stale list.
+    private int modCount = 0;
+
+    /**
+     * @return the cached handle, or null if unknown or not loaded yet.
+     */
+    SubWallet get(String masterWalletID, String chainID) {
+        ConcurrentHashMap<String, SubWallet> subWallets = wallets.get(masterWalletID);
+        if (subWallets == null) {
+            return null;
+        }
+        return subWallets.get(chainID);
+    }
+
+    boolean isLoaded(String masterWalletID) {
+        return wallets.containsKey(masterWalletID);
+    }
+
+    /**
+     * Fill the entry of a master wallet from spvcore.
+     *
+     * @return the sub wallets just read, even if a concurrent mutation kept them from being cached.
+     */
+    ConcurrentHashMap<String, SubWallet> load(String masterWalletID, MasterWallet masterWallet) {
+        int marker;
+        synchronized (this) {
+            marker = modCount;
+        }
+
+        ArrayList<SubWallet> subWalletList = NativeCalls.call("MasterWallet.GetAllSubWallets",
+                () -> masterWallet.GetAllSubWallets());
+        ConcurrentHashMap<String, SubWallet> subWallets = new ConcurrentHashMap<>();
+        for (int i = 0; i < subWalletList.size(); i++) {
+            SubWallet subWallet = subWalletList.get(i);
+            subWallets.put(NativeCalls.call("SubWallet.GetChainID", () -> subWallet.GetChainID()), subWallet);
+        }
+
+        synchronized (this) {
+            if (marker == modCount) {
+                wallets.put(masterWalletID, subWallets);
+            }
+        }
+
+        return subWallets;
+    }
+
+    /**
+     * @return the chain IDs of a master wallet, loading its sub wallets if needed.
+     */
+    Set<String> chainIDs(String masterWalletID, MasterWallet masterWallet) {
+        ConcurrentHashMap<String, SubWallet> subWallets = wallets.get(masterWalletID);
+        if (subWallets == null) {
+            subWallets = load(masterWalletID, masterWallet);
+        }
+        return subWallets.keySet();
+    }
+
+    synchronized void put(String masterWalletID, String chainID, SubWallet subWallet) {
+        modCount++;
+        ConcurrentHashMap<String, SubWallet> subWallets = wallets.get(masterWalletID);
+        if (subWallets != null) {
+            subWallets.put(chainID, subWallet);
+        }
+    }
+
+    synchronized void remove(String masterWalletID, String chainID) {
+        modCount++;
+        ConcurrentHashMap<String, SubWallet> subWallets = wallets.get(masterWalletID);
+        if (subWallets != null) {
+            subWallets.remove(chainID);
+        }
+    }
+
+    synchronized void removeWallet(String masterWalletID) {
+        modCount++;
+        wallets.remove(masterWalletID);
+    }
+
+    synchronized void clear() {
+        modCount++;
+        wallets.clear();
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Spans of the traced actions, kept in a ring of the last CAPACITY spans.
+ *
+ * Callers opt in by passing a trace context, {"__trace": {requestID, parentSpan}}, as the last
+ * argument of an action; wallet.ts adds it to the calls made through withTrace(). The action then
+ * records spans for its time in the queue, the lock wait, itself, each spvcore call and the
+ * delivery of its result, all tagged with the request ID. Untraced actions record nothing.
+ */
+final class Trace {
+
+    static final String KEY = "__trace";
+
+    // Power of two.
+    private static final int CAPACITY = 8192;
+
+    /**
+     * Identifies a span and its request, the parent of the spans started while it runs.
+     */
+    static final class Span {
+        final String requestID;
+        // null for the root span of the caller, when it gave no parentSpan.
+        final String id;
+        final String parentID;
+
+        private Span(String requestID, String id, String parentID) {
+            this.requestID = requestID;
+            this.id = id;
+            this.parentID = parentID;
+        }
+
+        Span child() {
+            return new Span(requestID, Long.toHexString(ids.incrementAndGet()), id);
+        }
+    }
+
+    private static final class Event {
+        final Span span;
+        final String name;
+        final String category;
+        final long threadID;
+        final String threadName;
+        final long start;
+        final long duration;
+
+        Event(Span span, String name, String category, long start, long duration) {
+            Thread thread = Thread.currentThread();
+            this.span = span;
+            this.name = name;
+            this.category = category;
+            this.threadID = thread.getId();
+            this.threadName = thread.getName();
+            this.start = start;
+            this.duration = duration;
+        }
+    }
+
+    private static final AtomicLong ids = new AtomicLong(0);
+    private static final AtomicLong next = new AtomicLong(0);
+    private static final AtomicReferenceArray<Event> ring = new AtomicReferenceArray<>(CAPACITY);
+    private static final ThreadLocal<Span> current = new ThreadLocal<>();
+
+    private Trace() {
+    }
+
+    /**
+     * Take the trace context off the end of the action arguments.
+     *
+     * @return the span of the caller, null if the action is not traced.
+     */
+    static Span parse(JSONArray args) {
+        int last = args.length() - 1;
+        JSONObject wrapper = args.optJSONObject(last);
+        if (wrapper == null || !wrapper.has(KEY)) {
+            return null;
+        }
+        args.remove(last);
+
+        JSONObject context = wrapper.optJSONObject(KEY);
+        String requestID = context != null ? context.optString("requestID", null) : null;
+        if (requestID == null) {
+            return null;
+        }
+        return new Span(requestID, context.optString("parentSpan", null), null);
+    }
+
+    /**
+     * Make span the parent of the spans recorded by the current thread, until exit().
+     *
+     * @return the span current before, to pass to exit().
+     */
+    static Span enter(Span span) {
+        Span previous = current.get();
+        current.set(span);
+        return previous;
+    }
+
+    static void exit(Span previous) {
+        current.set(previous);
+    }
+
+    static Span current() {
+        return current.get();
+    }
+
+    /**
+     * Record a span, start and end as returned by System.nanoTime().
+     */
+    static void record(Span span, String name, String category, long start, long end) {
+        Event event = new Event(span, name, category, start / 1000, (end - start) / 1000);
+        ring.set((int) (next.getAndIncrement() & (CAPACITY - 1)), event);
+    }
+
+    /**
+     * Record a child span of the current one, if the thread runs a traced action.
+     */
+    static void recordChild(String name, String category, long start, long end) {
+        Span span = current.get();
+        if (span != null) {
+            record(span.child(), name, category, start, end);
+        }
+    }
+
+    /**
+     * @return the spans in the Chrome trace event format, {traceEvents, displayTimeUnit, otherData},
+     *         timestamps in microseconds of the monotonic clock.
+     */
+    static String toJSON(boolean reset) throws JSONException {
+        ArrayList<Event> events = new ArrayList<>(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            Event event = reset ? ring.getAndSet(i, null) : ring.get(i);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        Collections.sort(events, (a, b) -> Long.compare(a.start, b.start));
+
+        StringBuilder sb = new StringBuilder(160 * events.size() + 128);
+        sb.append("{\"traceEvents\":[");
+        HashMap<Long, String> threads = new HashMap<>();
+        for (Event event : events) {
+            sb.append("{\"name\":").append(JSONObject.quote(event.name))
+                    .append(",\"cat\":\"").append(event.category)
+                    .append("\",\"ph\":\"X\",\"ts\":").append(event.start)
+                    .append(",\"dur\":").append(event.duration)
+                    .append(",\"pid\":1,\"tid\":").append(event.threadID)
+                    .append(",\"args\":{\"requestID\":").append(JSONObject.quote(event.span.requestID))
+                    .append(",\"span\":").append(JSONObject.quote(event.span.id));
+            if (event.span.parentID != null) {
+                sb.append(",\"parentSpan\":").append(JSONObject.quote(event.span.parentID));
+            }
+            sb.append("}},");
+            threads.put(event.threadID, event.threadName);
+        }
+        for (HashMap.Entry<Long, String> thread : threads.entrySet()) {
+            sb.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(thread.getKey())
+                    .append(",\"args\":{\"name\":").append(JSONObject.quote(thread.getValue())).append("}},");
+        }
+        if (sb.charAt(sb.length() - 1) == ',') {
+            sb.setLength(sb.length() - 1);
+        }
+
+        long recorded = next.get();
+        if (reset) {
+            next.set(0);
+        }
+        // Adding the offset to a timestamp gives the wall clock time, to match the log lines.
+        long offset = System.currentTimeMillis() * 1000 - System.nanoTime() / 1000;
+        sb.append("],\"displayTimeUnit\":\"ms\",\"otherData\":{\"wallClockOffsetMicros\":").append(offset)
+                .append(",\"dropped\":").append(Math.max(0, recorded - CAPACITY)).append("}}");
+        return sb.toString();
+    }
+}
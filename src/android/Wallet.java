@@ -24,12 +24,14 @@ package org.elastos.essentials.plugins.wallet;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.concurrent.Semaphore;
+import java.util.HashMap;
+import java.util.List;
 
 import org.apache.cordova.CallbackContext;
 import org.apache.cordova.CordovaInterface;
 import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
 import org.elastos.spvcore.BTCSubWallet;
 import org.elastos.spvcore.ElastosBaseSubWallet;
 import org.elastos.spvcore.EthSidechainSubWallet;
@@ -44,6 +46,9 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import android.content.ComponentCallbacks2;
+import android.content.pm.ApplicationInfo;
+import android.content.res.Configuration;
 import android.util.Log;
 
 /**
@@ -53,9 +58,18 @@ public class Wallet extends CordovaPlugin {
 
     private static final String TAG = "Wallet";
 
-    private static Semaphore walletSemaphore;
+    private static final WalletLockManager lockManager = new WalletLockManager();
+    private static final MasterWalletRegistry masterWalletRegistry = new MasterWalletRegistry();
+    private static final SubWalletRegistry subWalletRegistry = new SubWalletRegistry();
+    private static final AddressIndex addressIndex = new AddressIndex(true);
+    private static final DerivedKeyCache derivedKeyCache = new DerivedKeyCache(addressIndex);
+    private static final AddressValidator addressValidator = new AddressValidator();
+    private static final NonceAllocator nonceAllocator = new NonceAllocator();
+    private static final SlowActionJournal slowActions = new SlowActionJournal();
+    private static ComponentCallbacks2 memoryCallbacks = null;
 
     private static int walletRefCount = 0;
+    private static ActionExecutor executor = null;
     // only wallet dapp can use this plugin
     private static MasterWalletManager mMasterWalletManager = null;
     private String keySuccess = "success";
@@ -70,6 +84,8 @@ public class Wallet extends CordovaPlugin {
     private static String s_netType = "MainNet";
     private static String s_netConfig = "";
     private static String s_logLevel = "warning";
+    // Off by default so that callers parsing the JSON strings returned so far keep working.
+    private static volatile boolean s_structuredResults = false;
 
     private int errCodeParseJsonInAction = 10000;
     private int errCodeInvalidArg = 10001;
@@ -84,9 +100,14 @@ public class Wallet extends CordovaPlugin {
     private int errCodeInvalidDIDManager = 10011;
     private int errCodeInvalidDID = 10012;
     private int errCodeActionNotFound = 10013;
+    private int errCodeActionRejected = 10014;
+    private int errCodeInsufficientFunds = 10015;
+    private int errCodeNonceUnavailable = 10016;
 
     private int errCodeWalletException = 20000;
 
+    private final HashMap<String, ActionSpec> actions = new HashMap<>();
+
     /**
      * Called when the system is about to start resuming a previous activity.
      *
@@ -137,6 +158,16 @@ public class Wallet extends CordovaPlugin {
             }
         }
 
+        if (walletRefCount == 0 && executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+
+        if (walletRefCount == 0 && memoryCallbacks != null) {
+            cordova.getActivity().getApplicationContext().unregisterComponentCallbacks(memoryCallbacks);
+            memoryCallbacks = null;
+        }
+
         super.onDestroy();
     }
 
@@ -144,21 +175,64 @@ public class Wallet extends CordovaPlugin {
     public void initialize(CordovaInterface cordova, CordovaWebView webView) {
         super.initialize(cordova, webView);
         walletRefCount++;
+
+        if (executor == null || executor.isShutdown()) {
+            executor = new ActionExecutor();
+        }
+
+        if (memoryCallbacks == null) {
+            memoryCallbacks = new MemoryCallbacks();
+            cordova.getActivity().getApplicationContext().registerComponentCallbacks(memoryCallbacks);
+        }
+
+        addressValidator.setShadowChecks(
+                (cordova.getActivity().getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
+
+        registerActions();
+    }
+
+    /**
+     * Drop the derived address cache when the system runs low on memory, it is rebuilt on demand.
+     */
+    private static class MemoryCallbacks implements ComponentCallbacks2 {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_BACKGROUND || (level >= TRIM_MEMORY_RUNNING_LOW && level < TRIM_MEMORY_UI_HIDDEN)) {
+                Log.i(TAG, "Trim memory level " + level + ", clear derived key cache");
+                derivedKeyCache.clear();
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            derivedKeyCache.clear();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
     }
 
     private void destroyMasterWalletManager() {
         Log.i(TAG, "destroyMasterWalletManager");
         if (mMasterWalletManager != null) {
+            WalletLockManager.Lease lease = lockManager.acquire(WalletLockManager.Mode.MANAGER, null, null);
             try {
-                walletSemaphore.acquire();
-
-                mMasterWalletManager.Dispose();
-                mMasterWalletManager = null;
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+                if (mMasterWalletManager != null) {
+                    subWalletRegistry.clear();
+                    derivedKeyCache.clear();
+                    derivedKeyCache.setStore(null);
+                    addressIndex.clear();
+                    addressValidator.clear();
+                    nonceAllocator.close();
+                    slowActions.close();
+                    masterWalletRegistry.clear();
+                    NativeCalls.run("MasterWalletManager.Dispose", () -> mMasterWalletManager.Dispose());
+                    mMasterWalletManager = null;
+                }
+            } finally {
+                lease.release();
             }
-
-            walletSemaphore.release();
         }
     }
 
@@ -170,17 +244,6 @@ public class Wallet extends CordovaPlugin {
         return masterWalletID + ":" + chainID;
     }
 
-    private boolean parametersCheck(JSONArray args) throws JSONException {
-        for (int i = 0; i < args.length(); i++) {
-            if (args.isNull(i)) {
-                Log.e(TAG, "arg[" + i + "] = " + args.get(i) + " should not be null");
-                return false;
-            }
-        }
-
-        return true;
-    }
-
     private void exceptionProcess(Exception e, CallbackContext cc, String msg) {
         e.printStackTrace();
         cc.error(e.toString());
@@ -189,6 +252,12 @@ public class Wallet extends CordovaPlugin {
     private void exceptionProcess(WalletException e, CallbackContext cc, String msg) throws JSONException {
         e.printStackTrace();
 
+        JSONObject errJson = walletErrorJson(e, msg);
+        Log.e(TAG, errJson.toString());
+        cc.error(errJson);
+    }
+
+    private JSONObject walletErrorJson(WalletException e, String msg) throws JSONException {
         try {
             JSONObject exceptionJson = new JSONObject(e.GetErrorInfo());
             long exceptionCode = exceptionJson.getLong("Code");
@@ -200,19 +269,14 @@ public class Wallet extends CordovaPlugin {
             if (exceptionJson.has("Data")) {
                 errJson.put("Data", exceptionJson.getInt("Data"));
             }
-
-            Log.e(TAG, errJson.toString());
-            cc.error(errJson);
+            return errJson;
         } catch (JSONException je) {
             JSONObject errJson = new JSONObject();
 
             errJson.put(keyCode, errCodeWalletException);
             errJson.put(keyMessage, msg);
             errJson.put(keyException, e.GetErrorInfo());
-
-            Log.e(TAG, errJson.toString());
-
-            cc.error(errJson);
+            return errJson;
         }
     }
 
@@ -238,42 +302,47 @@ public class Wallet extends CordovaPlugin {
             return null;
         }
 
-        return mMasterWalletManager.GetMasterWallet(masterWalletID);
-    }
-
-    private SubWallet getSubWallet(String masterWalletID, String chainID) {
-        MasterWallet masterWallet = getIMasterWallet(masterWalletID);
+        MasterWallet masterWallet = masterWalletRegistry.get(masterWalletID);
         if (masterWallet == null) {
-            Log.e(TAG, formatWalletName(masterWalletID) + " not found");
-            return null;
+            int marker = masterWalletRegistry.marker();
+            masterWallet = NativeCalls.call("MasterWalletManager.GetMasterWallet",
+                    () -> mMasterWalletManager.GetMasterWallet(masterWalletID));
+            masterWalletRegistry.put(masterWalletID, masterWallet, marker);
         }
-
-        ArrayList<SubWallet> subWalletList = masterWallet.GetAllSubWallets();
-        for (int i = 0; i < subWalletList.size(); i++) {
-            if (chainID.equals(subWalletList.get(i).GetChainID())) {
-                return subWalletList.get(i);
-            }
-        }
-
-        Log.e(TAG, formatWalletName(masterWalletID, chainID) + " not found");
-        return null;
+        return masterWallet;
     }
 
-    private EthSidechainSubWallet getEthSidechainSubWallet(String masterWalletID, String chainID) {
-        SubWallet subWallet = getSubWallet(masterWalletID, chainID);
+    /**
+     * Drop what the caches hold for a wallet once destroyed under the ID of one just created or
+     * imported. Only called once the create succeeded: a create failing because the ID is taken
+     * must keep the persisted items of the existing wallet.
+     */
+    private void forgetStaleEntries(String masterWalletID) {
+        masterWalletRegistry.remove(masterWalletID);
+        subWalletRegistry.removeWallet(masterWalletID);
+        derivedKeyCache.removeWallet(masterWalletID);
+    }
 
-        if ((subWallet instanceof EthSidechainSubWallet)) {
-            return (EthSidechainSubWallet) subWallet;
+    private SubWallet getSubWallet(String masterWalletID, String chainID) {
+        SubWallet subWallet = subWalletRegistry.get(masterWalletID, chainID);
+        if (subWallet != null) {
+            return subWallet;
         }
-        return null;
-    }
 
-    private BTCSubWallet getBTCSubWallet(String masterWalletID) {
-        SubWallet subWallet = getSubWallet(masterWalletID, "BTC");
+        if (!subWalletRegistry.isLoaded(masterWalletID)) {
+            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
+            if (masterWallet == null) {
+                Log.e(TAG, formatWalletName(masterWalletID) + " not found");
+                return null;
+            }
 
-        if ((subWallet instanceof BTCSubWallet)) {
-            return (BTCSubWallet) subWallet;
+            subWallet = subWalletRegistry.load(masterWalletID, masterWallet).get(chainID);
+            if (subWallet != null) {
+                return subWallet;
+            }
         }
+
+        Log.e(TAG, formatWalletName(masterWalletID, chainID) + " not found");
         return null;
     }
 
@@ -285,386 +354,659 @@ public class Wallet extends CordovaPlugin {
         return strArray;
     }
 
+    @Override
+    public boolean execute(String action, String rawArgs, CallbackContext cc) throws JSONException {
+        return submit(action, new JSONArray(rawArgs), rawArgs.length(), cc);
+    }
+
     @Override
     public boolean execute(String action, JSONArray args, CallbackContext cc) {
-        Log.i(TAG, "action => '" + action + "'");
+        return submit(action, args, -1, cc);
+    }
+
+    private boolean submit(String action, JSONArray args, int requestSize, CallbackContext cc) {
+        Trace.Span trace = Trace.parse(args);
+        Log.i(TAG, "action => '" + action + "'" + (trace != null ? " request " + trace.requestID : ""));
+
+        // The result is delivered from the worker thread once the action completes.
+        PluginResult pending = new PluginResult(PluginResult.Status.NO_RESULT);
+        pending.setKeepCallback(true);
+        cc.sendPluginResult(pending);
+
+        long queued = System.nanoTime();
+        if (!executor.submit(() -> dispatch(action, args, requestSize, trace, queued, cc))) {
+            errorProcess(cc, errCodeActionRejected, "Action '" + action + "' rejected, too many pending wallet actions");
+        }
+
+        return true;
+    }
+
+    private void dispatch(String action, JSONArray args, CallbackContext cc) {
+        dispatch(action, args, -1, Trace.current(), System.nanoTime(), cc);
+    }
+
+    /**
+     * @param requestSize length of the JSON arguments for the metrics, -1 if unknown.
+     * @param trace span of the caller, null if the action is not traced.
+     * @param queued System.nanoTime() when the action was queued.
+     */
+    private void dispatch(String action, JSONArray args, int requestSize, Trace.Span trace, long queued,
+                          CallbackContext callbackContext) {
+        ActionSpec spec = actions.get(action);
+        if (spec == null) {
+            errorProcess(callbackContext, errCodeActionNotFound, "Action '" + action + "' not found, please check!");
+            return;
+        }
+
+        long start = System.nanoTime();
+        long blocked = lockManager.getBlockedNanos();
+        Trace.Span span = trace != null ? trace.child() : null;
+        if (span != null) {
+            Trace.record(span.child(), "queue", "queue", queued, start);
+        }
+        ActionMetrics.Context cc = new ActionMetrics.Context(callbackContext, webView);
+        ActionMetrics previousAction = NativeCalls.enter(spec.metrics);
+        Trace.Span previousSpan = Trace.enter(span);
+        WalletLockManager.Lease lease = null;
+        ActionArgs actionArgs = null;
         try {
-            if (false == parametersCheck(args)) {
-                errorProcess(cc, errCodeInvalidArg, "Parameters contain 'null' value in action '" + action + "'");
-                return false;
+            actionArgs = spec.parse(args);
+            long lockStart = System.nanoTime();
+            lease = lockManager.acquire(spec.getLockMode(), actionArgs.masterWalletID, actionArgs.chainID);
+            if (span != null) {
+                Trace.record(span.child(), "lock " + spec.getLockMode(), "lock", lockStart, System.nanoTime());
             }
-            switch (action) {
-                // Master wallet manager
-                case "init":
-                    this.init(args, cc);
-                    break;
-                case "destroy":
-                    this.destroy(args, cc);
-                    break;
-                case "getVersion":
-                    this.getVersion(args, cc);
-                    break;
-                case "setLogLevel":
-                    this.setLogLevel(args, cc);
-                    break;
-                case "setNetwork":
-                    this.setNetwork(args, cc);
-                    break;
-                case "generateMnemonic":
-                    this.generateMnemonic(args, cc);
-                    break;
-                case "createMasterWallet":
-                    this.createMasterWallet(args, cc);
-                    break;
-                case "createMasterWalletWithPrivKey":
-                    this.createMasterWalletWithPrivKey(args, cc);
-                    break;
-                case "createMultiSignMasterWallet":
-                    this.createMultiSignMasterWallet(args, cc);
-                    break;
-                case "createMultiSignMasterWalletWithPrivKey":
-                    this.createMultiSignMasterWalletWithPrivKey(args, cc);
-                    break;
-                case "createMultiSignMasterWalletWithMnemonic":
-                    this.createMultiSignMasterWalletWithMnemonic(args, cc);
-                    break;
-                case "getAllMasterWallets":
-                    this.getAllMasterWallets(args, cc);
-                    break;
-                case "getMasterWallet":
-                    this.getMasterWallet(args, cc);
-                    break;
-                case "importWalletWithKeystore":
-                    this.importWalletWithKeystore(args, cc);
-                    break;
-                case "importWalletWithMnemonic":
-                    this.importWalletWithMnemonic(args, cc);
-                    break;
-                case "importWalletWithSeed":
-                    this.importWalletWithSeed(args, cc);
-                    break;
-                case "exportWalletWithKeystore":
-                    this.exportWalletWithKeystore(args, cc);
-                    break;
-                case "exportWalletWithMnemonic":
-                    this.exportWalletWithMnemonic(args, cc);
-                    break;
-                case "exportWalletWithSeed":
-                    this.exportWalletWithSeed(args, cc);
-                    break;
-                case "exportWalletWithPrivateKey":
-                    this.exportWalletWithPrivateKey(args, cc);
-                    break;
-
-                // Master wallet
-                case "getMasterWalletBasicInfo":
-                    this.getMasterWalletBasicInfo(args, cc);
-                    break;
-                case "getAllSubWallets":
-                    this.getAllSubWallets(args, cc);
-                    break;
-                case "createSubWallet":
-                    this.createSubWallet(args, cc);
-                    break;
-                case "destroyWallet":
-                    this.destroyWallet(args, cc);
-                    break;
-                case "destroySubWallet":
-                    this.destroySubWallet(args, cc);
-                    break;
-                case "verifyPassPhrase":
-                    this.verifyPassPhrase(args, cc);
-                    break;
-                case "verifyPayPassword":
-                    this.verifyPayPassword(args, cc);
-                    break;
-                case "getPubKeyInfo":
-                    this.getPubKeyInfo(args, cc);
-                    break;
-                case "isAddressValid":
-                    this.isAddressValid(args, cc);
-                    break;
-                case "isSubWalletAddressValid":
-                    this.isSubWalletAddressValid(args, cc);
-                    break;
-                case "getSupportedChains":
-                    this.getSupportedChains(args, cc);
-                    break;
-                case "changePassword":
-                    this.changePassword(args, cc);
-                    break;
-                case "resetPassword":
-                    this.resetPassword(args, cc);
-                    break;
-
-                // SubWallet
-                case "getAddresses":
-                    this.getAddresses(args, cc);
-                    break;
-                case "getPublicKeys":
-                    this.getPublicKeys(args, cc);
-                    break;
-                case "createTransaction":
-                    this.createTransaction(args, cc);
-                    break;
-                case "signTransaction":
-                    this.signTransaction(args, cc);
-                    break;
-                case "signDigest":
-                    this.signDigest(args, cc);
-                    break;
-                case "verifyDigest":
-                    this.verifyDigest(args, cc);
-                    break;
-                case "getTransactionSignedInfo":
-                    this.getTransactionSignedInfo(args, cc);
-                    break;
-                case "convertToRawTransaction":
-                    this.convertToRawTransaction(args, cc);
-                    break;
-
-                // ID chain subwallet
-                case "createIdTransaction":
-                    this.createIdTransaction(args, cc);
-                    break;
-                case "getDID":
-                    this.getDID(args, cc);
-                    break;
-                case "getCID":
-                    this.getCID(args, cc);
-                    break;
-                case "didSign":
-                    this.didSign(args, cc);
-                    break;
-                case "verifySignature":
-                    this.verifySignature(args, cc);
-                    break;
-                case "getPublicKeyDID":
-                    this.getPublicKeyDID(args, cc);
-                    break;
-                case "getPublicKeyCID":
-                    this.getPublicKeyCID(args, cc);
-                    break;
-
-                //ETHSideChainSubWallet
-                case "createTransfer":
-                    this.createTransfer(args, cc);
-                    break;
-                case "createTransferGeneric":
-                    this.createTransferGeneric(args, cc);
-                    break;
-                case "exportETHSCPrivateKey":
-                    this.exportETHSCPrivateKey(args, cc);
-                    break;
-
-                // Main chain subwallet
-                case "createDepositTransaction":
-                    this.createDepositTransaction(args, cc);
-                    break;
-                // -- vote
-                case "createVoteTransaction":
-                    this.createVoteTransaction(args, cc);
-                    break;
-
-                // -- producer
-                case "generateProducerPayload":
-                    this.generateProducerPayload(args, cc);
-                    break;
-                case "generateCancelProducerPayload":
-                    this.generateCancelProducerPayload(args, cc);
-                    break;
-                case "createRegisterProducerTransaction":
-                    this.createRegisterProducerTransaction(args, cc);
-                    break;
-                case "createUpdateProducerTransaction":
-                    this.createUpdateProducerTransaction(args, cc);
-                    break;
-                case "createCancelProducerTransaction":
-                    this.createCancelProducerTransaction(args, cc);
-                    break;
-                case "createRetrieveDepositTransaction":
-                    this.createRetrieveDepositTransaction(args, cc);
-                    break;
-                case "getOwnerPublicKey":
-                    this.getOwnerPublicKey(args, cc);
-                    break;
-                case "getOwnerAddress":
-                    this.getOwnerAddress(args, cc);
-                    break;
-                case "getOwnerDepositAddress":
-                    this.getOwnerDepositAddress(args, cc);
-                    break;
-                // -- CRC
-                case "getCRDepositAddress":
-                    this.getCRDepositAddress(args, cc);
-                    break;
-                case "generateCRInfoPayload":
-                    this.generateCRInfoPayload(args, cc);
-                    break;
-                case "generateUnregisterCRPayload":
-                    this.generateUnregisterCRPayload(args, cc);
-                    break;
-                case "createRegisterCRTransaction":
-                    this.createRegisterCRTransaction(args, cc);
-                    break;
-                case "createUpdateCRTransaction":
-                    this.createUpdateCRTransaction(args, cc);
-                    break;
-                case "createUnregisterCRTransaction":
-                    this.createUnregisterCRTransaction(args, cc);
-                    break;
-                case "createRetrieveCRDepositTransaction":
-                    this.createRetrieveCRDepositTransaction(args, cc);
-                    break;
-                case "CRCouncilMemberClaimNodeDigest":
-                    this.CRCouncilMemberClaimNodeDigest(args, cc);
-                    break;
-                case "createCRCouncilMemberClaimNodeTransaction":
-                    this.createCRCouncilMemberClaimNodeTransaction(args, cc);
-                    break;
-                // -- Proposal
-                case "proposalOwnerDigest":
-                    this.proposalOwnerDigest(args, cc);
-                    break;
-                case "proposalCRCouncilMemberDigest":
-                    this.proposalCRCouncilMemberDigest(args, cc);
-                    break;
-                case "calculateProposalHash":
-                    this.calculateProposalHash(args, cc);
-                    break;
-                case "createProposalTransaction":
-                    this.createProposalTransaction(args, cc);
-                    break;
-                case "proposalReviewDigest":
-                    this.proposalReviewDigest(args, cc);
-                    break;
-                case "createProposalReviewTransaction":
-                    this.createProposalReviewTransaction(args, cc);
-                    break;
-                // -- Proposal Tracking
-                case "proposalTrackingOwnerDigest":
-                    this.proposalTrackingOwnerDigest(args, cc);
-                    break;
-                case "proposalTrackingNewOwnerDigest":
-                    this.proposalTrackingNewOwnerDigest(args, cc);
-                    break;
-                case "proposalTrackingSecretaryDigest":
-                    this.proposalTrackingSecretaryDigest(args, cc);
-                    break;
-                case "createProposalTrackingTransaction":
-                    this.createProposalTrackingTransaction(args, cc);
-                    break;
-
-                // -- Proposal Secretary General Election
-                case "proposalSecretaryGeneralElectionDigest":
-                    this.proposalSecretaryGeneralElectionDigest(args, cc);
-                    break;
-                case "proposalSecretaryGeneralElectionCRCouncilMemberDigest":
-                    this.proposalSecretaryGeneralElectionCRCouncilMemberDigest(args, cc);
-                    break;
-                case "createSecretaryGeneralElectionTransaction":
-                    this.createSecretaryGeneralElectionTransaction(args, cc);
-                    break;
-
-                // -- Proposal Change Owner
-                case "proposalChangeOwnerDigest":
-                    this.proposalChangeOwnerDigest(args, cc);
-                    break;
-                case "proposalChangeOwnerCRCouncilMemberDigest":
-                    this.proposalChangeOwnerCRCouncilMemberDigest(args, cc);
-                    break;
-                case "createProposalChangeOwnerTransaction":
-                    this.createProposalChangeOwnerTransaction(args, cc);
-                    break;
-
-                // -- Proposal Terminate Proposal
-                case "terminateProposalOwnerDigest":
-                    this.terminateProposalOwnerDigest(args, cc);
-                    break;
-                case "terminateProposalCRCouncilMemberDigest":
-                    this.terminateProposalCRCouncilMemberDigest(args, cc);
-                    break;
-                case "createTerminateProposalTransaction":
-                    this.createTerminateProposalTransaction(args, cc);
-                    break;
-
-                // -- Reserve Custom ID
-                case "reserveCustomIDOwnerDigest":
-                    this.reserveCustomIDOwnerDigest(args, cc);
-                    break;
-                case "reserveCustomIDCRCouncilMemberDigest":
-                    this.reserveCustomIDCRCouncilMemberDigest(args, cc);
-                    break;
-                case "createReserveCustomIDTransaction":
-                    this.createReserveCustomIDTransaction(args, cc);
-                    break;
-
-                // -- Receive Custom ID
-                case "receiveCustomIDOwnerDigest":
-                    this.receiveCustomIDOwnerDigest(args, cc);
-                    break;
-                case "receiveCustomIDCRCouncilMemberDigest":
-                    this.receiveCustomIDCRCouncilMemberDigest(args, cc);
-                    break;
-                case "createReceiveCustomIDTransaction":
-                    this.createReceiveCustomIDTransaction(args, cc);
-                    break;
-
-                // -- Change Custom ID Fee
-                case "changeCustomIDFeeOwnerDigest":
-                    this.changeCustomIDFeeOwnerDigest(args, cc);
-                    break;
-                case "changeCustomIDFeeCRCouncilMemberDigest":
-                    this.changeCustomIDFeeCRCouncilMemberDigest(args, cc);
-                    break;
-                case "createChangeCustomIDFeeTransaction":
-                    this.createChangeCustomIDFeeTransaction(args, cc);
-                    break;
-
-                // -- Proposal Withdraw
-                case "proposalWithdrawDigest":
-                    this.proposalWithdrawDigest(args, cc);
-                    break;
-                case "createProposalWithdrawTransaction":
-                    this.createProposalWithdrawTransaction(args, cc);
-                    break;
-
-                // -- Proposal Register side-chain
-                case "registerSidechainOwnerDigest":
-                    this.registerSidechainOwnerDigest(args, cc);
-                    break;
-                case "registerSidechainCRCouncilMemberDigest":
-                    this.registerSidechainCRCouncilMemberDigest(args, cc);
-                    break;
-                case "createRegisterSidechainTransaction":
-                    this.createRegisterSidechainTransaction(args, cc);
-                    break;
-
-                // Side chain subwallet
-                case "createWithdrawTransaction":
-                    this.createWithdrawTransaction(args, cc);
-                    break;
-
-                case "getLegacyAddresses":
-                    this.getLegacyAddresses(args, cc);
-                    break;
-                case "createBTCTransaction":
-                    this.createBTCTransaction(args, cc);
-                    break;
-                default:
-                    errorProcess(cc, errCodeActionNotFound, "Action '" + action + "' not found, please check!");
-                    return false;
+            if (resolveTarget(spec.getTarget(), actionArgs, cc)) {
+                spec.handler.handle(actionArgs, resultContext(spec, cc));
             }
+        } catch (ActionArgs.InvalidArgsException e) {
+            errorProcess(cc, errCodeInvalidArg, e.getMessage());
         } catch (JSONException e) {
             e.printStackTrace();
             errorProcess(cc, errCodeParseJsonInAction, "Execute action '" + action + "' exception: " + e.toString());
+        } catch (Exception e) {
+            exceptionProcess(e, cc, "Execute action '" + action + "'");
+        } finally {
+            if (lease != null) {
+                lease.release();
+            }
+            Trace.exit(previousSpan);
+            NativeCalls.exit(previousAction);
+            long end = System.nanoTime();
+            if (span != null) {
+                Trace.record(span, action, "action", start, end);
+            }
+            long lockNanos = lockManager.getBlockedNanos() - blocked;
+            long queueMicros = (start - queued) / 1000;
+            long lockMicros = lockNanos / 1000;
+            long execMicros = (end - start - lockNanos) / 1000;
+            spec.metrics.record(queueMicros, lockMicros, execMicros, requestSize, cc.getResponseSize(),
+                    cc.getErrorCode());
+            if (slowActions.isSlow(queueMicros + lockMicros + execMicros)) {
+                slowActions.record(action, actionArgs != null ? actionArgs.masterWalletID : null,
+                        actionArgs != null ? actionArgs.chainID : null, spec.describeArgs(args), requestSize,
+                        queueMicros, lockMicros, execMicros, cc.getErrorCode());
+            }
+        }
+    }
+
+    /**
+     * Look up the wallet the action works on, so that handlers get a handle of the expected type.
+     *
+     * @return false if the wallet was not found, the error was already reported.
+     */
+    private boolean resolveTarget(ActionSpec.Target target, ActionArgs args, CallbackContext cc) throws JSONException {
+        if (target == ActionSpec.Target.NONE) {
+            return true;
+        }
+
+        String masterWalletID = args.masterWalletID;
+        String chainID = args.chainID;
+        try {
+            if (!target.isSubWallet()) {
+                MasterWallet masterWallet = getIMasterWallet(masterWalletID);
+                if (masterWallet == null) {
+                    errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
+                    return false;
+                }
+                args.setMasterWallet(masterWallet);
+                return true;
+            }
+
+            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
+            if (subWallet == null) {
+                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
+                return false;
+            }
+
+            if (!target.type.isInstance(subWallet)) {
+                errorProcess(cc, errCodeSubWalletInstance,
+                        formatWalletName(masterWalletID, chainID) + " is not instance of " + target.type.getSimpleName());
+                return false;
+            }
+            args.setSubWallet(subWallet);
+            return true;
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, "Get " + formatWalletName(masterWalletID, chainID));
             return false;
         }
+    }
 
-        return true;
+    private CallbackContext resultContext(ActionSpec spec, CallbackContext cc) {
+        switch (spec.getResult()) {
+            case JSON:
+                return new JsonResultContext(cc, webView);
+            case JSON_STRING:
+                return s_structuredResults ? new JsonResultContext(cc, webView) : cc;
+            default:
+                return cc;
+        }
     }
 
-    public void init(JSONArray args, CallbackContext cc) throws JSONException {
+    private ActionSpec action(String name, ActionSpec.Handler handler) {
+        ActionSpec spec = new ActionSpec(name, handler);
+        actions.put(name, spec);
+        return spec;
+    }
+
+    /**
+     * Declare every action with its argument schema, the wallet it works on and the lock it takes.
+     * Actions on a master wallet lock it shared, actions on a sub wallet lock that sub wallet shared,
+     * unless a lock is given.
+     */
+    private void registerActions() {
+        // Master wallet manager
+        action("init", this::init)
+                .args("dir:s")
+                .lock(WalletLockManager.Mode.MANAGER);
+        action("destroy", this::destroy)
+                .lock(WalletLockManager.Mode.MANAGER);
+        action("getVersion", this::getVersion);
+        action("setLogLevel", this::setLogLevel)
+                .args("loglevel:s");
+        action("setNetwork", this::setNetwork)
+                .args("networkType:s networkConfig:s")
+                .lock(WalletLockManager.Mode.MANAGER);
+        action("generateMnemonic", this::generateMnemonic)
+                .args("language:s");
+        action("createMasterWallet", this::createMasterWallet)
+                .args("masterWalletID:s mnemonic:s! phrasePassword:s! payPassword:s! singleAddress:b")
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createMasterWalletWithPrivKey", this::createMasterWalletWithPrivKey)
+                .args("masterWalletID:s singlePrivateKey:s! password:s!")
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createMultiSignMasterWallet", this::createMultiSignMasterWallet)
+                .args("masterWalletID:s publicKeys:s m:i timestamp:l")
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createMultiSignMasterWalletWithPrivKey", this::createMultiSignMasterWalletWithPrivKey)
+                .args("masterWalletID:s privKey:s! payPassword:s! publicKeys:s m:i timestamp:l")
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createMultiSignMasterWalletWithMnemonic", this::createMultiSignMasterWalletWithMnemonic)
+                .args("masterWalletID:s mnemonic:s! phrasePassword:s! payPassword:s! publicKeys:s m:i timestamp:l")
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("getAllMasterWallets", this::getAllMasterWallets);
+        action("getAllMasterWalletsInfo", this::getAllMasterWalletsInfo)
+                .args("offset:i=0 limit:i=0");
+        action("getMasterWallet", this::getMasterWallet)
+                .args("masterWalletID:s")
+                .target(ActionSpec.Target.MASTER_WALLET)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("getWalletCacheStats", this::getWalletCacheStats)
+                .lock(WalletLockManager.Mode.NONE);
+        action("getMetrics", this::getMetrics)
+                .args("reset:b=false")
+                .lock(WalletLockManager.Mode.NONE);
+        action("dumpTrace", this::dumpTrace)
+                .args("reset:b=false")
+                .lock(WalletLockManager.Mode.NONE);
+        action("getSlowActions", this::getSlowActions)
+                .args("limit:i=50")
+                .lock(WalletLockManager.Mode.NONE);
+        action("setSlowActionThreshold", this::setSlowActionThreshold)
+                .args("thresholdMillis:l")
+                .lock(WalletLockManager.Mode.NONE);
+        action("setStructuredResults", this::setStructuredResults)
+                .args("enabled:b")
+                .lock(WalletLockManager.Mode.NONE);
+        // Every call of the batch takes its own lock.
+        action("batch", this::batch)
+                .args("calls:a")
+                .lock(WalletLockManager.Mode.NONE);
+        action("lookupAddress", this::lookupAddress)
+                .args("address:s");
+        action("lookupAddresses", this::lookupAddresses)
+                .args("addresses:a");
+        action("importWalletWithKeystore", this::importWalletWithKeystore)
+                .args("masterWalletID:s keystoreContent:s! backupPassword:s! payPassword:s!")
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE)
+                .result(ActionSpec.Result.JSON);
+        action("importWalletWithMnemonic", this::importWalletWithMnemonic)
+                .args("masterWalletID:s mnemonic:s! phrasePassword:s! payPassword:s! singleAddress:b")
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE)
+                .result(ActionSpec.Result.JSON);
+        action("importWalletWithSeed", this::importWalletWithSeed)
+                .args("masterWalletID:s seed:s! payPassword:s! singleAddress:b mnemonic:s! phrasePassword:s!")
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE)
+                .result(ActionSpec.Result.JSON);
+        action("exportWalletWithKeystore", this::exportWalletWithKeystore)
+                .args("masterWalletID:s backupPassword:s! payPassword:s!")
+                .target(ActionSpec.Target.MASTER_WALLET);
+        action("exportWalletWithMnemonic", this::exportWalletWithMnemonic)
+                .args("masterWalletID:s payPassword:s!")
+                .target(ActionSpec.Target.MASTER_WALLET);
+        action("exportWalletWithSeed", this::exportWalletWithSeed)
+                .args("masterWalletID:s payPassword:s!")
+                .target(ActionSpec.Target.MASTER_WALLET);
+        action("exportWalletWithPrivateKey", this::exportWalletWithPrivateKey)
+                .args("masterWalletID:s payPassword:s!")
+                .target(ActionSpec.Target.MASTER_WALLET);
+
+        // Master wallet
+        action("getMasterWalletBasicInfo", this::getMasterWalletBasicInfo)
+                .args("masterWalletID:s")
+                .target(ActionSpec.Target.MASTER_WALLET)
+                .result(ActionSpec.Result.JSON);
+        action("getAllSubWallets", this::getAllSubWallets)
+                .args("masterWalletID:s")
+                .target(ActionSpec.Target.MASTER_WALLET);
+        action("createSubWallet", this::createSubWallet)
+                .args("masterWalletID:s chainID:s")
+                .target(ActionSpec.Target.MASTER_WALLET)
+                .lock(WalletLockManager.Mode.SUBWALLET_EXCLUSIVE)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("destroyWallet", this::destroyWallet)
+                .args("masterWalletID:s")
+                .target(ActionSpec.Target.MASTER_WALLET)
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE);
+        action("destroySubWallet", this::destroySubWallet)
+                .args("masterWalletID:s chainID:s")
+                .target(ActionSpec.Target.MASTER_WALLET)
+                .lock(WalletLockManager.Mode.SUBWALLET_EXCLUSIVE);
+        action("verifyPassPhrase", this::verifyPassPhrase)
+                .args("masterWalletID:s passPhrase:s! payPassword:s!")
+                .target(ActionSpec.Target.MASTER_WALLET);
+        action("verifyPayPassword", this::verifyPayPassword)
+                .args("masterWalletID:s payPassword:s!")
+                .target(ActionSpec.Target.MASTER_WALLET);
+        action("getPubKeyInfo", this::getPubKeyInfo)
+                .args("masterWalletID:s")
+                .target(ActionSpec.Target.MASTER_WALLET)
+                .result(ActionSpec.Result.JSON);
+        action("isAddressValid", this::isAddressValid)
+                .args("masterWalletID:s addr:s")
+                .target(ActionSpec.Target.MASTER_WALLET);
+        action("isSubWalletAddressValid", this::isSubWalletAddressValid)
+                .args("masterWalletID:s chainID:s address:s")
+                .target(ActionSpec.Target.MASTER_WALLET);
+        action("validateAddresses", this::validateAddresses)
+                .args("masterWalletID:s chainID:s addresses:a")
+                .target(ActionSpec.Target.MASTER_WALLET);
+        action("getSupportedChains", this::getSupportedChains)
+                .args("masterWalletID:s")
+                .target(ActionSpec.Target.MASTER_WALLET);
+        action("changePassword", this::changePassword)
+                .args("masterWalletID:s oldPassword:s! newPassword:s!")
+                .target(ActionSpec.Target.MASTER_WALLET)
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE);
+        action("resetPassword", this::resetPassword)
+                .args("masterWalletID:s mnemonic:s! passphrase:s! newPassword:s!")
+                .target(ActionSpec.Target.MASTER_WALLET)
+                .lock(WalletLockManager.Mode.WALLET_EXCLUSIVE);
+
+        // SubWallet
+        action("getAddresses", this::getAddresses)
+                .args("masterWalletID:s chainID:s start:i count:i internal:b chunkSize:i=0")
+                .target(ActionSpec.Target.SUB_WALLET)
+                .result(ActionSpec.Result.JSON);
+        action("getPublicKeys", this::getPublicKeys)
+                .args("masterWalletID:s chainID:s start:i count:i internal:b chunkSize:i=0")
+                .target(ActionSpec.Target.SUB_WALLET)
+                .result(ActionSpec.Result.JSON);
+        action("createTransaction", this::createTransaction)
+                .args("masterWalletID:s chainID:s inputs:s outputs:s fee:s memo:s")
+                .target(ActionSpec.Target.ELASTOS_BASE)
+                .result(ActionSpec.Result.JSON_STRING);
+        // The UTXOs are given by the caller, no wallet is involved.
+        action("selectCoins", this::selectCoins)
+                .args("utxos:a amount:s feePerKB:l=10000 outputCount:i=1 strategy:s=auto")
+                .lock(WalletLockManager.Mode.NONE);
+        action("signTransaction", this::signTransaction)
+                .args("masterWalletID:s chainID:s rawTransaction:s payPassword:s!")
+                .target(ActionSpec.Target.SUB_WALLET)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("signDigest", this::signDigest)
+                .args("masterWalletID:s chainID:s address:s digest:s payPassword:s!")
+                .target(ActionSpec.Target.SUB_WALLET);
+        action("signTransactions", this::signTransactions)
+                .args("masterWalletID:s chainID:s rawTransactions:a payPassword:s!")
+                .target(ActionSpec.Target.SUB_WALLET);
+        action("signDigests", this::signDigests)
+                .args("masterWalletID:s chainID:s digests:a payPassword:s!")
+                .target(ActionSpec.Target.SUB_WALLET);
+        action("verifyDigest", this::verifyDigest)
+                .args("masterWalletID:s chainID:s publicKey:s digest:s signature:s")
+                .target(ActionSpec.Target.SUB_WALLET);
+        action("verifyDigests", this::verifyDigests)
+                .args("masterWalletID:s chainID:s items:a")
+                .target(ActionSpec.Target.SUB_WALLET);
+        action("getTransactionSignedInfo", this::getTransactionSignedInfo)
+                .args("masterWalletID:s chainID:s rawTxJson:s")
+                .target(ActionSpec.Target.ELASTOS_BASE)
+                .result(ActionSpec.Result.JSON);
+        action("convertToRawTransaction", this::convertToRawTransaction)
+                .args("masterWalletID:s chainID:s txJson:s")
+                .target(ActionSpec.Target.ELASTOS_BASE);
+
+        // ID chain subwallet
+        action("createIdTransaction", this::createIdTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payloadJson:s memo:s fee:s=10000")
+                .target(ActionSpec.Target.IDCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("getDID", this::getDID)
+                .args("masterWalletID:s start:i count:i internal:b chunkSize:i=0")
+                .target(ActionSpec.Target.IDCHAIN)
+                .chain(IDChain)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("getCID", this::getCID)
+                .args("masterWalletID:s start:i count:i internal:b chunkSize:i=0")
+                .target(ActionSpec.Target.IDCHAIN)
+                .chain(IDChain)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("didSign", this::didSign)
+                .args("masterWalletID:s did:s message:s payPassword:s!")
+                .target(ActionSpec.Target.IDCHAIN)
+                .chain(IDChain);
+        action("verifySignature", this::verifySignature)
+                .args("masterWalletID:s publicKey:s message:s signature:s")
+                .target(ActionSpec.Target.IDCHAIN)
+                .chain(IDChain);
+        action("verifySignatures", this::verifySignatures)
+                .args("masterWalletID:s items:a")
+                .target(ActionSpec.Target.IDCHAIN)
+                .chain(IDChain);
+        action("getPublicKeyDID", this::getPublicKeyDID)
+                .args("masterWalletID:s pubkey:s")
+                .target(ActionSpec.Target.IDCHAIN)
+                .chain(IDChain);
+        action("getPublicKeyCID", this::getPublicKeyCID)
+                .args("masterWalletID:s pubkey:s")
+                .target(ActionSpec.Target.IDCHAIN)
+                .chain(IDChain);
+
+        //ETHSideChainSubWallet
+        action("createTransfer", this::createTransfer)
+                .args("masterWalletID:s chainID:s targetAddress:s amount:s amountUnit:i gasPrice:s gasPriceUnit:i gasLimit:s nonce:l")
+                .target(ActionSpec.Target.ETHSC)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createTransferGeneric", this::createTransferGeneric)
+                .args("masterWalletID:s chainID:s targetAddress:s amount:s amountUnit:i gasPrice:s gasPriceUnit:i gasLimit:s data:s nonce:l")
+                .target(ActionSpec.Target.ETHSC)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createContractCall", this::createContractCall)
+                .args("masterWalletID:s chainID:s contractAddress:s method:s values:a amount:s amountUnit:i gasPrice:s gasPriceUnit:i gasLimit:s nonce:l")
+                .target(ActionSpec.Target.ETHSC)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("encodeCallData", this::encodeCallData)
+                .args("method:s values:a")
+                .lock(WalletLockManager.Mode.NONE);
+        action("reserveNonce", this::reserveNonce)
+                .args("masterWalletID:s chainID:s networkNonce:l=-1")
+                .target(ActionSpec.Target.ETHSC);
+        action("commitNonce", this::commitNonce)
+                .args("masterWalletID:s chainID:s nonce:l")
+                .target(ActionSpec.Target.ETHSC);
+        action("releaseNonce", this::releaseNonce)
+                .args("masterWalletID:s chainID:s nonce:l")
+                .target(ActionSpec.Target.ETHSC);
+        action("getNonceState", this::getNonceState)
+                .args("masterWalletID:s chainID:s")
+                .target(ActionSpec.Target.ETHSC);
+        action("exportETHSCPrivateKey", this::exportETHSCPrivateKey)
+                .args("masterWalletID:s chainID:s password:s!")
+                .target(ActionSpec.Target.ETHSC);
+
+        // Main chain subwallet
+        action("createDepositTransaction", this::createDepositTransaction)
+                .args("masterWalletID:s chainID:s version:i inputs:s sideChainID:s amount:s sideChainAddress:s lockAddress:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- vote
+        action("createVoteTransaction", this::createVoteTransaction)
+                .args("masterWalletID:s chainID:s inputs:s voteContents:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- producer
+        action("generateProducerPayload", this::generateProducerPayload)
+                .args("masterWalletID:s chainID:s publicKey:s nodePublicKey:s nickName:s url:s IPAddress:s location:l payPasswd:s!")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("generateCancelProducerPayload", this::generateCancelProducerPayload)
+                .args("masterWalletID:s chainID:s publicKey:s payPasswd:s!")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createRegisterProducerTransaction", this::createRegisterProducerTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payloadJson:s amount:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createUpdateProducerTransaction", this::createUpdateProducerTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payloadJson:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createCancelProducerTransaction", this::createCancelProducerTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payloadJson:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createRetrieveDepositTransaction", this::createRetrieveDepositTransaction)
+                .args("masterWalletID:s chainID:s inputs:s amount:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("getOwnerPublicKey", this::getOwnerPublicKey)
+                .args("masterWalletID:s chainID:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("getOwnerAddress", this::getOwnerAddress)
+                .args("masterWalletID:s chainID:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("getOwnerDepositAddress", this::getOwnerDepositAddress)
+                .args("masterWalletID:s chainID:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+
+        // -- CRC
+        action("getCRDepositAddress", this::getCRDepositAddress)
+                .args("masterWalletID:s chainID:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("generateCRInfoPayload", this::generateCRInfoPayload)
+                .args("masterWalletID:s chainID:s crPublicKey:s did:s nickName:s url:s location:l")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON);
+        action("generateUnregisterCRPayload", this::generateUnregisterCRPayload)
+                .args("masterWalletID:s chainID:s did:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createRegisterCRTransaction", this::createRegisterCRTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payloadJson:s amount:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createUpdateCRTransaction", this::createUpdateCRTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payloadJson:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createUnregisterCRTransaction", this::createUnregisterCRTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payloadJson:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("createRetrieveCRDepositTransaction", this::createRetrieveCRDepositTransaction)
+                .args("masterWalletID:s chainID:s inputs:s amount:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("CRCouncilMemberClaimNodeDigest", this::CRCouncilMemberClaimNodeDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createCRCouncilMemberClaimNodeTransaction", this::createCRCouncilMemberClaimNodeTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- Proposal
+        action("proposalOwnerDigest", this::proposalOwnerDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("proposalCRCouncilMemberDigest", this::proposalCRCouncilMemberDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("calculateProposalHash", this::calculateProposalHash)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createProposalTransaction", this::createProposalTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("proposalReviewDigest", this::proposalReviewDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createProposalReviewTransaction", this::createProposalReviewTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- Proposal Tracking
+        action("proposalTrackingOwnerDigest", this::proposalTrackingOwnerDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("proposalTrackingNewOwnerDigest", this::proposalTrackingNewOwnerDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("proposalTrackingSecretaryDigest", this::proposalTrackingSecretaryDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createProposalTrackingTransaction", this::createProposalTrackingTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- Proposal Secretary General Election
+        action("proposalSecretaryGeneralElectionDigest", this::proposalSecretaryGeneralElectionDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("proposalSecretaryGeneralElectionCRCouncilMemberDigest", this::proposalSecretaryGeneralElectionCRCouncilMemberDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createSecretaryGeneralElectionTransaction", this::createSecretaryGeneralElectionTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- Proposal Change Owner
+        action("proposalChangeOwnerDigest", this::proposalChangeOwnerDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("proposalChangeOwnerCRCouncilMemberDigest", this::proposalChangeOwnerCRCouncilMemberDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createProposalChangeOwnerTransaction", this::createProposalChangeOwnerTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- Proposal Terminate Proposal
+        action("terminateProposalOwnerDigest", this::terminateProposalOwnerDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("terminateProposalCRCouncilMemberDigest", this::terminateProposalCRCouncilMemberDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createTerminateProposalTransaction", this::createTerminateProposalTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- Reserve Custom ID
+        action("reserveCustomIDOwnerDigest", this::reserveCustomIDOwnerDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("reserveCustomIDCRCouncilMemberDigest", this::reserveCustomIDCRCouncilMemberDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createReserveCustomIDTransaction", this::createReserveCustomIDTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- Receive Custom ID
+        action("receiveCustomIDOwnerDigest", this::receiveCustomIDOwnerDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("receiveCustomIDCRCouncilMemberDigest", this::receiveCustomIDCRCouncilMemberDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createReceiveCustomIDTransaction", this::createReceiveCustomIDTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- Change Custom ID Fee
+        action("changeCustomIDFeeOwnerDigest", this::changeCustomIDFeeOwnerDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("changeCustomIDFeeCRCouncilMemberDigest", this::changeCustomIDFeeCRCouncilMemberDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createChangeCustomIDFeeTransaction", this::createChangeCustomIDFeeTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- Proposal Withdraw
+        action("proposalWithdrawDigest", this::proposalWithdrawDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createProposalWithdrawTransaction", this::createProposalWithdrawTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // -- Proposal Register side-chain
+        action("registerSidechainOwnerDigest", this::registerSidechainOwnerDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("registerSidechainCRCouncilMemberDigest", this::registerSidechainCRCouncilMemberDigest)
+                .args("masterWalletID:s chainID:s payload:s")
+                .target(ActionSpec.Target.MAINCHAIN);
+        action("createRegisterSidechainTransaction", this::createRegisterSidechainTransaction)
+                .args("masterWalletID:s chainID:s inputs:s payload:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // Proposal pipeline, all the families above
+        action("proposalPipeline", this::proposalPipeline)
+                .args("masterWalletID:s chainID:s transaction:s payload:s steps:a payPassword:s! inputs:s fee:s memo:s")
+                .target(ActionSpec.Target.MAINCHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+
+        // Side chain subwallet
+        action("createWithdrawTransaction", this::createWithdrawTransaction)
+                .args("masterWalletID:s chainID:s inputs:s amount:s mainchainAddress:s fee:s memo:s")
+                .target(ActionSpec.Target.SIDECHAIN)
+                .result(ActionSpec.Result.JSON_STRING);
+        action("getLegacyAddresses", this::getLegacyAddresses)
+                .args("masterWalletID:s start:i count:i internal:b chunkSize:i=0")
+                .target(ActionSpec.Target.BTC)
+                .chain("BTC")
+                .result(ActionSpec.Result.JSON);
+        action("createBTCTransaction", this::createBTCTransaction)
+                .args("masterWalletID:s inputs:s outputs:s changeAddress:s feePerKB:s")
+                .target(ActionSpec.Target.BTC)
+                .chain("BTC")
+                .result(ActionSpec.Result.JSON_STRING);
+    }
+
+    public void init(ActionArgs args, CallbackContext cc) throws JSONException {
         if (mMasterWalletManager != null) {
             cc.success("");
             return;
@@ -672,11 +1014,6 @@ public class Wallet extends CordovaPlugin {
 
         int idx = 0;
         String dir = args.getString(idx++);
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         if ((dir == null) || dir.isEmpty()) {
             errorProcess(cc, errCodeInvalidDID, "Invalid dir");
         }
@@ -696,9 +1033,13 @@ public class Wallet extends CordovaPlugin {
         try {
             Log.d(TAG, " s_netType:" + s_netType + " s_netConfig:" + s_netConfig);
             mMasterWalletManager = new MasterWalletManager(rootPath, s_netType, s_netConfig, s_dataRootPath);
-            mMasterWalletManager.SetLogLevel(s_logLevel);
+            NativeCalls.run("MasterWalletManager.SetLogLevel", () -> mMasterWalletManager.SetLogLevel(s_logLevel));
+
+            // Not in s_dataRootPath, spvcore takes each directory there for a master wallet.
+            derivedKeyCache.setStore(new DerivedKeyStore(rootPath + "/derived/", s_netType + "\n" + s_netConfig));
+            nonceAllocator.open(rootPath + "/nonces.journal", s_netType + "\n" + s_netConfig);
+            slowActions.open(rootPath + "/slow-actions.ring");
 
-            walletSemaphore = new Semaphore(1);
             cc.success("");
         } catch (WalletException e) {
             mMasterWalletManager = null;
@@ -706,7 +1047,7 @@ public class Wallet extends CordovaPlugin {
         }
     }
 
-    public void destroy(JSONArray args, CallbackContext cc) throws JSONException {
+    public void destroy(ActionArgs args, CallbackContext cc) throws JSONException {
         try {
           destroyMasterWalletManager();
           cc.success("");
@@ -716,22 +1057,18 @@ public class Wallet extends CordovaPlugin {
     }
 
     // args[0]: String language
-    public void generateMnemonic(JSONArray args, CallbackContext cc) throws JSONException {
+    public void generateMnemonic(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String language = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         if (mMasterWalletManager == null) {
             errorProcess(cc, errCodeInvalidMasterWalletManager, "Master wallet manager has not initialize");
             return;
         }
 
         try {
-            String mnemonic = mMasterWalletManager.GenerateMnemonic(language, 12);
+            String mnemonic = NativeCalls.call("MasterWalletManager.GenerateMnemonic",
+                    () -> mMasterWalletManager.GenerateMnemonic(language, 12));
             cc.success(mnemonic);
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Generate mnemonic in '" + language + "'");
@@ -743,7 +1080,7 @@ public class Wallet extends CordovaPlugin {
     // args[2]: String phrasePassword
     // args[3]: String payPassword
     // args[4]: boolean singleAddress
-    public void createMasterWallet(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createMasterWallet(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String mnemonic = args.getString(idx++);
@@ -751,21 +1088,19 @@ public class Wallet extends CordovaPlugin {
         String payPassword = args.getString(idx++);
         boolean singleAddress = args.getBoolean(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = mMasterWalletManager.CreateMasterWallet(masterWalletID, mnemonic,
-                    phrasePassword, payPassword, singleAddress);
+            MasterWallet masterWallet = NativeCalls.call("MasterWalletManager.CreateMasterWallet",
+                    () -> mMasterWalletManager.CreateMasterWallet(masterWalletID, mnemonic,
+                            phrasePassword, payPassword, singleAddress));
 
             if (masterWallet == null) {
                 errorProcess(cc, errCodeCreateMasterWallet, "Create " + formatWalletName(masterWalletID));
                 return;
             }
 
-            cc.success(masterWallet.GetBasicInfo());
+            forgetStaleEntries(masterWalletID);
+            masterWalletRegistry.put(masterWalletID, masterWallet);
+            cc.success(NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo()));
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Create " + formatWalletName(masterWalletID));
         }
@@ -774,32 +1109,30 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String singlePrivateKey
     // args[2]: String password
-    public void createMasterWalletWithPrivKey(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createMasterWalletWithPrivKey(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String singlePrivateKey = args.getString(idx++);
         String password = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = mMasterWalletManager.CreateMasterWallet(masterWalletID, singlePrivateKey, password);
+            MasterWallet masterWallet = NativeCalls.call("MasterWalletManager.CreateMasterWallet",
+                    () -> mMasterWalletManager.CreateMasterWallet(masterWalletID, singlePrivateKey, password));
 
             if (masterWallet == null) {
                 errorProcess(cc, errCodeCreateMasterWallet, "Create " + formatWalletName(masterWalletID) + " with priv key");
                 return;
             }
 
-            cc.success(masterWallet.GetBasicInfo());
+            forgetStaleEntries(masterWalletID);
+            masterWalletRegistry.put(masterWalletID, masterWallet);
+            cc.success(NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo()));
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Create " + formatWalletName(masterWalletID) + " with priv key");
         }
     }
 
-    public void createMultiSignMasterWallet(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createMultiSignMasterWallet(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String privKey = null;
 
@@ -808,11 +1141,6 @@ public class Wallet extends CordovaPlugin {
         int m = args.getInt(idx++);
         long timestamp = args.getLong(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
             // TODO:: String masterWalletID, String coSigners, int requiredSignCount,
             // boolean singleAddress, boolean compatible, long timestamp
@@ -824,13 +1152,13 @@ public class Wallet extends CordovaPlugin {
                 return;
             }
 
-            cc.success(masterWallet.GetBasicInfo());
+            cc.success(NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo()));
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Create multi sign " + formatWalletName(masterWalletID));
         }
     }
 
-    public void createMultiSignMasterWalletWithPrivKey(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createMultiSignMasterWalletWithPrivKey(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String privKey = args.getString(idx++);
@@ -839,11 +1167,6 @@ public class Wallet extends CordovaPlugin {
         int m = args.getInt(idx++);
         long timestamp = args.getLong(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
             MasterWallet masterWallet = null;
             // mMasterWalletManager.CreateMultiSignMasterWallet(
@@ -855,7 +1178,7 @@ public class Wallet extends CordovaPlugin {
                 return;
             }
 
-            cc.success(masterWallet.GetBasicInfo());
+            cc.success(NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo()));
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Create multi sign " + formatWalletName(masterWalletID) + " with private key");
         }
@@ -867,7 +1190,7 @@ public class Wallet extends CordovaPlugin {
     // args[3]: String payPassword
     // args[4]: String coSignersJson
     // args[5]: int requiredSignCount
-    public void createMultiSignMasterWalletWithMnemonic(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createMultiSignMasterWalletWithMnemonic(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String mnemonic = args.getString(idx++);
@@ -877,11 +1200,6 @@ public class Wallet extends CordovaPlugin {
         int m = args.getInt(idx++);
         long timestamp = args.getLong(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
             MasterWallet masterWallet = null;
             // mMasterWalletManager.CreateMultiSignMasterWallet(
@@ -894,7 +1212,7 @@ public class Wallet extends CordovaPlugin {
                 return;
             }
 
-            cc.success(masterWallet.GetBasicInfo());
+            cc.success(NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo()));
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Create multi sign " + formatWalletName(masterWalletID) + " with mnemonic");
         }
@@ -904,28 +1222,26 @@ public class Wallet extends CordovaPlugin {
     // args[1]: String keystoreContent
     // args[2]: String backupPassword
     // args[3]: String payPassword
-    public void importWalletWithKeystore(JSONArray args, CallbackContext cc) throws JSONException {
+    public void importWalletWithKeystore(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String keystoreContent = args.getString(idx++);
         String backupPassword = args.getString(idx++);
         String payPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = mMasterWalletManager.ImportWalletWithKeystore(masterWalletID, keystoreContent,
-                    backupPassword, payPassword);
+            MasterWallet masterWallet = NativeCalls.call("MasterWalletManager.ImportWalletWithKeystore",
+                    () -> mMasterWalletManager.ImportWalletWithKeystore(masterWalletID, keystoreContent,
+                            backupPassword, payPassword));
             if (masterWallet == null) {
                 errorProcess(cc, errCodeImportFromKeyStore,
                         "Import " + formatWalletName(masterWalletID) + " with keystore");
                 return;
             }
 
-            cc.success(masterWallet.GetBasicInfo());
+            forgetStaleEntries(masterWalletID);
+            masterWalletRegistry.put(masterWalletID, masterWallet);
+            cc.success(NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo()));
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Import " + formatWalletName(masterWalletID) + " with keystore");
         }
@@ -936,7 +1252,7 @@ public class Wallet extends CordovaPlugin {
     // args[2]: String phrasePassword
     // args[3]: String payPassword
     // args[4]: boolean singleAddress
-    public void importWalletWithMnemonic(JSONArray args, CallbackContext cc) throws JSONException {
+    public void importWalletWithMnemonic(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String mnemonic = args.getString(idx++);
@@ -944,21 +1260,19 @@ public class Wallet extends CordovaPlugin {
         String payPassword = args.getString(idx++);
         boolean singleAddress = args.getBoolean(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = mMasterWalletManager.ImportWalletWithMnemonic(masterWalletID, mnemonic,
-                    phrasePassword, payPassword, singleAddress, 0);
+            MasterWallet masterWallet = NativeCalls.call("MasterWalletManager.ImportWalletWithMnemonic",
+                    () -> mMasterWalletManager.ImportWalletWithMnemonic(masterWalletID, mnemonic,
+                            phrasePassword, payPassword, singleAddress, 0));
             if (masterWallet == null) {
                 errorProcess(cc, errCodeImportFromMnemonic,
                         "Import " + formatWalletName(masterWalletID) + " with mnemonic");
                 return;
             }
 
-            cc.success(masterWallet.GetBasicInfo());
+            forgetStaleEntries(masterWalletID);
+            masterWalletRegistry.put(masterWalletID, masterWallet);
+            cc.success(NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo()));
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Import " + formatWalletName(masterWalletID) + " with mnemonic");
         }
@@ -970,7 +1284,7 @@ public class Wallet extends CordovaPlugin {
     // args[3]: boolean singleAddress
     // args[4]: String mnemonic
     // args[5]: String phrasePassword
-    public void importWalletWithSeed(JSONArray args, CallbackContext cc) throws JSONException {
+    public void importWalletWithSeed(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String seed = args.getString(idx++);
@@ -979,116 +1293,317 @@ public class Wallet extends CordovaPlugin {
         String mnemonic = args.getString(idx++);
         String phrasePassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = mMasterWalletManager.ImportWalletWithSeed(masterWalletID, seed, payPassword,
-                    singleAddress, mnemonic, phrasePassword);
+            MasterWallet masterWallet = NativeCalls.call("MasterWalletManager.ImportWalletWithSeed",
+                    () -> mMasterWalletManager.ImportWalletWithSeed(masterWalletID, seed, payPassword,
+                            singleAddress, mnemonic, phrasePassword));
             if (masterWallet == null) {
                 errorProcess(cc, errCodeImportFromMnemonic,
                         "Import " + formatWalletName(masterWalletID) + " with seed");
                 return;
             }
 
-            cc.success(masterWallet.GetBasicInfo());
+            forgetStaleEntries(masterWalletID);
+            masterWalletRegistry.put(masterWalletID, masterWallet);
+            cc.success(NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo()));
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Import " + formatWalletName(masterWalletID) + " with mnemonic");
         }
     }
 
-    public void getAllMasterWallets(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getAllMasterWallets(ActionArgs args, CallbackContext cc) throws JSONException {
         try {
-            ArrayList<MasterWallet> masterWalletList = mMasterWalletManager.GetAllMasterWallets();
+            int marker = masterWalletRegistry.marker();
+            ArrayList<MasterWallet> masterWalletList = NativeCalls.call("MasterWalletManager.GetAllMasterWallets",
+                    () -> mMasterWalletManager.GetAllMasterWallets());
+            masterWalletRegistry.putAll(masterWalletList, marker);
+
             JSONArray masterWalletListJson = new JSONArray();
 
             for (int i = 0; i < masterWalletList.size(); i++) {
-                masterWalletListJson.put(masterWalletList.get(i).GetID());
+                MasterWallet masterWallet = masterWalletList.get(i);
+                masterWalletListJson.put(NativeCalls.call("MasterWallet.GetID", () -> masterWallet.GetID()));
             }
-            cc.success(masterWalletListJson.toString());
+            cc.success(masterWalletListJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Get all master wallets");
         }
     }
 
-    // args[0]: String masterWalletID
-    public void getMasterWallet(JSONArray args, CallbackContext cc) throws JSONException {
+    // args[0]: int offset [option], index of the first wallet listed
+    // args[1]: int limit [option], max number of wallets listed, all when 0
+    // return: {total, offset, wallets: [{masterWalletID, basicInfo, subWallets: [chainID, ...],
+    //         supportedChains: [chainID, ...]}, ...]}
+    public void getAllMasterWalletsInfo(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
-        String masterWalletID = args.getString(idx++);
+        int offset = args.getInt(idx++);
+        int limit = args.getInt(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
+        if (offset < 0 || limit < 0) {
+            errorProcess(cc, errCodeInvalidArg, "Invalid offset or limit");
             return;
         }
 
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
+            List<String> masterWalletIDs = masterWalletRegistry.ids();
+            if (masterWalletIDs == null) {
+                int marker = masterWalletRegistry.marker();
+                ArrayList<MasterWallet> masterWalletList = NativeCalls.call("MasterWalletManager.GetAllMasterWallets",
+                        () -> mMasterWalletManager.GetAllMasterWallets());
+                masterWalletRegistry.putAll(masterWalletList, marker);
+
+                masterWalletIDs = new ArrayList<>(masterWalletList.size());
+                for (int i = 0; i < masterWalletList.size(); i++) {
+                    MasterWallet masterWallet = masterWalletList.get(i);
+                    masterWalletIDs.add(NativeCalls.call("MasterWallet.GetID", () -> masterWallet.GetID()));
+                }
+            }
+
+            int end = limit == 0 ? masterWalletIDs.size() : (int) Math.min(masterWalletIDs.size(), (long) offset + limit);
+            StringBuilder sb = new StringBuilder(256 + Math.max(0, end - offset) * 512);
+            sb.append("{\"total\":").append(masterWalletIDs.size()).append(",\"offset\":").append(offset);
+            sb.append(",\"wallets\":[");
+            boolean first = true;
+            for (int i = offset; i < end; i++) {
+                String masterWalletID = masterWalletIDs.get(i);
+                // The action only holds the manager lock, lock each wallet while reading it so that a
+                // concurrent destroyWallet neither frees it under us nor sees it cached again.
+                WalletLockManager.Lease lease = lockManager.acquire(WalletLockManager.Mode.WALLET_SHARED,
+                        masterWalletID, null);
+                try {
+                    MasterWallet masterWallet = getIMasterWallet(masterWalletID);
+                    if (masterWallet == null) {
+                        // Destroyed since listed.
+                        continue;
+                    }
+
+                    if (!first) {
+                        sb.append(',');
+                    }
+                    first = false;
+                    sb.append("{\"masterWalletID\":").append(JSONObject.quote(masterWalletID));
+                    sb.append(",\"basicInfo\":").append(masterWalletRegistry.basicInfo(masterWalletID, masterWallet));
+                    sb.append(",\"subWallets\":[");
+                    boolean firstChain = true;
+                    for (String chainID : subWalletRegistry.chainIDs(masterWalletID, masterWallet)) {
+                        if (!firstChain) {
+                            sb.append(',');
+                        }
+                        firstChain = false;
+                        sb.append(JSONObject.quote(chainID));
+                    }
+                    sb.append("],\"supportedChains\":[");
+                    String[] supportedChains = masterWalletRegistry.supportedChains(masterWalletID, masterWallet);
+                    for (int j = 0; j < supportedChains.length; j++) {
+                        if (j > 0) {
+                            sb.append(',');
+                        }
+                        sb.append(JSONObject.quote(supportedChains[j]));
+                    }
+                    sb.append("]}");
+                } finally {
+                    lease.release();
+                }
             }
+            sb.append("]}");
 
-            cc.success(masterWallet.GetBasicInfo());
+            cc.sendPluginResult(new PluginResult(PluginResult.Status.OK, new JsonResultContext.EncodedJSON(sb.toString())));
         } catch (WalletException e) {
-            exceptionProcess(e, cc, "Get " + formatWalletName(masterWalletID));
+            exceptionProcess(e, cc, "Get all master wallets info");
         }
     }
 
     // args[0]: String masterWalletID
-    public void destroyWallet(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getMasterWallet(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
-
         String masterWalletID = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
+        try {
+            MasterWallet masterWallet = args.masterWallet();
+
+            cc.success(NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo()));
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, "Get " + formatWalletName(masterWalletID));
+        }
+    }
+
+    public void getWalletCacheStats(ActionArgs args, CallbackContext cc) throws JSONException {
+        cc.success(cacheStats());
+    }
+
+    private JSONObject cacheStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        stats.put("masterWallets", masterWalletRegistry.getStats());
+        stats.put("derivedKeys", derivedKeyCache.getStats());
+        stats.put("addressIndex", addressIndex.getStats());
+        stats.put("addressValidation", addressValidator.getStats());
+        return stats;
+    }
+
+    // args[0]: boolean reset [option], start counting again once read
+    // return: {actions: {action: {count, errors, errorCodes, latencyMicros, queueMicros, lockMicros, execMicros,
+    //         requestBytes, responseBytes, nativeCalls, nativeMicros}}, nativeCalls: {method: latency}, locks, executor,
+    //         caches} for the actions and spvcore methods called, see ActionMetrics and NativeCalls, the lock
+    //         contention by level, see WalletLockManager, the executor gauges and caches as getWalletCacheStats
+    public void getMetrics(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        boolean reset = args.getBoolean(idx++);
+
+        JSONObject actionsJson = new JSONObject();
+        for (ActionSpec spec : actions.values()) {
+            if (spec.metrics.isUsed()) {
+                actionsJson.put(spec.name, spec.metrics.toJSON(reset));
+            }
+        }
+
+        JSONObject metrics = new JSONObject();
+        metrics.put("actions", actionsJson);
+        metrics.put("nativeCalls", NativeCalls.toJSON(reset));
+        metrics.put("locks", lockManager.toJSON(reset));
+        metrics.put("executor", executor.toJSON());
+        metrics.put("caches", cacheStats());
+        cc.success(metrics);
+    }
+
+    // args[0]: boolean reset [option], clear the spans once read
+    // return: the spans of the last traced actions in the Chrome trace event format, see Trace
+    public void dumpTrace(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        boolean reset = args.getBoolean(idx++);
+
+        cc.sendPluginResult(new PluginResult(PluginResult.Status.OK, new JsonResultContext.EncodedJSON(Trace.toJSON(reset))));
+    }
+
+    // args[0]: int limit [option], 50 by default
+    // return: {thresholdMillis, entries: [{sequence, time, action, masterWalletID, chainID, args, requestBytes,
+    //         queueMicros, lockMicros, execMicros, errorCode}]}, the last actions slower than the threshold,
+    //         most recent first, see SlowActionJournal
+    public void getSlowActions(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        int limit = args.getInt(idx++);
+
+        if (limit < 0) {
+            errorProcess(cc, errCodeInvalidArg, "Invalid limit " + limit);
             return;
         }
 
-        new Thread(() -> {
-            try {
-                walletSemaphore.acquire();
+        String result = "{\"thresholdMillis\":" + slowActions.getThresholdMillis()
+                + ",\"entries\":" + slowActions.recent(limit) + "}";
+        cc.sendPluginResult(new PluginResult(PluginResult.Status.OK, new JsonResultContext.EncodedJSON(result)));
+    }
 
-                MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-                if (masterWallet == null) {
-                    errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                    return;
-                }
+    // args[0]: long thresholdMillis, latency from which actions are journaled, negative to journal none
+    public void setSlowActionThreshold(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        long thresholdMillis = args.getLong(idx++);
+
+        slowActions.setThresholdMillis(thresholdMillis);
+        cc.success(thresholdMillis < 0 ? "Slow action journal disabled"
+                : "Slow action threshold set to " + thresholdMillis + " ms");
+    }
+
+    // args[0]: boolean enabled, send the JSON returned by wallet actions as objects instead of strings
+    public void setStructuredResults(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        boolean enabled = args.getBoolean(idx++);
+
+        s_structuredResults = enabled;
+        cc.success("Structured results " + (enabled ? "enabled" : "disabled"));
+    }
+
+    // args[0]: JSONArray calls, [{action: String, args: JSONArray}, ...]
+    // return: JSONArray [{success: result} | {error: error}, ...] in calls order
+    public void batch(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        JSONArray calls = args.getJSONArray(idx++);
+
+        try {
+            String results = new ActionBatch(calls, this::dispatch, webView).run(executor);
+            cc.sendPluginResult(new PluginResult(PluginResult.Status.OK, new JsonResultContext.EncodedJSON(results)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errorProcess(cc, errCodeActionRejected, "Batch of " + calls.length() + " actions interrupted");
+        }
+    }
+
+    private static JSONArray ownersToJSON(List<AddressIndex.Owner> owners) throws JSONException {
+        JSONArray json = new JSONArray();
+        for (AddressIndex.Owner owner : owners) {
+            json.put(owner.toJSON());
+        }
+        return json;
+    }
+
+    // args[0]: String address
+    // return: JSONArray [{masterWalletID, chainID, internal, index}, ...] of the wallet addresses, empty if not owned
+    public void lookupAddress(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String address = args.getString(idx++);
+
+        derivedKeyCache.loadStore();
+        cc.success(ownersToJSON(addressIndex.lookup(address)));
+    }
+
+    // args[0]: JSONArray addresses, [String, ...]
+    // return: JSONArray [[{masterWalletID, chainID, internal, index}, ...], ...] in addresses order
+    public void lookupAddresses(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        JSONArray addresses = args.getJSONArray(idx++);
+
+        derivedKeyCache.loadStore();
+        JSONArray owners = new JSONArray();
+        for (int i = 0; i < addresses.length(); i++) {
+            owners.put(addresses.isNull(i) ? new JSONArray()
+                    : ownersToJSON(addressIndex.lookup(addresses.getString(i))));
+        }
+        cc.success(owners);
+    }
+
+    // args[0]: String masterWalletID
+    public void destroyWallet(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+
+        String masterWalletID = args.getString(idx++);
 
-                mMasterWalletManager.DestroyWallet(masterWalletID);
+        try {
+            MasterWallet masterWallet = args.masterWallet();
 
-                cc.success("Destroy " + formatWalletName(masterWalletID) + " OK");
-            } catch (Exception e) {
-                exceptionProcess(e, cc, "Destroy " + formatWalletName(masterWalletID));
+            try {
+                NativeCalls.run("MasterWalletManager.DestroyWallet",
+                        () -> mMasterWalletManager.DestroyWallet(masterWalletID));
+            } finally {
+                // Only once spvcore forgot the wallet: a listing running meanwhile holds the manager
+                // lock only and could cache the wallet again otherwise.
+                subWalletRegistry.removeWallet(masterWalletID);
+                derivedKeyCache.removeWallet(masterWalletID);
+                nonceAllocator.removeWallet(masterWalletID);
+                masterWalletRegistry.remove(masterWalletID);
             }
-            walletSemaphore.release();
-        }).start();
+
+            cc.success("Destroy " + formatWalletName(masterWalletID) + " OK");
+        } catch (Exception e) {
+            exceptionProcess(e, cc, "Destroy " + formatWalletName(masterWalletID));
+        }
     }
 
-    public void getVersion(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getVersion(ActionArgs args, CallbackContext cc) throws JSONException {
         if (mMasterWalletManager == null) {
             errorProcess(cc, errCodeInvalidMasterWalletManager, "Master wallet manager has not initialize");
             return;
         }
 
-        String version = mMasterWalletManager.GetVersion();
+        String version = NativeCalls.call("MasterWalletManager.GetVersion", () -> mMasterWalletManager.GetVersion());
         cc.success(version);
     }
 
     // args[0]: String log level
-    public void setLogLevel(JSONArray args, CallbackContext cc) throws JSONException {
+    public void setLogLevel(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String loglevel = args.getString(idx++);
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
 
         s_logLevel = loglevel;
         if (mMasterWalletManager != null) {
-            mMasterWalletManager.SetLogLevel(loglevel);
+            NativeCalls.run("MasterWalletManager.SetLogLevel", () -> mMasterWalletManager.SetLogLevel(loglevel));
         }
 
         cc.success("SetLogLevel OK");
@@ -1096,14 +1611,10 @@ public class Wallet extends CordovaPlugin {
 
     // args[0]: String network type
     // args[1]: String network config, only for private network.
-    public void setNetwork(JSONArray args, CallbackContext cc) throws JSONException {
+    public void setNetwork(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String networkType = args.getString(idx++);
         String networkConfig = args.getString(idx++);
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
 
         s_netType = networkType;
         s_netConfig = networkConfig;
@@ -1112,53 +1623,37 @@ public class Wallet extends CordovaPlugin {
     }
 
     // args[0]: String masterWalletID
-    public void getMasterWalletBasicInfo(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getMasterWalletBasicInfo(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            cc.success(masterWallet.GetBasicInfo());
+            cc.success(NativeCalls.call("MasterWallet.GetBasicInfo", () -> masterWallet.GetBasicInfo()));
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Get " + formatWalletName(masterWalletID) + " basic info");
         }
     }
 
     // args[0]: String masterWalletID
-    public void getAllSubWallets(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getAllSubWallets(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            ArrayList<SubWallet> subWalletList = masterWallet.GetAllSubWallets();
+            ArrayList<SubWallet> subWalletList = NativeCalls.call("MasterWallet.GetAllSubWallets",
+                    () -> masterWallet.GetAllSubWallets());
 
             JSONArray subWalletJsonArray = new JSONArray();
             for (int i = 0; i < subWalletList.size(); i++) {
-                subWalletJsonArray.put(subWalletList.get(i).GetChainID());
+                SubWallet subWallet = subWalletList.get(i);
+                subWalletJsonArray.put(NativeCalls.call("SubWallet.GetChainID", () -> subWallet.GetChainID()));
             }
 
-            cc.success(subWalletJsonArray.toString());
+            cc.success(subWalletJsonArray);
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Get " + masterWalletID + " all subwallets");
         }
@@ -1167,30 +1662,23 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: long feePerKb
-    public void createSubWallet(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createSubWallet(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            SubWallet subWallet = masterWallet.CreateSubWallet(chainID);
+            SubWallet subWallet = NativeCalls.call("MasterWallet.CreateSubWallet",
+                    () -> masterWallet.CreateSubWallet(chainID));
             if (subWallet == null) {
                 errorProcess(cc, errCodeCreateSubWallet, "Create " + formatWalletName(masterWalletID, chainID));
                 return;
             }
+            subWalletRegistry.put(masterWalletID, chainID, subWallet);
 
-            cc.success(subWallet.GetBasicInfo());
+            cc.success(NativeCalls.call("SubWallet.GetBasicInfo", () -> subWallet.GetBasicInfo()));
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Create " + formatWalletName(masterWalletID, chainID));
         }
@@ -1199,25 +1687,17 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String backupPassword
     // args[2]: String payPassword
-    public void exportWalletWithKeystore(JSONArray args, CallbackContext cc) throws JSONException {
+    public void exportWalletWithKeystore(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String backupPassword = args.getString(idx++);
         String payPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            String keystore = masterWallet.ExportKeystore(backupPassword, payPassword);
+            String keystore = NativeCalls.call("MasterWallet.ExportKeystore",
+                    () -> masterWallet.ExportKeystore(backupPassword, payPassword));
 
             cc.success(keystore);
         } catch (WalletException e) {
@@ -1227,24 +1707,16 @@ public class Wallet extends CordovaPlugin {
 
     // args[0]: String masterWalletID
     // args[1]: String payPassword
-    public void exportWalletWithMnemonic(JSONArray args, CallbackContext cc) throws JSONException {
+    public void exportWalletWithMnemonic(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String payPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            String mnemonic = masterWallet.ExportMnemonic(payPassword);
+            String mnemonic = NativeCalls.call("MasterWallet.ExportMnemonic",
+                    () -> masterWallet.ExportMnemonic(payPassword));
 
             cc.success(mnemonic);
         } catch (WalletException e) {
@@ -1254,24 +1726,15 @@ public class Wallet extends CordovaPlugin {
 
     // args[0]: String masterWalletID
     // args[1]: String payPassword
-    public void exportWalletWithSeed(JSONArray args, CallbackContext cc) throws JSONException {
+    public void exportWalletWithSeed(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String payPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            String seed = masterWallet.ExportSeed(payPassword);
+            String seed = NativeCalls.call("MasterWallet.ExportSeed", () -> masterWallet.ExportSeed(payPassword));
 
             cc.success(seed);
         } catch (WalletException e) {
@@ -1281,24 +1744,16 @@ public class Wallet extends CordovaPlugin {
 
     // args[0]: String masterWalletID
     // args[1]: String payPassword
-    public void exportWalletWithPrivateKey(JSONArray args, CallbackContext cc) throws JSONException {
+    public void exportWalletWithPrivateKey(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String payPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            String mnemonic = masterWallet.ExportPrivateKey(payPassword);
+            String mnemonic = NativeCalls.call("MasterWallet.ExportPrivateKey",
+                    () -> masterWallet.ExportPrivateKey(payPassword));
 
             cc.success(mnemonic);
         } catch (WalletException e) {
@@ -1309,25 +1764,17 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String passPhrase
     // args[2]: String payPassword
-    public void verifyPassPhrase(JSONArray args, CallbackContext cc) throws JSONException {
+    public void verifyPassPhrase(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String passPhrase = args.getString(idx++);
         String payPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            masterWallet.VerifyPassPhrase(passPhrase, payPassword);
+            NativeCalls.run("MasterWallet.VerifyPassPhrase",
+                    () -> masterWallet.VerifyPassPhrase(passPhrase, payPassword));
             cc.success("VerifyPassPhrase OK");
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID) + " verify passPhrase");
@@ -1336,24 +1783,15 @@ public class Wallet extends CordovaPlugin {
 
     // args[0]: String masterWalletID
     // args[1]: String payPassword
-    public void verifyPayPassword(JSONArray args, CallbackContext cc) throws JSONException {
+    public void verifyPayPassword(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String payPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            masterWallet.VerifyPayPassword(payPassword);
+            NativeCalls.run("MasterWallet.VerifyPayPassword", () -> masterWallet.VerifyPayPassword(payPassword));
             cc.success("verify PayPassword OK");
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID) + " verify PayPassword");
@@ -1362,29 +1800,27 @@ public class Wallet extends CordovaPlugin {
 
     // args[0]: String masterWalletID
     // args[1]: String chainID
-    public void destroySubWallet(JSONArray args, CallbackContext cc) throws JSONException {
+    public void destroySubWallet(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
-            SubWallet subWallet = masterWallet.GetSubWallet(chainID);
+            MasterWallet masterWallet = args.masterWallet();
+            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
             if (subWallet == null) {
                 errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
                 return;
             }
 
-            masterWallet.DestroyWallet(subWallet);
+            try {
+                NativeCalls.run("MasterWallet.DestroyWallet", () -> masterWallet.DestroyWallet(subWallet));
+            } finally {
+                // Only once spvcore forgot the sub wallet, so that a concurrent load can not cache it again.
+                subWalletRegistry.remove(masterWalletID, chainID);
+                derivedKeyCache.remove(masterWalletID, chainID);
+                nonceAllocator.remove(masterWalletID, chainID);
+            }
 
             cc.success("Destroy " + formatWalletName(masterWalletID, chainID) + " OK");
         } catch (WalletException e) {
@@ -1393,23 +1829,14 @@ public class Wallet extends CordovaPlugin {
     }
 
     // args[0]: String masterWalletID
-    public void getPubKeyInfo(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getPubKeyInfo(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            String pubkeyInfo = masterWallet.GetPubKeyInfo();
+            String pubkeyInfo = NativeCalls.call("MasterWallet.GetPubKeyInfo", () -> masterWallet.GetPubKeyInfo());
             cc.success(pubkeyInfo);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID) + " Get PubKey Info");
@@ -1418,24 +1845,15 @@ public class Wallet extends CordovaPlugin {
 
     // args[0]: String masterWalletID
     // args[1]: String address
-    public void isAddressValid(JSONArray args, CallbackContext cc) throws JSONException {
+    public void isAddressValid(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String addr = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            Boolean valid = masterWallet.IsAddressValid(addr);
+            Boolean valid = NativeCalls.call("MasterWallet.IsAddressValid", () -> masterWallet.IsAddressValid(addr));
             JSONObject result = new JSONObject();
             result.put("isValid", valid);
 
@@ -1448,25 +1866,18 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String address
-    public void isSubWalletAddressValid(JSONArray args, CallbackContext cc) throws JSONException {
+    public void isSubWalletAddressValid(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String address = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            Boolean valid = masterWallet.IsSubWalletAddressValid(chainID, address);
+            Boolean valid = addressValidator.isValid(s_netType, chainID, address,
+                    a -> NativeCalls.call("MasterWallet.IsSubWalletAddressValid",
+                            () -> masterWallet.IsSubWalletAddressValid(chainID, a)));
             JSONObject result = new JSONObject();
             result.put("isValid", valid);
 
@@ -1477,23 +1888,48 @@ public class Wallet extends CordovaPlugin {
     }
 
     // args[0]: String masterWalletID
-    public void getSupportedChains(JSONArray args, CallbackContext cc) throws JSONException {
+    // args[1]: String chainID
+    // args[2]: JSONArray addresses, [String, ...]
+    // return: {count, invalid: [index of each invalid address, ...]}
+    public void validateAddresses(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
+        String chainID = args.getString(idx++);
+        JSONArray addresses = args.getJSONArray(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
+        try {
+            MasterWallet masterWallet = args.masterWallet();
+
+            int[] invalid = addressValidator.validate(s_netType, chainID, addresses,
+                    address -> NativeCalls.call("MasterWallet.IsSubWalletAddressValid",
+                            () -> masterWallet.IsSubWalletAddressValid(chainID, address)), executor);
+            JSONArray indices = new JSONArray();
+            for (int i : invalid) {
+                indices.put(i);
+            }
+            JSONObject result = new JSONObject();
+            result.put("count", addresses.length());
+            result.put("invalid", indices);
+
+            cc.success(result);
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, "Check addresses valid of " + formatWalletName(masterWalletID, chainID));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errorProcess(cc, errCodeActionRejected, "Validation of " + addresses.length() + " addresses interrupted");
         }
+    }
+
+    // args[0]: String masterWalletID
+    public void getSupportedChains(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
 
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            String[] supportedChains = masterWallet.GetSupportedChains();
+            String[] supportedChains = NativeCalls.call("MasterWallet.GetSupportedChains",
+                    () -> masterWallet.GetSupportedChains());
             JSONArray supportedChainsJson = new JSONArray();
             for (int i = 0; i < supportedChains.length; i++) {
                 supportedChainsJson.put(supportedChains[i]);
@@ -1508,25 +1944,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String oldPassword
     // args[2]: String newPassword
-    public void changePassword(JSONArray args, CallbackContext cc) throws JSONException {
+    public void changePassword(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String oldPassword = args.getString(idx++);
         String newPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            masterWallet.ChangePassword(oldPassword, newPassword);
+            NativeCalls.run("MasterWallet.ChangePassword", () -> masterWallet.ChangePassword(oldPassword, newPassword));
             cc.success("Change password OK");
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID) + " change password");
@@ -1537,26 +1964,18 @@ public class Wallet extends CordovaPlugin {
     // args[1]: String mnemonic
     // args[2]: String passphrase
     // args[3]: String newPassword
-    public void resetPassword(JSONArray args, CallbackContext cc) throws JSONException {
+    public void resetPassword(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String mnemonic = args.getString(idx++);
         String passphrase = args.getString(idx++);
         String newPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
-            if (masterWallet == null) {
-                errorProcess(cc, errCodeInvalidMasterWallet, "Get " + formatWalletName(masterWalletID));
-                return;
-            }
+            MasterWallet masterWallet = args.masterWallet();
 
-            masterWallet.ResetPassword(mnemonic, passphrase, newPassword);
+            NativeCalls.run("MasterWallet.ResetPassword",
+                    () -> masterWallet.ResetPassword(mnemonic, passphrase, newPassword));
             cc.success("Reset password OK");
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID) + " reset password");
@@ -1565,32 +1984,71 @@ public class Wallet extends CordovaPlugin {
 
     // Subwallet
 
+    interface RangeReader {
+        String read(int start, int count) throws WalletException, JSONException;
+    }
+
+    /**
+     * Derive [start, start + count) in windows of chunkSize, so that neither side holds the whole range.
+     * Each window is sent once derived as {start, count, result} keeping the callback, the range ends
+     * with {done: true, start, count}. An exception ends the range with an error, a finished
+     * callback, as in a batch, ends it silently.
+     */
+    static void streamRange(CallbackContext cc, int start, int count, int chunkSize, RangeReader reader)
+            throws WalletException, JSONException {
+        for (int offset = 0; offset < count; offset += chunkSize) {
+            if (cc.isFinished()) {
+                return;
+            }
+            int windowStart = start + offset;
+            int windowCount = Math.min(chunkSize, count - offset);
+            String window = reader.read(windowStart, windowCount);
+            if (!JsonResultContext.isEncodedJson(window)) {
+                window = JSONObject.quote(window);
+            }
+
+            PluginResult chunk = new PluginResult(PluginResult.Status.OK, new JsonResultContext.EncodedJSON(
+                    "{\"start\":" + windowStart + ",\"count\":" + windowCount + ",\"result\":" + window + "}"));
+            chunk.setKeepCallback(true);
+            cc.sendPluginResult(chunk);
+        }
+
+        cc.sendPluginResult(new PluginResult(PluginResult.Status.OK, new JsonResultContext.EncodedJSON(
+                "{\"done\":true,\"start\":" + start + ",\"count\":" + count + "}")));
+    }
+
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: int start
     // args[3]: int count
     // args[4]: bool internal
-    public void getAddresses(JSONArray args, CallbackContext cc) throws JSONException {
+    // args[5]: int chunkSize [option], stream the range in chunks of chunkSize when > 0
+    public void getAddresses(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         int start = args.getInt(idx++);
         int count = args.getInt(idx++);
         boolean internal = args.getBoolean(idx++);
-
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
+        int chunkSize = args.getInt(idx++);
 
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
+            SubWallet subWallet = args.subWallet();
+            if (subWallet instanceof EthSidechainSubWallet) {
+                // A single address whatever the range, neither cached nor streamed.
+                cc.success(NativeCalls.call("SubWallet.GetAddresses",
+                        () -> subWallet.GetAddresses(start, count, internal)));
                 return;
             }
-            String allAddresses = subWallet.GetAddresses(start, count, internal);
-            cc.success(allAddresses);
+
+            RangeReader reader = (s, n) -> derivedKeyCache.get(masterWalletID, chainID, DerivedKeyCache.Kind.ADDRESS,
+                    internal, s, n, (ds, dn) -> NativeCalls.call("SubWallet.GetAddresses",
+                            () -> subWallet.GetAddresses(ds, dn, internal)));
+            if (chunkSize > 0) {
+                streamRange(cc, start, count, chunkSize, reader);
+            } else {
+                cc.success(reader.read(start, count));
+            }
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Get " + formatWalletName(masterWalletID, chainID) + " all addresses");
         }
@@ -1601,27 +2059,33 @@ public class Wallet extends CordovaPlugin {
     // args[2]: int start
     // args[3]: int count
     // args[4]: bool internal
-    public void getPublicKeys(JSONArray args, CallbackContext cc) throws JSONException {
+    // args[5]: int chunkSize [option], stream the range in chunks of chunkSize when > 0
+    public void getPublicKeys(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         int start = args.getInt(idx++);
         int count = args.getInt(idx++);
         boolean internal = args.getBoolean(idx++);
-
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
+        int chunkSize = args.getInt(idx++);
 
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
+            SubWallet subWallet = args.subWallet();
+            if (subWallet instanceof EthSidechainSubWallet) {
+                // A single address whatever the range, neither cached nor streamed.
+                cc.success(NativeCalls.call("SubWallet.GetPublicKeys",
+                        () -> subWallet.GetPublicKeys(start, count, internal)));
                 return;
             }
-            String allAddresses = subWallet.GetPublicKeys(start, count, internal);
-            cc.success(allAddresses);
+
+            RangeReader reader = (s, n) -> derivedKeyCache.get(masterWalletID, chainID, DerivedKeyCache.Kind.PUBLIC_KEY,
+                    internal, s, n, (ds, dn) -> NativeCalls.call("SubWallet.GetPublicKeys",
+                            () -> subWallet.GetPublicKeys(ds, dn, internal)));
+            if (chunkSize > 0) {
+                streamRange(cc, start, count, chunkSize, reader);
+            } else {
+                cc.success(reader.read(start, count));
+            }
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Get " + formatWalletName(masterWalletID, chainID) + " all publickeys");
         }
@@ -1633,7 +2097,7 @@ public class Wallet extends CordovaPlugin {
     // args[3]: String outputs
     // args[4]: String fee
     // args[5]: String memo
-    public void createTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -1642,19 +2106,11 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            ElastosBaseSubWallet subWallet = (ElastosBaseSubWallet) getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
+            ElastosBaseSubWallet subWallet = args.elastosBaseSubWallet();
 
-            String tx = subWallet.CreateTransaction(inputs, outputs, fee, memo);
+            String tx = NativeCalls.call("SubWallet.CreateTransaction",
+                    () -> subWallet.CreateTransaction(inputs, outputs, fee, memo));
 
             cc.success(tx);
         } catch (WalletException e) {
@@ -1662,38 +2118,85 @@ public class Wallet extends CordovaPlugin {
         }
     }
 
+    // args[0]: JSONArray utxos, [{Address, Amount, TxHash, Index}, ...]
+    // args[1]: String amount, in SELA, sum of the outputs
+    // args[2]: long feePerKB, in SELA (optional, 10000)
+    // args[3]: int outputCount (optional, 1)
+    // args[4]: String strategy, "auto", "bnb" or "largestFirst" (optional, "auto")
+    // return: {inputs: String, fee: String, change: String, size: int, strategy: String},
+    //         inputs and fee as expected by createTransaction, change to add to its outputs if not "0"
+    public void selectCoins(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        JSONArray utxos = args.getJSONArray(idx++);
+        String amount = args.getString(idx++);
+        long feePerKB = args.getLong(idx++);
+        int outputCount = args.getInt(idx++);
+        String strategy = args.getString(idx++);
+
+        if (!CoinSelector.STRATEGY_AUTO.equals(strategy) && !CoinSelector.STRATEGY_BNB.equals(strategy)
+                && !CoinSelector.STRATEGY_LARGEST_FIRST.equals(strategy)) {
+            errorProcess(cc, errCodeInvalidArg, "Unknown coin selection strategy '" + strategy + "'");
+            return;
+        }
+
+        long value;
+        try {
+            value = Long.parseLong(amount);
+        } catch (NumberFormatException e) {
+            value = -1;
+        }
+        if (value <= 0 || feePerKB < 0 || outputCount < 1) {
+            errorProcess(cc, errCodeInvalidArg, "Invalid amount, fee rate or output count");
+            return;
+        }
+
+        CoinSelector selector;
+        try {
+            selector = new CoinSelector(utxos);
+        } catch (JSONException e) {
+            errorProcess(cc, errCodeInvalidArg, "Invalid UTXOs: " + e.getMessage());
+            return;
+        }
+
+        try {
+            CoinSelector.Selection selection = selector.select(value, feePerKB, outputCount, strategy);
+
+            JSONObject result = new JSONObject();
+            result.put("inputs", selector.inputs(selection));
+            result.put("fee", String.valueOf(selection.fee));
+            result.put("change", String.valueOf(selection.change));
+            result.put("size", selection.size);
+            result.put("strategy", selection.strategy);
+            cc.success(result);
+        } catch (CoinSelector.InsufficientFundsException e) {
+            errorProcess(cc, errCodeInsufficientFunds, e.getMessage());
+        }
+    }
+
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String rawTransaction
     // args[3]: String payPassword
     // return: String txJson
-    public void signTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void signTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String rawTransaction = args.getString(idx++);
         String payPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
+            SubWallet subWallet = args.subWallet();
 
-            String result = subWallet.SignTransaction(rawTransaction, payPassword);
+            String result = NativeCalls.call("SubWallet.SignTransaction",
+                    () -> subWallet.SignTransaction(rawTransaction, payPassword));
             cc.success(result);
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Sign " + formatWalletName(masterWalletID, chainID) + " transaction");
         }
     }
 
-    public void signDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void signDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -1701,25 +2204,112 @@ public class Wallet extends CordovaPlugin {
         String digest = args.getString(idx++);
         String payPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
+        try {
+            SubWallet subWallet = args.subWallet();
+            String result = NativeCalls.call("SubWallet.SignDigest",
+                    () -> subWallet.SignDigest(address, digest, payPassword));
+            cc.success(result);
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, IDChain) + " signDigest");
         }
+    }
+
+    private interface ItemSigner {
+        /**
+         * @return the encoded JSON of the signed item i.
+         */
+        String sign(int i) throws WalletException, JSONException;
+    }
 
+    /**
+     * Check the pay password once, then sign count items in parallel.
+     * Sends [{success: result} | {error: error}, ...] in items order.
+     */
+    private void signItems(CallbackContext cc, String masterWalletID, String chainID, String what, int count,
+                           String payPassword, ItemSigner signer) throws JSONException {
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
+            // A wrong password fails the whole call once, instead of once per item.
+            MasterWallet masterWallet = getIMasterWallet(masterWalletID);
+            NativeCalls.run("MasterWallet.VerifyPayPassword", () -> masterWallet.VerifyPayPassword(payPassword));
+
+            String[] results = new String[count];
+            ParallelLoop.run(executor, count, 1, i -> {
+                try {
+                    results[i] = "{\"success\":" + signer.sign(i) + "}";
+                } catch (WalletException e) {
+                    results[i] = "{\"error\":" + walletErrorJson(e, "Sign " + formatWalletName(masterWalletID, chainID)
+                            + " " + what + " " + i) + "}";
+                } catch (JSONException e) {
+                    JSONObject errJson = new JSONObject();
+                    errJson.put(keyCode, errCodeInvalidArg);
+                    errJson.put(keyMessage, "Invalid " + what + " " + i + ": " + e.getMessage());
+                    results[i] = "{\"error\":" + errJson + "}";
+                }
+            });
+
+            StringBuilder sb = new StringBuilder(256 * count + 2);
+            sb.append('[');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(results[i]);
             }
-            String result = subWallet.SignDigest(address, digest, payPassword);
-            cc.success(result);
+            sb.append(']');
+            cc.sendPluginResult(new PluginResult(PluginResult.Status.OK, new JsonResultContext.EncodedJSON(sb.toString())));
         } catch (WalletException e) {
-            exceptionProcess(e, cc, formatWalletName(masterWalletID, IDChain) + " signDigest");
+            exceptionProcess(e, cc, "Sign " + formatWalletName(masterWalletID, chainID) + " " + what + "s");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errorProcess(cc, errCodeActionRejected, "Signing of " + count + " " + what + "s interrupted");
         }
     }
 
-    public void verifyDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    // args[0]: String masterWalletID
+    // args[1]: String chainID
+    // args[2]: JSONArray rawTransactions, [String, ...]
+    // args[3]: String payPassword
+    // return: JSONArray [{success: txJson} | {error: error}, ...] in rawTransactions order
+    public void signTransactions(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
+        String chainID = args.getString(idx++);
+        JSONArray rawTransactions = args.getJSONArray(idx++);
+        String payPassword = args.getString(idx++);
+
+        SubWallet subWallet = args.subWallet();
+        boolean structured = s_structuredResults;
+        signItems(cc, masterWalletID, chainID, "transaction", rawTransactions.length(), payPassword, i -> {
+            String rawTransaction = rawTransactions.getString(i);
+            String result = NativeCalls.call("SubWallet.SignTransaction",
+                    () -> subWallet.SignTransaction(rawTransaction, payPassword));
+            return structured && JsonResultContext.isEncodedJson(result) ? result : JSONObject.quote(result);
+        });
+    }
+
+    // args[0]: String masterWalletID
+    // args[1]: String chainID
+    // args[2]: JSONArray digests, [{address: String, digest: String}, ...]
+    // args[3]: String payPassword
+    // return: JSONArray [{success: signature} | {error: error}, ...] in digests order
+    public void signDigests(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
+        String chainID = args.getString(idx++);
+        JSONArray digests = args.getJSONArray(idx++);
+        String payPassword = args.getString(idx++);
+
+        SubWallet subWallet = args.subWallet();
+        signItems(cc, masterWalletID, chainID, "digest", digests.length(), payPassword, i -> {
+            JSONObject item = digests.getJSONObject(i);
+            String address = item.getString("address");
+            String digest = item.getString("digest");
+            return JSONObject.quote(NativeCalls.call("SubWallet.SignDigest",
+                    () -> subWallet.SignDigest(address, digest, payPassword)));
+        });
+    }
+
+    public void verifyDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -1727,46 +2317,94 @@ public class Wallet extends CordovaPlugin {
         String digest = args.getString(idx++);
         String signature = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
+        try {
+            SubWallet subWallet = args.subWallet();
+            Boolean result = NativeCalls.call("SubWallet.VerifyDigest",
+                    () -> subWallet.VerifyDigest(publicKey, digest, signature));
+            cc.success(result.toString());
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, IDChain) + " verifyDigest");
         }
+    }
+
+    private interface ItemVerifier {
+        boolean verify(JSONObject item) throws WalletException, JSONException;
+    }
+
+    /**
+     * Verify the items in parallel and send {count, bits}, bits being the hex string of a
+     * bitset where bit i, (byte i / 8) >> (i % 8) & 1, is set if item i verified.
+     * Items which are malformed or make spvcore throw do not verify.
+     */
+    private void verifyItems(CallbackContext cc, JSONArray items, ItemVerifier verifier) throws JSONException {
+        int count = items.length();
+        byte[] bits = new byte[(count + 7) / 8];
+        boolean[] valid = new boolean[count];
 
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
+            ParallelLoop.run(executor, count, 8, i -> {
+                try {
+                    valid[i] = verifier.verify(items.getJSONObject(i));
+                } catch (WalletException | JSONException e) {
+                    valid[i] = false;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errorProcess(cc, errCodeActionRejected, "Verification of " + count + " signatures interrupted");
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (valid[i]) {
+                bits[i >> 3] |= 1 << (i & 7);
             }
-            String result = subWallet.SignDigest(publicKey, digest, signature);
-            cc.success(result);
-        } catch (WalletException e) {
-            exceptionProcess(e, cc, formatWalletName(masterWalletID, IDChain) + " verifyDigest");
         }
+        StringBuilder hex = new StringBuilder(bits.length * 2);
+        for (byte b : bits) {
+            hex.append(Character.forDigit((b >> 4) & 0x0f, 16)).append(Character.forDigit(b & 0x0f, 16));
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("count", count);
+        result.put("bits", hex.toString());
+        cc.success(result);
+    }
+
+    // args[0]: String masterWalletID
+    // args[1]: String chainID
+    // args[2]: JSONArray items, [{publicKey: String, digest: String, signature: String}, ...]
+    // return: {count, bits}, see verifyItems()
+    public void verifyDigests(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
+        String chainID = args.getString(idx++);
+        JSONArray items = args.getJSONArray(idx++);
+
+        SubWallet subWallet = args.subWallet();
+        verifyItems(cc, items, item -> {
+            String publicKey = item.getString("publicKey");
+            String digest = item.getString("digest");
+            String signature = item.getString("signature");
+            return NativeCalls.call("SubWallet.VerifyDigest",
+                    () -> subWallet.VerifyDigest(publicKey, digest, signature));
+        });
     }
 
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String txJson
-    public void getTransactionSignedInfo(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getTransactionSignedInfo(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String rawTxJson = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            ElastosBaseSubWallet subWallet = (ElastosBaseSubWallet) getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
+            ElastosBaseSubWallet subWallet = args.elastosBaseSubWallet();
 
-            String resultJson = subWallet.GetTransactionSignedInfo(rawTxJson);
+            String resultJson = NativeCalls.call("SubWallet.GetTransactionSignedInfo",
+                    () -> subWallet.GetTransactionSignedInfo(rawTxJson));
             cc.success(resultJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Get " + formatWalletName(masterWalletID, chainID) + " tx signed info");
@@ -1776,25 +2414,17 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String txJson
-    public void convertToRawTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void convertToRawTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String txJson = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            ElastosBaseSubWallet subWallet = (ElastosBaseSubWallet) getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
+            ElastosBaseSubWallet subWallet = args.elastosBaseSubWallet();
 
-            String result = subWallet.ConvertToRawTransaction(txJson);
+            String result = NativeCalls.call("SubWallet.ConvertToRawTransaction",
+                    () -> subWallet.ConvertToRawTransaction(txJson));
             cc.success(result);
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Convert " + formatWalletName(masterWalletID, chainID) + " To Raw Transactions");
@@ -1807,65 +2437,42 @@ public class Wallet extends CordovaPlugin {
     // args[3]: String payloadJson
     // args[4]: String memo
     // args[5]: String fee  [option]
-    public void createIdTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createIdTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String inputs = args.getString(idx++);
         String payloadJson = args.getString(idx++);
         String memo = args.getString(idx++);
-        String fee = args.isNull(idx) ? "10000" : args.getString(idx);
+        String fee = args.getString(idx++);
 
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
+            IDChainSubWallet idchainSubWallet = args.idChainSubWallet();
 
-            if (!(subWallet instanceof IDChainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + "' is not instance of IDChainSubWallet");
-                return;
-            }
-
-            IDChainSubWallet idchainSubWallet = (IDChainSubWallet) subWallet;
-
-            cc.success(idchainSubWallet.CreateIDTransaction(inputs, payloadJson, memo, fee));
+            cc.success(NativeCalls.call("IDChainSubWallet.CreateIDTransaction",
+                    () -> idchainSubWallet.CreateIDTransaction(inputs, payloadJson, memo, fee)));
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create ID transaction");
         }
     }
 
-    private IDChainSubWallet getIDChainSubWallet(String masterWalletID) {
-        SubWallet subWallet = getSubWallet(masterWalletID, IDChain);
-
-        if ((subWallet instanceof IDChainSubWallet)) {
-            return (IDChainSubWallet) subWallet;
-        }
-        return null;
-
-    }
-
-    public void getDID(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getDID(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         int start = args.getInt(idx++);
         int count = args.getInt(idx++);
         boolean internal = args.getBoolean(idx++);
-
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
+        int chunkSize = args.getInt(idx++);
 
         try {
-            IDChainSubWallet idChainSubWallet = getIDChainSubWallet(masterWalletID);
-            if (idChainSubWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, IDChain));
+            IDChainSubWallet idChainSubWallet = args.idChainSubWallet();
+            if (chunkSize > 0) {
+                streamRange(cc, start, count, chunkSize, (s, n) -> NativeCalls.call("IDChainSubWallet.GetDID",
+                        () -> idChainSubWallet.GetDID(s, n, internal)));
                 return;
             }
-            String did = idChainSubWallet.GetDID(start, count, internal);
+            String did = NativeCalls.call("IDChainSubWallet.GetDID",
+                    () -> idChainSubWallet.GetDID(start, count, internal));
 
             cc.success(did);
         } catch (WalletException e) {
@@ -1873,25 +2480,23 @@ public class Wallet extends CordovaPlugin {
         }
     }
 
-    public void getCID(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getCID(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         int start = args.getInt(idx++);
         int count = args.getInt(idx++);
         boolean internal = args.getBoolean(idx++);
-
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
+        int chunkSize = args.getInt(idx++);
 
         try {
-            IDChainSubWallet idChainSubWallet = getIDChainSubWallet(masterWalletID);
-            if (idChainSubWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, IDChain));
+            IDChainSubWallet idChainSubWallet = args.idChainSubWallet();
+            if (chunkSize > 0) {
+                streamRange(cc, start, count, chunkSize, (s, n) -> NativeCalls.call("IDChainSubWallet.GetCID",
+                        () -> idChainSubWallet.GetCID(s, n, internal)));
                 return;
             }
-            String did = idChainSubWallet.GetCID(start, count, internal);
+            String did = NativeCalls.call("IDChainSubWallet.GetCID",
+                    () -> idChainSubWallet.GetCID(start, count, internal));
 
             cc.success(did);
         } catch (WalletException e) {
@@ -1899,96 +2504,82 @@ public class Wallet extends CordovaPlugin {
         }
     }
 
-    public void didSign(JSONArray args, CallbackContext cc) throws JSONException {
+    public void didSign(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String did = args.getString(idx++);
         String message = args.getString(idx++);
         String payPassword = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            IDChainSubWallet idChainSubWallet = getIDChainSubWallet(masterWalletID);
-            if (idChainSubWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, IDChain));
-                return;
-            }
-            String result = idChainSubWallet.Sign(did, message, payPassword);
+            IDChainSubWallet idChainSubWallet = args.idChainSubWallet();
+            String result = NativeCalls.call("IDChainSubWallet.Sign",
+                    () -> idChainSubWallet.Sign(did, message, payPassword));
             cc.success(result);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, IDChain) + " didSign");
         }
     }
 
-    public void verifySignature(JSONArray args, CallbackContext cc) throws JSONException {
+    public void verifySignature(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String publicKey = args.getString(idx++);
         String message = args.getString(idx++);
         String signature = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            IDChainSubWallet idChainSubWallet = getIDChainSubWallet(masterWalletID);
-            if (idChainSubWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, IDChain));
-                return;
-            }
-            Boolean result = idChainSubWallet.VerifySignature(publicKey, message, signature);
+            IDChainSubWallet idChainSubWallet = args.idChainSubWallet();
+            Boolean result = NativeCalls.call("IDChainSubWallet.VerifySignature",
+                    () -> idChainSubWallet.VerifySignature(publicKey, message, signature));
             cc.success(result.toString());
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, IDChain) + " verifySignature");
         }
     }
 
-    public void getPublicKeyDID(JSONArray args, CallbackContext cc) throws JSONException {
+    // args[0]: String masterWalletID
+    // args[1]: JSONArray items, [{publicKey: String, message: String, signature: String}, ...]
+    // return: {count, bits}, see verifyItems()
+    public void verifySignatures(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
-        String pubkey = args.getString(idx++);
+        JSONArray items = args.getJSONArray(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
+        IDChainSubWallet idChainSubWallet = args.idChainSubWallet();
+        verifyItems(cc, items, item -> {
+            String publicKey = item.getString("publicKey");
+            String message = item.getString("message");
+            String signature = item.getString("signature");
+            return NativeCalls.call("IDChainSubWallet.VerifySignature",
+                    () -> idChainSubWallet.VerifySignature(publicKey, message, signature));
+        });
+    }
+
+    public void getPublicKeyDID(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
+        String pubkey = args.getString(idx++);
 
         try {
-            IDChainSubWallet idChainSubWallet = getIDChainSubWallet(masterWalletID);
-            if (idChainSubWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, IDChain));
-                return;
-            }
-            String did = idChainSubWallet.GetPublicKeyDID(pubkey);
+            IDChainSubWallet idChainSubWallet = args.idChainSubWallet();
+            String did = NativeCalls.call("IDChainSubWallet.GetPublicKeyDID",
+                    () -> idChainSubWallet.GetPublicKeyDID(pubkey));
             cc.success(did);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, IDChain) + " GetPublicKeyDID");
         }
     }
 
-    public void getPublicKeyCID(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getPublicKeyCID(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String pubkey = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            IDChainSubWallet idChainSubWallet = getIDChainSubWallet(masterWalletID);
-            if (idChainSubWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, IDChain));
-                return;
-            }
-            String did = idChainSubWallet.GetPublicKeyCID(pubkey);
+            IDChainSubWallet idChainSubWallet = args.idChainSubWallet();
+            String did = NativeCalls.call("IDChainSubWallet.GetPublicKeyCID",
+                    () -> idChainSubWallet.GetPublicKeyCID(pubkey));
             cc.success(did);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, IDChain) + " GetPublicKeyCID");
@@ -2004,7 +2595,7 @@ public class Wallet extends CordovaPlugin {
     // args[6]: int gasPriceUnit
     // args[7]: String gasLimit
     // args[8]: long nonce
-    public void createTransfer(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createTransfer(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2016,18 +2607,11 @@ public class Wallet extends CordovaPlugin {
         String gasLimit = args.getString(idx++);
         long nonce = args.getLong(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            EthSidechainSubWallet ethscSubWallet = getEthSidechainSubWallet(masterWalletID, chainID);
-            if (ethscSubWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-            cc.success(ethscSubWallet.CreateTransfer(targetAddress, amount, amountUnit, gasPrice, gasPriceUnit, gasLimit, nonce));
+            EthSidechainSubWallet ethscSubWallet = args.ethSidechainSubWallet();
+            cc.success(NativeCalls.call("EthSidechainSubWallet.CreateTransfer",
+                    () -> ethscSubWallet.CreateTransfer(targetAddress, amount, amountUnit, gasPrice, gasPriceUnit,
+                            gasLimit, nonce)));
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create transfer");
         }
@@ -2042,7 +2626,7 @@ public class Wallet extends CordovaPlugin {
     // args[6]: String gasLimit
     // args[7]: String data
     // args[8]: int nonce
-    public void createTransferGeneric(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createTransferGeneric(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2055,45 +2639,183 @@ public class Wallet extends CordovaPlugin {
         String data = args.getString(idx++);
         long nonce = args.getLong(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
+        try {
+            EthSidechainSubWallet ethscSubWallet = args.ethSidechainSubWallet();
+            cc.success(NativeCalls.call("EthSidechainSubWallet.CreateTransferGeneric",
+                    () -> ethscSubWallet.CreateTransferGeneric(targetAddress, amount, amountUnit, gasPrice,
+                            gasPriceUnit, gasLimit, data, nonce)));
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create transfer generic");
+        }
+    }
+
+    // args[0]: String masterWalletID
+    // args[1]: String chainID
+    // args[2]: String contractAddress
+    // args[3]: String method, signature as "transfer(address,uint256)", or transfer, approve or transferFrom
+    // args[4]: JSONArray values, one per method parameter
+    // args[5]: String amount
+    // args[6]: int amountUnit
+    // args[7]: String gasPrice
+    // args[8]: int gasPriceUnit
+    // args[9]: String gasLimit
+    // args[10]: long nonce
+    public void createContractCall(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
+        String chainID = args.getString(idx++);
+        String contractAddress = args.getString(idx++);
+        String method = args.getString(idx++);
+        JSONArray values = args.getJSONArray(idx++);
+        String amount = args.getString(idx++);
+        int amountUnit = args.getInt(idx++);
+        String gasPrice = args.getString(idx++);
+        int gasPriceUnit = args.getInt(idx++);
+        String gasLimit = args.getString(idx++);
+        long nonce = args.getLong(idx++);
+
+        String data;
+        try {
+            data = AbiEncoder.encode(method, values);
+        } catch (AbiEncoder.AbiException | JSONException e) {
+            errorProcess(cc, errCodeInvalidArg, "Encode " + method + " call: " + e.getMessage());
             return;
         }
 
         try {
-            EthSidechainSubWallet ethscSubWallet = getEthSidechainSubWallet(masterWalletID, chainID);
-            if (ethscSubWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
+            EthSidechainSubWallet ethscSubWallet = args.ethSidechainSubWallet();
+            cc.success(NativeCalls.call("EthSidechainSubWallet.CreateTransferGeneric",
+                    () -> ethscSubWallet.CreateTransferGeneric(contractAddress, amount, amountUnit, gasPrice,
+                            gasPriceUnit, gasLimit, data, nonce)));
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create contract call");
+        }
+    }
+
+    // args[0]: String method, signature as "transfer(address,uint256)", or transfer, approve or transferFrom
+    // args[1]: JSONArray values, one per method parameter
+    // return: String data, 0x prefixed hex call data for createTransferGeneric
+    public void encodeCallData(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String method = args.getString(idx++);
+        JSONArray values = args.getJSONArray(idx++);
+
+        try {
+            cc.success(AbiEncoder.encode(method, values));
+        } catch (AbiEncoder.AbiException | JSONException e) {
+            errorProcess(cc, errCodeInvalidArg, "Encode " + method + " call: " + e.getMessage());
+        }
+    }
+
+    private String nonceAddress(ActionArgs args, String masterWalletID, String chainID) throws WalletException,
+            JSONException {
+        EthSidechainSubWallet ethscSubWallet = args.ethSidechainSubWallet();
+        return nonceAllocator.address(masterWalletID, chainID, () -> NativeCalls.call(
+                "EthSidechainSubWallet.GetAddresses", () -> ethscSubWallet.GetAddresses(0, 1, false)));
+    }
+
+    // args[0]: String masterWalletID
+    // args[1]: String chainID
+    // args[2]: long networkNonce [option], nonce the network expects next, needed for the first reservation
+    // return: {address: String, nonce: long}
+    public void reserveNonce(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
+        String chainID = args.getString(idx++);
+        long networkNonce = args.getLong(idx++);
+
+        try {
+            String address = nonceAddress(args, masterWalletID, chainID);
+            long nonce = nonceAllocator.reserve(masterWalletID, chainID, address, networkNonce);
+
+            JSONObject result = new JSONObject();
+            result.put("address", address);
+            result.put("nonce", nonce);
+            cc.success(result);
+        } catch (NonceAllocator.NonceException e) {
+            errorProcess(cc, errCodeNonceUnavailable, e.getMessage());
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " reserve nonce");
+        }
+    }
+
+    // args[0]: String masterWalletID
+    // args[1]: String chainID
+    // args[2]: long nonce, reserved by reserveNonce and used by a published transaction
+    public void commitNonce(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
+        String chainID = args.getString(idx++);
+        long nonce = args.getLong(idx++);
+
+        try {
+            String address = nonceAddress(args, masterWalletID, chainID);
+            if (!nonceAllocator.commit(masterWalletID, chainID, address, nonce)) {
+                errorProcess(cc, errCodeInvalidArg, "Nonce " + nonce + " of " + address + " is not reserved");
                 return;
             }
-            cc.success(ethscSubWallet.CreateTransferGeneric(targetAddress, amount, amountUnit, gasPrice, gasPriceUnit, gasLimit, data, nonce));
+            cc.success("");
         } catch (WalletException e) {
-            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create transfer generic");
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " commit nonce");
         }
     }
 
     // args[0]: String masterWalletID
     // args[1]: String chainID
-    // args[1]: String payPassword
-    public void exportETHSCPrivateKey(JSONArray args, CallbackContext cc) throws JSONException {
+    // args[2]: long nonce, reserved by reserveNonce and not used by a published transaction
+    public void releaseNonce(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
-        String password = args.getString(idx++);
+        long nonce = args.getLong(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
+        try {
+            String address = nonceAddress(args, masterWalletID, chainID);
+            if (!nonceAllocator.release(masterWalletID, chainID, address, nonce)) {
+                errorProcess(cc, errCodeInvalidArg, "Nonce " + nonce + " of " + address + " is not reserved");
+                return;
+            }
+            cc.success("");
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " release nonce");
         }
+    }
+
+    // args[0]: String masterWalletID
+    // args[1]: String chainID
+    // return: {next, reserved: [nonce, ...], released: [nonce, ...]}, or null before the first reservation
+    public void getNonceState(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
+        String chainID = args.getString(idx++);
 
         try {
-            EthSidechainSubWallet ethscSubWallet = getEthSidechainSubWallet(masterWalletID, chainID);
-            if (ethscSubWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
+            String address = nonceAddress(args, masterWalletID, chainID);
+            JSONObject state = nonceAllocator.getState(masterWalletID, chainID, address);
+            if (state != null) {
+                cc.success(state);
+            } else {
+                cc.sendPluginResult(new PluginResult(PluginResult.Status.OK, new JsonResultContext.EncodedJSON("null")));
             }
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " get nonce state");
+        }
+    }
+
+    // args[0]: String masterWalletID
+    // args[1]: String chainID
+    // args[1]: String payPassword
+    public void exportETHSCPrivateKey(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
+        String chainID = args.getString(idx++);
+        String password = args.getString(idx++);
+
+        try {
+            EthSidechainSubWallet ethscSubWallet = args.ethSidechainSubWallet();
 
-            String privatekey = ethscSubWallet.ExportPrivateKey(password);
+            String privatekey = NativeCalls.call("EthSidechainSubWallet.ExportPrivateKey",
+                    () -> ethscSubWallet.ExportPrivateKey(password));
 
             cc.success(privatekey);
         } catch (WalletException e) {
@@ -2113,7 +2835,7 @@ public class Wallet extends CordovaPlugin {
     // args[7]: String lockAddress
     // args[8]: String fee
     // args[9]: String memo
-    public void createDepositTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createDepositTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2126,27 +2848,11 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateDepositTransaction(version, inputs, sideChainID, amount,
-                    sideChainAddress, lockAddress, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateDepositTransaction",
+                    () -> mainchainSubWallet.CreateDepositTransaction(version, inputs, sideChainID, amount,
+                            sideChainAddress, lockAddress, fee, memo));
 
             cc.success(txJson);
         } catch (WalletException e) {
@@ -2162,7 +2868,7 @@ public class Wallet extends CordovaPlugin {
     // args[3]: String votes JSONObject
     // args[4]: String fee
     // args[5]: String memo
-    public void createVoteTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createVoteTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2171,26 +2877,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateVoteTransaction(inputs, voteContents, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateVoteTransaction",
+                    () -> mainchainSubWallet.CreateVoteTransaction(inputs, voteContents, fee, memo));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create vote transaction");
@@ -2208,7 +2898,7 @@ public class Wallet extends CordovaPlugin {
     // args[6]: String IPAddress
     // args[7]: long location
     // args[8]: String payPasswd
-    public void generateProducerPayload(JSONArray args, CallbackContext cc) throws JSONException {
+    public void generateProducerPayload(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2220,27 +2910,11 @@ public class Wallet extends CordovaPlugin {
         long location = args.getLong(idx++);
         String payPasswd = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String payloadJson = mainchainSubWallet.GenerateProducerPayload(publicKey, nodePublicKey, nickName, url,
-                    IPAddress, location, payPasswd);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String payloadJson = NativeCalls.call("MainchainSubWallet.GenerateProducerPayload",
+                    () -> mainchainSubWallet.GenerateProducerPayload(publicKey, nodePublicKey, nickName, url,
+                            IPAddress, location, payPasswd));
             cc.success(payloadJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " generate producer payload");
@@ -2251,33 +2925,17 @@ public class Wallet extends CordovaPlugin {
     // args[1]: String chainID
     // args[2]: String publicKey
     // args[3]: String payPasswd
-    public void generateCancelProducerPayload(JSONArray args, CallbackContext cc) throws JSONException {
+    public void generateCancelProducerPayload(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String publicKey = args.getString(idx++);
         String payPasswd = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String payloadJson = mainchainSubWallet.GenerateCancelProducerPayload(publicKey, payPasswd);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String payloadJson = NativeCalls.call("MainchainSubWallet.GenerateCancelProducerPayload",
+                    () -> mainchainSubWallet.GenerateCancelProducerPayload(publicKey, payPasswd));
             cc.success(payloadJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " generate cancel producer payload");
@@ -2290,7 +2948,7 @@ public class Wallet extends CordovaPlugin {
     // args[3]: String payloadJson
     // args[4]: String amount
     // args[5]: String memo
-    public void createRegisterProducerTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createRegisterProducerTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2300,27 +2958,11 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateRegisterProducerTransaction(inputs, payloadJson, amount,
-                    fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateRegisterProducerTransaction",
+                    () -> mainchainSubWallet.CreateRegisterProducerTransaction(inputs, payloadJson, amount,
+                            fee, memo));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create register producer transaction");
@@ -2332,7 +2974,7 @@ public class Wallet extends CordovaPlugin {
     // args[2]: String inputs
     // args[3]: String payloadJson
     // args[4]: String memo
-    public void createUpdateProducerTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createUpdateProducerTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2341,26 +2983,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateUpdateProducerTransaction(inputs, payloadJson, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateUpdateProducerTransaction",
+                    () -> mainchainSubWallet.CreateUpdateProducerTransaction(inputs, payloadJson, fee, memo));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create update producer transaction");
@@ -2372,7 +2998,7 @@ public class Wallet extends CordovaPlugin {
     // args[2]: String inputs
     // args[3]: String payloadJson
     // args[4]: String memo
-    public void createCancelProducerTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createCancelProducerTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2381,26 +3007,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateCancelProducerTransaction(inputs, payloadJson, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateCancelProducerTransaction",
+                    () -> mainchainSubWallet.CreateCancelProducerTransaction(inputs, payloadJson, fee, memo));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create cancel producer transaction");
@@ -2411,7 +3021,7 @@ public class Wallet extends CordovaPlugin {
     // args[1]: String chainID
     // args[2]: String amount
     // args[3]: String memo
-    public void createRetrieveDepositTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createRetrieveDepositTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2420,26 +3030,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateRetrieveDepositTransaction(inputs, amount, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateRetrieveDepositTransaction",
+                    () -> mainchainSubWallet.CreateRetrieveDepositTransaction(inputs, amount, fee, memo));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create retrieve deposit transaction");
@@ -2448,64 +3042,32 @@ public class Wallet extends CordovaPlugin {
 
     // args[0]: String masterWalletID
     // args[1]: String chainID
-    public void getOwnerPublicKey(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getOwnerPublicKey(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
+        try {
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String publicKey = NativeCalls.call("MainchainSubWallet.GetOwnerPublicKey",
+                    () -> mainchainSubWallet.GetOwnerPublicKey());
+            cc.success(publicKey);
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " get public key for vote");
         }
-
-        try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String publicKey = mainchainSubWallet.GetOwnerPublicKey();
-            cc.success(publicKey);
-        } catch (WalletException e) {
-            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " get public key for vote");
-        }
-    }
+    }
 
     // args[0]: String masterWalletID
     // args[1]: String chainID
-    public void getOwnerAddress(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getOwnerAddress(ActionArgs args, CallbackContext cc) throws JSONException {
       int idx = 0;
       String masterWalletID = args.getString(idx++);
       String chainID = args.getString(idx++);
 
-      if (args.length() != idx) {
-          errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-          return;
-      }
-
       try {
-          SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-          if (subWallet == null) {
-              errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-              return;
-          }
-
-          if (!(subWallet instanceof MainchainSubWallet)) {
-              errorProcess(cc, errCodeSubWalletInstance,
-                      formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-              return;
-          }
-
-          MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-          String address = mainchainSubWallet.GetOwnerAddress();
+          MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+          String address = NativeCalls.call("MainchainSubWallet.GetOwnerAddress",
+                  () -> mainchainSubWallet.GetOwnerAddress());
           cc.success(address);
       } catch (WalletException e) {
           exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " get owner address");
@@ -2514,31 +3076,15 @@ public class Wallet extends CordovaPlugin {
 
     // args[0]: String masterWalletID
     // args[1]: String chainID
-    public void getOwnerDepositAddress(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getOwnerDepositAddress(ActionArgs args, CallbackContext cc) throws JSONException {
       int idx = 0;
       String masterWalletID = args.getString(idx++);
       String chainID = args.getString(idx++);
 
-      if (args.length() != idx) {
-          errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-          return;
-      }
-
       try {
-          SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-          if (subWallet == null) {
-              errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-              return;
-          }
-
-          if (!(subWallet instanceof MainchainSubWallet)) {
-              errorProcess(cc, errCodeSubWalletInstance,
-                      formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-              return;
-          }
-
-          MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-          String address = mainchainSubWallet.GetOwnerDepositAddress();
+          MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+          String address = NativeCalls.call("MainchainSubWallet.GetOwnerDepositAddress",
+                  () -> mainchainSubWallet.GetOwnerDepositAddress());
           cc.success(address);
       } catch (WalletException e) {
           exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " get owner deposit address");
@@ -2549,31 +3095,15 @@ public class Wallet extends CordovaPlugin {
 
     // args[0]: String masterWalletID
     // args[1]: String chainID
-    public void getCRDepositAddress(JSONArray args, CallbackContext cc) throws JSONException {
+    public void getCRDepositAddress(ActionArgs args, CallbackContext cc) throws JSONException {
       int idx = 0;
       String masterWalletID = args.getString(idx++);
       String chainID = args.getString(idx++);
 
-      if (args.length() != idx) {
-          errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-          return;
-      }
-
       try {
-          SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-          if (subWallet == null) {
-              errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-              return;
-          }
-
-          if (!(subWallet instanceof MainchainSubWallet)) {
-              errorProcess(cc, errCodeSubWalletInstance,
-                      formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-              return;
-          }
-
-          MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-          String address = mainchainSubWallet.GetCRDepositAddress();
+          MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+          String address = NativeCalls.call("MainchainSubWallet.GetCRDepositAddress",
+                  () -> mainchainSubWallet.GetCRDepositAddress());
           cc.success(address);
       } catch (WalletException e) {
           exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " get owner deposit address");
@@ -2587,7 +3117,7 @@ public class Wallet extends CordovaPlugin {
     // args[4]: String nickName
     // args[5]: String url
     // args[6]: long location
-    public void generateCRInfoPayload(JSONArray args, CallbackContext cc) throws JSONException {
+    public void generateCRInfoPayload(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2597,26 +3127,10 @@ public class Wallet extends CordovaPlugin {
         String url = args.getString(idx++);
         long location = args.getLong(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String payloadJson = mainchainSubWallet.GenerateCRInfoPayload(crPublicKey, did, nickName, url, location);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String payloadJson = NativeCalls.call("MainchainSubWallet.GenerateCRInfoPayload",
+                    () -> mainchainSubWallet.GenerateCRInfoPayload(crPublicKey, did, nickName, url, location));
             cc.success(payloadJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " generate CR Info payload");
@@ -2626,32 +3140,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID (only main chain ID 'ELA')
     // args[2]: String CID
-    public void generateUnregisterCRPayload(JSONArray args, CallbackContext cc) throws JSONException {
+    public void generateUnregisterCRPayload(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String did = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String payloadJson = mainchainSubWallet.GenerateUnregisterCRPayload(did);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String payloadJson = NativeCalls.call("MainchainSubWallet.GenerateUnregisterCRPayload",
+                    () -> mainchainSubWallet.GenerateUnregisterCRPayload(did));
             cc.success(payloadJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " generate unregister CR payload");
@@ -2664,7 +3162,7 @@ public class Wallet extends CordovaPlugin {
     // args[3]: String payloadJSON
     // args[4]: String amount
     // args[5]: String memo
-    public void createRegisterCRTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createRegisterCRTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2674,27 +3172,11 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateRegisterCRTransaction(inputs, payloadJson, amount,
-                    fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateRegisterCRTransaction",
+                    () -> mainchainSubWallet.CreateRegisterCRTransaction(inputs, payloadJson, amount,
+                            fee, memo));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create register CR transaction");
@@ -2706,7 +3188,7 @@ public class Wallet extends CordovaPlugin {
     // args[2]: String inputs
     // args[3]: String payloadJSON
     // args[4]: String memo
-    public void createUpdateCRTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createUpdateCRTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2715,26 +3197,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateUpdateCRTransaction(inputs, payloadJson, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateUpdateCRTransaction",
+                    () -> mainchainSubWallet.CreateUpdateCRTransaction(inputs, payloadJson, fee, memo));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create update CR transaction");
@@ -2746,7 +3212,7 @@ public class Wallet extends CordovaPlugin {
     // args[2]: String inputs
     // args[3]: String payloadJSON
     // args[4]: String memo
-    public void createUnregisterCRTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createUnregisterCRTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2755,26 +3221,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateUnregisterCRTransaction(inputs, payloadJson, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateUnregisterCRTransaction",
+                    () -> mainchainSubWallet.CreateUnregisterCRTransaction(inputs, payloadJson, fee, memo));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create unregister CR transaction");
@@ -2786,7 +3236,7 @@ public class Wallet extends CordovaPlugin {
     // args[2]: String inputs
     // args[3]: String fee
     // args[4]: String memo
-    public void createRetrieveCRDepositTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createRetrieveCRDepositTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2795,26 +3245,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateRetrieveCRDepositTransaction(inputs, amount, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateRetrieveCRDepositTransaction",
+                    () -> mainchainSubWallet.CreateRetrieveCRDepositTransaction(inputs, amount, fee, memo));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create retrieve CR deposit transaction");
@@ -2825,32 +3259,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID (only main chain ID 'ELA')
     // args[2]: String payload
-    public void CRCouncilMemberClaimNodeDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void CRCouncilMemberClaimNodeDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CRCouncilMemberClaimNodeDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CRCouncilMemberClaimNodeDigest",
+                    () -> mainchainSubWallet.CRCouncilMemberClaimNodeDigest(payload));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " CRCouncilMember claim node digest");
@@ -2861,7 +3279,7 @@ public class Wallet extends CordovaPlugin {
     // args[1]: String chainID (only main chain ID 'ELA')
     // args[2]: String payload
     // args[3]: String memo
-    public void createCRCouncilMemberClaimNodeTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createCRCouncilMemberClaimNodeTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -2870,26 +3288,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String txJson = mainchainSubWallet.CreateCRCouncilMemberClaimNodeTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String txJson = NativeCalls.call("MainchainSubWallet.CreateCRCouncilMemberClaimNodeTransaction",
+                    () -> mainchainSubWallet.CreateCRCouncilMemberClaimNodeTransaction(inputs, payload, fee, memo));
             cc.success(txJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " create CRCouncilMember claim node digest transaction");
@@ -2902,32 +3304,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String payload
-    public void proposalOwnerDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalOwnerDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalOwnerDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ProposalOwnerDigest",
+                    () -> mainchainSubWallet.ProposalOwnerDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " ProposalOwnerDigest");
@@ -2937,32 +3323,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String payload
-    public void proposalCRCouncilMemberDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalCRCouncilMemberDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalCRCouncilMemberDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ProposalCRCouncilMemberDigest",
+                    () -> mainchainSubWallet.ProposalCRCouncilMemberDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " ProposalCRCouncilMemberDigest");
@@ -2972,32 +3342,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String payload
-    public void calculateProposalHash(JSONArray args, CallbackContext cc) throws JSONException {
+    public void calculateProposalHash(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CalculateProposalHash(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CalculateProposalHash",
+                    () -> mainchainSubWallet.CalculateProposalHash(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " CalculateProposalHash");
@@ -3008,7 +3362,7 @@ public class Wallet extends CordovaPlugin {
     // args[1]: String chainID
     // args[2]: String crSignedProposal
     // args[3]: String memo
-    public void createProposalTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createProposalTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -3017,26 +3371,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateProposalTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateProposalTransaction",
+                    () -> mainchainSubWallet.CreateProposalTransaction(inputs, payload, fee, memo));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " CreateCRCProposalTransaction");
@@ -3046,32 +3384,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String payload
-    public void proposalReviewDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalReviewDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalReviewDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ProposalReviewDigest",
+                    () -> mainchainSubWallet.ProposalReviewDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " ProposalReviewDigest");
@@ -3082,7 +3404,7 @@ public class Wallet extends CordovaPlugin {
     // args[1]: String chainID
     // args[2]: String payload
     // args[3]: String memo
-    public void createProposalReviewTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createProposalReviewTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -3091,26 +3413,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateProposalReviewTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateProposalReviewTransaction",
+                    () -> mainchainSubWallet.CreateProposalReviewTransaction(inputs, payload, fee, memo));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " createProposalReviewTransaction");
@@ -3122,32 +3428,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String payload
-    public void proposalTrackingOwnerDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalTrackingOwnerDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalTrackingOwnerDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ProposalTrackingOwnerDigest",
+                    () -> mainchainSubWallet.ProposalTrackingOwnerDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " proposalTrackingOwnerDigest");
@@ -3157,32 +3447,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String payload
-    public void proposalTrackingNewOwnerDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalTrackingNewOwnerDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalTrackingNewOwnerDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ProposalTrackingNewOwnerDigest",
+                    () -> mainchainSubWallet.ProposalTrackingNewOwnerDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " proposalTrackingNewOwnerDigest");
@@ -3192,32 +3466,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String payload
-    public void proposalTrackingSecretaryDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalTrackingSecretaryDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalTrackingSecretaryDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ProposalTrackingSecretaryDigest",
+                    () -> mainchainSubWallet.ProposalTrackingSecretaryDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " proposalTrackingSecretaryDigest");
@@ -3228,7 +3486,7 @@ public class Wallet extends CordovaPlugin {
     // args[1]: String chainID
     // args[2]: String leaderSignedProposalTracking
     // args[3]: String memo
-    public void createProposalTrackingTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createProposalTrackingTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -3237,26 +3495,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateProposalTrackingTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateProposalTrackingTransaction",
+                    () -> mainchainSubWallet.CreateProposalTrackingTransaction(inputs, payload, fee, memo));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " CreateProposalTrackingTransaction");
@@ -3267,71 +3509,40 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String payload Proposal payload.
-    public void proposalSecretaryGeneralElectionDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalSecretaryGeneralElectionDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalSecretaryGeneralElectionDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ProposalSecretaryGeneralElectionDigest",
+                    () -> mainchainSubWallet.ProposalSecretaryGeneralElectionDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " proposalSecretaryGeneralElectionDigest");
         }
     }
 
-    public void proposalSecretaryGeneralElectionCRCouncilMemberDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalSecretaryGeneralElectionCRCouncilMemberDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalSecretaryGeneralElectionCRCouncilMemberDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call(
+                    "MainchainSubWallet.ProposalSecretaryGeneralElectionCRCouncilMemberDigest",
+                    () -> mainchainSubWallet.ProposalSecretaryGeneralElectionCRCouncilMemberDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " proposalSecretaryGeneralElectionCRCouncilMemberDigest");
         }
     }
 
-    public void createSecretaryGeneralElectionTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createSecretaryGeneralElectionTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -3340,26 +3551,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateSecretaryGeneralElectionTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateSecretaryGeneralElectionTransaction",
+                    () -> mainchainSubWallet.CreateSecretaryGeneralElectionTransaction(inputs, payload, fee, memo));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " createSecretaryGeneralElectionTransaction");
@@ -3367,71 +3562,39 @@ public class Wallet extends CordovaPlugin {
     }
 
     // -- Proposal Change Owner
-    public void proposalChangeOwnerDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalChangeOwnerDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalChangeOwnerDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ProposalChangeOwnerDigest",
+                    () -> mainchainSubWallet.ProposalChangeOwnerDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " proposalChangeOwnerDigest");
         }
     }
 
-    public void proposalChangeOwnerCRCouncilMemberDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalChangeOwnerCRCouncilMemberDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalChangeOwnerCRCouncilMemberDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ProposalChangeOwnerCRCouncilMemberDigest",
+                    () -> mainchainSubWallet.ProposalChangeOwnerCRCouncilMemberDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " proposalChangeOwnerCRCouncilMemberDigest");
         }
     }
 
-    public void createProposalChangeOwnerTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createProposalChangeOwnerTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -3440,26 +3603,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateProposalChangeOwnerTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateProposalChangeOwnerTransaction",
+                    () -> mainchainSubWallet.CreateProposalChangeOwnerTransaction(inputs, payload, fee, memo));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " createProposalChangeOwnerTransaction");
@@ -3467,71 +3614,39 @@ public class Wallet extends CordovaPlugin {
     }
 
     // -- Proposal Terminate Proposal
-    public void terminateProposalOwnerDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void terminateProposalOwnerDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.TerminateProposalOwnerDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.TerminateProposalOwnerDigest",
+                    () -> mainchainSubWallet.TerminateProposalOwnerDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " terminateProposalOwnerDigest");
         }
     }
 
-    public void terminateProposalCRCouncilMemberDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void terminateProposalCRCouncilMemberDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.TerminateProposalCRCouncilMemberDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.TerminateProposalCRCouncilMemberDigest",
+                    () -> mainchainSubWallet.TerminateProposalCRCouncilMemberDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " terminateProposalCRCouncilMemberDigest");
         }
     }
 
-    public void createTerminateProposalTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createTerminateProposalTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -3540,26 +3655,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateTerminateProposalTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateTerminateProposalTransaction",
+                    () -> mainchainSubWallet.CreateTerminateProposalTransaction(inputs, payload, fee, memo));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " createTerminateProposalTransaction");
@@ -3567,71 +3666,39 @@ public class Wallet extends CordovaPlugin {
     }
 
     // -- Reserve Custom ID
-    public void reserveCustomIDOwnerDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void reserveCustomIDOwnerDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ReserveCustomIDOwnerDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ReserveCustomIDOwnerDigest",
+                    () -> mainchainSubWallet.ReserveCustomIDOwnerDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " reserveCustomIDOwnerDigest");
         }
     }
 
-    public void reserveCustomIDCRCouncilMemberDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void reserveCustomIDCRCouncilMemberDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ReserveCustomIDCRCouncilMemberDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ReserveCustomIDCRCouncilMemberDigest",
+                    () -> mainchainSubWallet.ReserveCustomIDCRCouncilMemberDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " reserveCustomIDCRCouncilMemberDigest");
         }
     }
 
-    public void createReserveCustomIDTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createReserveCustomIDTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -3640,26 +3707,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateReserveCustomIDTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateReserveCustomIDTransaction",
+                    () -> mainchainSubWallet.CreateReserveCustomIDTransaction(inputs, payload, fee, memo));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " createReserveCustomIDTransaction");
@@ -3667,71 +3718,39 @@ public class Wallet extends CordovaPlugin {
     }
 
     // -- Receive Custom ID
-    public void receiveCustomIDOwnerDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void receiveCustomIDOwnerDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ReceiveCustomIDOwnerDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ReceiveCustomIDOwnerDigest",
+                    () -> mainchainSubWallet.ReceiveCustomIDOwnerDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " receiveCustomIDOwnerDigest");
         }
     }
 
-    public void receiveCustomIDCRCouncilMemberDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void receiveCustomIDCRCouncilMemberDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ReceiveCustomIDCRCouncilMemberDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ReceiveCustomIDCRCouncilMemberDigest",
+                    () -> mainchainSubWallet.ReceiveCustomIDCRCouncilMemberDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " receiveCustomIDCRCouncilMemberDigest");
         }
     }
 
-    public void createReceiveCustomIDTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createReceiveCustomIDTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -3740,26 +3759,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateReceiveCustomIDTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateReceiveCustomIDTransaction",
+                    () -> mainchainSubWallet.CreateReceiveCustomIDTransaction(inputs, payload, fee, memo));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " createReceiveCustomIDTransaction");
@@ -3767,71 +3770,39 @@ public class Wallet extends CordovaPlugin {
     }
 
     // -- Change Custom ID Fee
-    public void changeCustomIDFeeOwnerDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void changeCustomIDFeeOwnerDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ChangeCustomIDFeeOwnerDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ChangeCustomIDFeeOwnerDigest",
+                    () -> mainchainSubWallet.ChangeCustomIDFeeOwnerDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " changeCustomIDFeeOwnerDigest");
         }
     }
 
-    public void changeCustomIDFeeCRCouncilMemberDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void changeCustomIDFeeCRCouncilMemberDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ChangeCustomIDFeeCRCouncilMemberDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ChangeCustomIDFeeCRCouncilMemberDigest",
+                    () -> mainchainSubWallet.ChangeCustomIDFeeCRCouncilMemberDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " changeCustomIDFeeCRCouncilMemberDigest");
         }
     }
 
-    public void createChangeCustomIDFeeTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createChangeCustomIDFeeTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -3840,26 +3811,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateChangeCustomIDFeeTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateChangeCustomIDFeeTransaction",
+                    () -> mainchainSubWallet.CreateChangeCustomIDFeeTransaction(inputs, payload, fee, memo));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " createChangeCustomIDFeeTransaction");
@@ -3871,32 +3826,16 @@ public class Wallet extends CordovaPlugin {
     // args[0]: String masterWalletID
     // args[1]: String chainID
     // args[2]: String payload
-    public void proposalWithdrawDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void proposalWithdrawDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.ProposalWithdrawDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.ProposalWithdrawDigest",
+                    () -> mainchainSubWallet.ProposalWithdrawDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " proposalWithdrawDigest");
@@ -3907,7 +3846,7 @@ public class Wallet extends CordovaPlugin {
     // args[1]: String chainID
     // args[2]: String payload Proposal payload.
     // args[3]: String memo Remarks string. Can be empty string
-    public void createProposalWithdrawTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createProposalWithdrawTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -3916,26 +3855,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateProposalWithdrawTransaction(inputs, payload, fee, memo);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateProposalWithdrawTransaction",
+                    () -> mainchainSubWallet.CreateProposalWithdrawTransaction(inputs, payload, fee, memo));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " createProposalWithdrawTransaction");
@@ -3943,64 +3866,32 @@ public class Wallet extends CordovaPlugin {
     }
 
     // -- Proposal Register side-chain
-    public void registerSidechainOwnerDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void registerSidechainOwnerDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.RegisterSidechainOwnerDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.RegisterSidechainOwnerDigest",
+                    () -> mainchainSubWallet.RegisterSidechainOwnerDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " registerSidechainOwnerDigest");
         }
     }
 
-    public void registerSidechainCRCouncilMemberDigest(JSONArray args, CallbackContext cc) throws JSONException {
+    public void registerSidechainCRCouncilMemberDigest(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
         String payload = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
-            }
-
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.RegisterSidechainCRCouncilMemberDigest(payload);
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.RegisterSidechainCRCouncilMemberDigest",
+                    () -> mainchainSubWallet.RegisterSidechainCRCouncilMemberDigest(payload));
             cc.success(stringJson);
         } catch (WalletException e) {
             exceptionProcess(e, cc,
@@ -4008,7 +3899,7 @@ public class Wallet extends CordovaPlugin {
         }
     }
 
-    public void createRegisterSidechainTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createRegisterSidechainTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -4017,29 +3908,75 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
+        try {
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            String stringJson = NativeCalls.call("MainchainSubWallet.CreateRegisterSidechainTransaction",
+                    () -> mainchainSubWallet.CreateRegisterSidechainTransaction(inputs, payload, fee, memo));
+            cc.success(stringJson);
+        } catch (WalletException e) {
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " createRegisterSidechainTransaction");
+        }
+    }
+
+    // args[0]: String masterWalletID
+    // args[1]: String chainID
+    // args[2]: String transaction, name of the action creating the transaction, e.g. createProposalTransaction
+    // args[3]: String payload
+    // args[4]: JSONArray steps, [{digest: String, address: String, field: String, chainID?: String}, ...]
+    // args[5]: String payPassword
+    // args[6]: String inputs
+    // args[7]: String fee
+    // args[8]: String memo
+    // return: String txJson
+    public void proposalPipeline(ActionArgs args, CallbackContext cc) throws JSONException {
+        int idx = 0;
+        String masterWalletID = args.getString(idx++);
+        String chainID = args.getString(idx++);
+        String transaction = args.getString(idx++);
+        String payload = args.getString(idx++);
+        JSONArray steps = args.getJSONArray(idx++);
+        String payPassword = args.getString(idx++);
+        String inputs = args.getString(idx++);
+        String fee = args.getString(idx++);
+        String memo = args.getString(idx++);
+
+        String error = ProposalPipeline.check(transaction, steps);
+        if (error != null) {
+            errorProcess(cc, errCodeInvalidArg, error);
             return;
         }
 
+        // Steps signing with another sub wallet of the master wallet, e.g. the ID chain, lock it too.
+        HashMap<String, SubWallet> signers = new HashMap<>();
+        ArrayList<WalletLockManager.Lease> leases = new ArrayList<>();
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof MainchainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of MainchainSubWallet");
-                return;
+            MainchainSubWallet mainchainSubWallet = args.mainchainSubWallet();
+            signers.put(chainID, mainchainSubWallet);
+            for (int i = 0; i < steps.length(); i++) {
+                String signChainID = steps.getJSONObject(i).optString("chainID", chainID);
+                if (!signers.containsKey(signChainID)) {
+                    leases.add(lockManager.acquire(WalletLockManager.Mode.SUBWALLET_SHARED, masterWalletID, signChainID));
+                    SubWallet subWallet = getSubWallet(masterWalletID, signChainID);
+                    if (subWallet == null) {
+                        errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, signChainID));
+                        return;
+                    }
+                    signers.put(signChainID, subWallet);
+                }
             }
 
-            MainchainSubWallet mainchainSubWallet = (MainchainSubWallet) subWallet;
-            String stringJson = mainchainSubWallet.CreateRegisterSidechainTransaction(inputs, payload, fee, memo);
-            cc.success(stringJson);
+            String txJson = ProposalPipeline.run(mainchainSubWallet, transaction, new JSONObject(payload), steps,
+                    inputs, fee, memo, (signChainID, address, digest) -> {
+                        SubWallet signer = signers.get(signChainID != null ? signChainID : chainID);
+                        return NativeCalls.call("SubWallet.SignDigest", () -> signer.SignDigest(address, digest, payPassword));
+                    });
+            cc.success(txJson);
         } catch (WalletException e) {
-            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " createRegisterSidechainTransaction");
+            exceptionProcess(e, cc, formatWalletName(masterWalletID, chainID) + " proposalPipeline " + transaction);
+        } finally {
+            for (int i = leases.size() - 1; i >= 0; i--) {
+                leases.get(i).release();
+            }
         }
     }
 
@@ -4052,7 +3989,7 @@ public class Wallet extends CordovaPlugin {
     // args[4]: String mainchainAdress
     // args[5]: String fee
     // args[6]: String memo
-    public void createWithdrawTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createWithdrawTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String chainID = args.getString(idx++);
@@ -4062,26 +3999,10 @@ public class Wallet extends CordovaPlugin {
         String fee = args.getString(idx++);
         String memo = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            SubWallet subWallet = getSubWallet(masterWalletID, chainID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, chainID));
-                return;
-            }
-
-            if (!(subWallet instanceof SidechainSubWallet)) {
-                errorProcess(cc, errCodeSubWalletInstance,
-                        formatWalletName(masterWalletID, chainID) + " is not instance of SidechainSubWallet");
-                return;
-            }
-
-            SidechainSubWallet sidechainSubWallet = (SidechainSubWallet) subWallet;
-            String tx = sidechainSubWallet.CreateWithdrawTransaction(inputs, amount, mainchainAddress, fee, memo);
+            SidechainSubWallet sidechainSubWallet = args.sidechainSubWallet();
+            String tx = NativeCalls.call("SidechainSubWallet.CreateWithdrawTransaction",
+                    () -> sidechainSubWallet.CreateWithdrawTransaction(inputs, amount, mainchainAddress, fee, memo));
 
             cc.success(tx);
         } catch (WalletException e) {
@@ -4095,25 +4016,24 @@ public class Wallet extends CordovaPlugin {
     // args[1]: int start
     // args[2]: int count
     // args[3]: bool internal
-    public void getLegacyAddresses(JSONArray args, CallbackContext cc) throws JSONException {
+    // args[4]: int chunkSize [option], stream the range in chunks of chunkSize when > 0
+    public void getLegacyAddresses(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         int start = args.getInt(idx++);
         int count = args.getInt(idx++);
         boolean internal = args.getBoolean(idx++);
-
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
+        int chunkSize = args.getInt(idx++);
 
         try {
-            BTCSubWallet subWallet = getBTCSubWallet(masterWalletID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, "BTC"));
+            BTCSubWallet subWallet = args.btcSubWallet();
+            if (chunkSize > 0) {
+                streamRange(cc, start, count, chunkSize, (s, n) -> NativeCalls.call("SubWallet.GetLegacyAddresses",
+                        () -> subWallet.GetLegacyAddresses(s, n, internal)));
                 return;
             }
-            String allAddresses = subWallet.GetLegacyAddresses(start, count, internal);
+            String allAddresses = NativeCalls.call("SubWallet.GetLegacyAddresses",
+                    () -> subWallet.GetLegacyAddresses(start, count, internal));
             cc.success(allAddresses);
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Get " + formatWalletName(masterWalletID, "BTC") + " legacy addresses");
@@ -4125,7 +4045,7 @@ public class Wallet extends CordovaPlugin {
     // args[3]: String outputs
     // args[4]: String changeAddress
     // args[5]: String feePerKB
-    public void createBTCTransaction(JSONArray args, CallbackContext cc) throws JSONException {
+    public void createBTCTransaction(ActionArgs args, CallbackContext cc) throws JSONException {
         int idx = 0;
         String masterWalletID = args.getString(idx++);
         String inputs = args.getString(idx++);
@@ -4133,19 +4053,11 @@ public class Wallet extends CordovaPlugin {
         String changeAddress = args.getString(idx++);
         String feePerKB = args.getString(idx++);
 
-        if (args.length() != idx) {
-            errorProcess(cc, errCodeInvalidArg, idx + " parameters are expected");
-            return;
-        }
-
         try {
-            BTCSubWallet subWallet = (BTCSubWallet) getBTCSubWallet(masterWalletID);
-            if (subWallet == null) {
-                errorProcess(cc, errCodeInvalidSubWallet, "Get " + formatWalletName(masterWalletID, "BTC"));
-                return;
-            }
+            BTCSubWallet subWallet = args.btcSubWallet();
 
-            String tx = subWallet.CreateTransaction(inputs, outputs, changeAddress, feePerKB);
+            String tx = NativeCalls.call("SubWallet.CreateTransaction",
+                    () -> subWallet.CreateTransaction(inputs, outputs, changeAddress, feePerKB));
             cc.success(tx);
         } catch (WalletException e) {
             exceptionProcess(e, cc, "Create " + formatWalletName(masterWalletID, "BTC") + " transaction");
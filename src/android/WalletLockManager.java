@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Striped read/write locks for the master wallet manager, master wallets and sub wallets.
+ *
+ * Locks are always taken in the order manager -> master wallet -> sub wallet, and
+ * released in reverse order. Every mode except MANAGER holds the manager lock shared,
+ * so disposing the manager waits for all in-flight actions. Wallet and sub wallet keys
+ * are hashed onto a fixed number of stripes: two wallets sharing a stripe only lose
+ * some parallelism, they never deadlock since a thread holds one stripe per level.
+ *
+ * Locks are tried first, only the acquisitions that have to wait read the clock: their
+ * wait is recorded per level and added to the blocked time of the thread, which dispatch
+ * reads before and after an action to tell its lock wait from its execution.
+ */
+class WalletLockManager {
+
+    enum Mode {
+        // No lock, the action does not touch the master wallet manager.
+        NONE,
+        // Exclusive on the master wallet manager: init, destroy.
+        MANAGER,
+        // Shared on the master wallet manager only.
+        MANAGER_SHARED,
+        WALLET_SHARED,
+        WALLET_EXCLUSIVE,
+        SUBWALLET_SHARED,
+        SUBWALLET_EXCLUSIVE,
+    }
+
+    private static final int STRIPES = 32;
+
+    private static final int MANAGER_LEVEL = 0;
+    private static final int WALLET_LEVEL = 1;
+    private static final int SUBWALLET_LEVEL = 2;
+    private static final String[] LEVEL_NAMES = {"manager", "wallet", "subWallet"};
+
+    private final AtomicLong[] acquired = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+    private final AtomicLong[] contended = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+    private final Histogram[] waits = {new Histogram(), new Histogram(), new Histogram()};
+
+    // Nanoseconds the thread spent waiting for locks, since it started.
+    private final ThreadLocal<long[]> blocked = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    private final ReentrantReadWriteLock managerLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock[] walletLocks = newStripes();
+    private final ReentrantReadWriteLock[] subWalletLocks = newStripes();
+
+    private static final Lease EMPTY = new Lease(null, null, null);
+
+    private static ReentrantReadWriteLock[] newStripes() {
+        ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        return stripes;
+    }
+
+    private static int stripe(int hash) {
+        hash ^= (hash >>> 16);
+        return (hash & 0x7fffffff) % STRIPES;
+    }
+
+    private ReentrantReadWriteLock walletLock(String masterWalletID) {
+        return walletLocks[stripe(masterWalletID.hashCode())];
+    }
+
+    private ReentrantReadWriteLock subWalletLock(String masterWalletID, String chainID) {
+        return subWalletLocks[stripe(31 * masterWalletID.hashCode() + chainID.hashCode())];
+    }
+
+    /**
+     * Block until the locks required by mode are held.
+     *
+     * @param masterWalletID required from WALLET_SHARED on.
+     * @param chainID required for SUBWALLET_* modes.
+     * @return the lease to release once the action completed.
+     */
+    Lease acquire(Mode mode, String masterWalletID, String chainID) {
+        switch (mode) {
+            case NONE:
+                return EMPTY;
+            case MANAGER:
+                return new Lease(lock(managerLock.writeLock(), MANAGER_LEVEL), null, null);
+            case MANAGER_SHARED:
+                return new Lease(lock(managerLock.readLock(), MANAGER_LEVEL), null, null);
+            case WALLET_SHARED:
+                return new Lease(lock(managerLock.readLock(), MANAGER_LEVEL),
+                        lock(walletLock(masterWalletID).readLock(), WALLET_LEVEL), null);
+            case WALLET_EXCLUSIVE:
+                return new Lease(lock(managerLock.readLock(), MANAGER_LEVEL),
+                        lock(walletLock(masterWalletID).writeLock(), WALLET_LEVEL), null);
+            case SUBWALLET_SHARED:
+                return new Lease(lock(managerLock.readLock(), MANAGER_LEVEL),
+                        lock(walletLock(masterWalletID).readLock(), WALLET_LEVEL),
+                        lock(subWalletLock(masterWalletID, chainID).readLock(), SUBWALLET_LEVEL));
+            case SUBWALLET_EXCLUSIVE:
+                return new Lease(lock(managerLock.readLock(), MANAGER_LEVEL),
+                        lock(walletLock(masterWalletID).readLock(), WALLET_LEVEL),
+                        lock(subWalletLock(masterWalletID, chainID).writeLock(), SUBWALLET_LEVEL));
+            default:
+                throw new IllegalArgumentException("Unknown lock mode " + mode);
+        }
+    }
+
+    private Lock lock(Lock lock, int level) {
+        acquired[level].incrementAndGet();
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lock();
+            long nanos = System.nanoTime() - start;
+            contended[level].incrementAndGet();
+            waits[level].record(nanos / 1000);
+            blocked.get()[0] += nanos;
+        }
+        return lock;
+    }
+
+    /**
+     * @return nanoseconds the current thread spent waiting for locks since it started.
+     */
+    long getBlockedNanos() {
+        return blocked.get()[0];
+    }
+
+    /**
+     * @return {manager, wallet, subWallet}, each {acquired, contended, waitMicros} where waitMicros
+     *         is the wait of the contended acquisitions.
+     */
+    JSONObject toJSON(boolean reset) throws JSONException {
+        JSONObject json = new JSONObject();
+        for (int level = 0; level < LEVEL_NAMES.length; level++) {
+            JSONObject levelJson = new JSONObject();
+            levelJson.put("acquired", reset ? acquired[level].getAndSet(0) : acquired[level].get());
+            levelJson.put("contended", reset ? contended[level].getAndSet(0) : contended[level].get());
+            levelJson.put("waitMicros", waits[level].toJSON(reset));
+            json.put(LEVEL_NAMES[level], levelJson);
+        }
+        return json;
+    }
+
+    static final class Lease {
+        private final Lock manager;
+        private final Lock wallet;
+        private final Lock subWallet;
+
+        private Lease(Lock manager, Lock wallet, Lock subWallet) {
+            this.manager = manager;
+            this.wallet = wallet;
+            this.subWallet = subWallet;
+        }
+
+        void release() {
+            if (subWallet != null) {
+                subWallet.unlock();
+            }
+            if (wallet != null) {
+                wallet.unlock();
+            }
+            if (manager != null) {
+                manager.unlock();
+            }
+        }
+    }
+}
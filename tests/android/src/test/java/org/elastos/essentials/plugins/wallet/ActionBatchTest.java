@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.elastos.essentials.plugins.wallet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Batch calls go through the same callback context wrappers as dispatch.
+ */
+public class ActionBatchTest {
+
+    private final ActionExecutor executor = new ActionExecutor();
+    private final AtomicInteger windows = new AtomicInteger();
+
+    @After
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private JSONArray run(int chunkSize) throws Exception {
+        JSONArray calls = new JSONArray().put(new JSONObject().put("action", "getAddresses").put("args", new JSONArray()));
+        ActionBatch batch = new ActionBatch(calls, (action, args, cc) -> {
+            CallbackContext wrapped = new JsonResultContext(new ActionMetrics.Context(cc, null), null);
+            Wallet.RangeReader reader = (start, count) -> {
+                windows.incrementAndGet();
+                JSONArray items = new JSONArray();
+                for (int i = 0; i < count; i++) {
+                    items.put("address" + (start + i));
+                }
+                return items.toString();
+            };
+            try {
+                if (chunkSize > 0) {
+                    Wallet.streamRange(wrapped, 0, 100, chunkSize, reader);
+                } else {
+                    wrapped.success(reader.read(0, 100));
+                }
+            } catch (Exception e) {
+                wrapped.error(e.toString());
+            }
+        }, null);
+        return new JSONArray(batch.run(executor));
+    }
+
+    @Test
+    public void streamedCallStopsAfterFirstWindow() throws Exception {
+        JSONArray results = run(10);
+        assertEquals(1, windows.get());
+        assertTrue(results.getJSONObject(0).getString("error").contains("chunkSize"));
+    }
+
+    @Test
+    public void wholeRange() throws Exception {
+        JSONArray results = run(0);
+        assertEquals(1, windows.get());
+        assertEquals(100, results.getJSONObject(0).getJSONArray("success").length());
+    }
+}
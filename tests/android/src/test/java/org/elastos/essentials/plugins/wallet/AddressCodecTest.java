@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021 Elastos Foundation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.elastos.essentials.plugins.wallet;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * AddressCodec against the published vectors of BIP-173, BIP-350 and EIP-55, and Base58Check
+ * addresses encoded independently of the codec.
+ */
+public class AddressCodecTest {
+
+    private static void assertValid(String network, String chainID, String address) {
+        assertEquals(address, AddressCodec.VALID, AddressCodec.validate(network, chainID, address));
+    }
+
+    private static void assertInvalid(String network, String chainID, String address) {
+        assertEquals(address, AddressCodec.INVALID, AddressCodec.validate(network, chainID, address));
+    }
+
+    @Test
+    public void bech32() {
+        // BIP-173
+        assertValid("MainNet", "BTC", "BC1QW508D6QEJXTDG4Y5R3ZARVARY0C5XW7KV8F3T4");
+        assertValid("MainNet", "BTC", "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4");
+        assertValid("TestNet", "BTC", "tb1qrp33g0q5c5txsp9arysrx4k6zdkfs4nce4xj0gdcccefvpysxf3q0sl5k7");
+
+        // Mixed case, mutated data, other network.
+        assertInvalid("MainNet", "BTC", "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kV8F3t4");
+        assertInvalid("MainNet", "BTC", "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t5");
+        assertInvalid("MainNet", "BTC", "tb1qrp33g0q5c5txsp9arysrx4k6zdkfs4nce4xj0gdcccefvpysxf3q0sl5k7");
+    }
+
+    @Test
+    public void bech32m() {
+        // BIP-350
+        assertValid("MainNet", "BTC", "bc1pw508d6qejxtdg4y5r3zarvary0c5xw7kw508d6qejxtdg4y5r3zarvary0c5xw7kt5nd6y");
+        assertValid("MainNet", "BTC", "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0");
+
+        // A taproot program with the bech32 checksum instead of bech32m.
+        assertInvalid("MainNet", "BTC", "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vq5zuyut");
+    }
+
+    @Test
+    public void btcBase58() {
+        assertValid("MainNet", "BTC", "1A1zP1eP5QGefi2DMPTfTL5SLmv7DivfNa");
+        assertValid("MainNet", "BTC", "1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2");
+        assertValid("MainNet", "BTC", "3J98t1WpEZ73CNmQviecrnyiWrnqRhWNLy");
+        assertValid("TestNet", "BTC", "mipcBbFg9gMiCh81Kj8tqqdgoZub1ZJRfn");
+
+        assertInvalid("MainNet", "BTC", "1A1zP1eP5QGefi2DMPTfTL5SLmv7DivfNb");
+        assertInvalid("MainNet", "BTC", "mipcBbFg9gMiCh81Kj8tqqdgoZub1ZJRfn");
+        assertInvalid("TestNet", "BTC", "1A1zP1eP5QGefi2DMPTfTL5SLmv7DivfNa");
+        assertInvalid("MainNet", "BTC", "1A1zP1eP5QGefi2DMPTfTL5SLmv7Divf0a");
+    }
+
+    @Test
+    public void elaBase58Check() {
+        // Prefixes 0x21, 0x12 and 0x67 followed by the bytes 1..20.
+        assertValid("MainNet", "ELA", "EHFEaZFspRCXhkHP58q4wv8Ks29vhY28Rp");
+        assertValid("MainNet", "ELA", "8FBBovnZAiFPSFC5hqqHg33XRTHn6oJYVQ");
+        assertValid("MainNet", "IDChain", "iSuTWA83X3drx63SnW9NthBPvLBxXYvZxi");
+
+        // Checksum typo, prefix of another chain, empty.
+        assertInvalid("MainNet", "ELA", "EHFEaZFspRCXhkHP58q4wv8Ks29vhY28Rq");
+        assertInvalid("MainNet", "ELA", "31nM1WuowNDzocNxPPW9NQWJEtwWpjfcLj");
+        assertInvalid("MainNet", "ELA", "");
+    }
+
+    @Test
+    public void eip55() {
+        String[] vectors = {
+                "0x5aAeb6053F3E94C9b9A09f33669435E7Ef1BeAed",
+                "0xfB6916095ca1df60bB79Ce92cE3Ea74c37c5d359",
+                "0xdbF03B407c01E7cD3CBea99509d93f8DDDC8C6FB",
+                "0xD1220A0cf47c7B9Be7A2E6BA89F429762e7b9aDb",
+        };
+        for (String address : vectors) {
+            assertValid("MainNet", "ETHSC", address);
+            assertValid("MainNet", "ETHSC", "0x" + address.substring(2).toLowerCase());
+            assertValid("MainNet", "ETHSC", "0x" + address.substring(2).toUpperCase());
+        }
+
+        // One letter of the checksum casing flipped.
+        assertInvalid("MainNet", "ETHSC", "0x5aaeb6053F3E94C9b9A09f33669435E7Ef1BeAed");
+        assertInvalid("MainNet", "ETHSC", "0xfB6916095ca1df60bB79Ce92cE3Ea74c37c5D359");
+        assertInvalid("MainNet", "ETHSC", "0x5aAeb6053F3E94C9b9A09f33669435E7Ef1BeAe");
+    }
+
+    @Test
+    public void unknownChain() {
+        assertEquals(AddressCodec.UNKNOWN, AddressCodec.validate("MainNet", "TRX", "TJRabPrwbZy45sbavfcjinPJC18kjpRTv8"));
+        assertEquals(AddressCodec.UNKNOWN, AddressCodec.validate("PrvNet", "BTC", "1A1zP1eP5QGefi2DMPTfTL5SLmv7DivfNa"));
+    }
+}
@@ -106,6 +106,29 @@ declare module WalletPlugin {
         PRIVATENET = 'PrvNet',
     }
 
+    type BatchCall = {
+        action: string;
+        args?: any[];
+    }
+
+    type RangeChunk = {
+        start: number;
+        count: number;
+        result: any;
+    }
+
+    type BatchResult = {
+        success?: any;
+        error?: any;
+    }
+
+    type AddressOwner = {
+        masterWalletID: string;
+        chainID: string;
+        internal: boolean;
+        index: number;
+    }
+
     interface WalletManager {
         //MasterWalletManager
 
@@ -230,6 +253,119 @@ declare module WalletPlugin {
          */
         getAllMasterWallets(args, success, error);
 
+        /**
+         * Get manager existing master wallets with what the wallet list needs of each, in one call.
+         * @param offset index of the first wallet listed, 0 by default.
+         * @param limit max number of wallets listed, 0 (default) for all.
+         * @return {total, offset, wallets: [{masterWalletID, basicInfo, subWallets, supportedChains}, ...]}, as returned by
+         * getMasterWalletBasicInfo, getAllSubWallets and getSupportedChains for each wallet. total counts all the wallets.
+         */
+        getAllMasterWalletsInfo(args, success, error);
+
+        /**
+         * Get hit/miss counters of the native wallet handle and derived address caches.
+         * @return { masterWallets: { size, hits, misses }, derivedKeys: { items, hits, misses },
+         *   addressIndex: { size, lookups, found, bloomRejects }, addressValidation: { size, hits, misses,
+         *   localAnswers, shadowChecks, mismatches, fallbacks } }
+         */
+        getWalletCacheStats(args, success, error);
+
+        /**
+         * Get the metrics of the actions and spvcore methods called since start or the last reset, and the cache stats.
+         * @param reset true to start counting again once read, false by default.
+         * @return {actions, nativeCalls, locks, executor, caches}. actions has one entry per action called: {count, errors,
+         * errorCodes, latencyMicros, queueMicros, lockMicros, execMicros, requestBytes, responseBytes, nativeCalls,
+         * nativeMicros}. errorCodes counts errors by code, 0 for errors without one. latencyMicros is split into
+         * lockMicros, the time blocked on wallet locks, and execMicros, the rest; queueMicros is the wait for a worker
+         * before. nativeCalls counts the spvcore calls of the action by method, e.g. "MasterWallet.GetSubWallet", and
+         * nativeMicros is their total time. The nativeCalls of the result has one latency per spvcore method, across
+         * actions. locks has the contention of each lock level, {manager, wallet, subWallet}, each {acquired, contended,
+         * waitMicros} with the wait of the contended acquisitions. executor has the gauges {queued, active, workers,
+         * rejected}: the actions waiting for a worker, the workers busy, the pool size and the actions rejected since
+         * start. Latencies and sizes are {count, mean, p50, p99, p999, max}, within 1/16. caches is as returned by
+         * getWalletCacheStats.
+         */
+        getMetrics(args, success, error);
+
+        /**
+         * Get the spans recorded by the traced calls, see withTrace(). The last 8192 spans are kept.
+         * @param reset true to clear the spans once read, false by default.
+         * @return the spans in the Chrome trace event format, {traceEvents, displayTimeUnit, otherData}, to load in
+         * chrome://tracing or Perfetto. Each call has spans for its wait in the queue, its lock wait, itself, its spvcore
+         * calls and the delivery of its result, with its requestID, span and parentSpan in args. Timestamps are in
+         * microseconds of the monotonic clock, adding otherData.wallClockOffsetMicros gives the wall clock time.
+         * otherData.dropped counts the spans overwritten.
+         */
+        dumpTrace(args, success, error);
+
+        /**
+         * Get a wallet manager whose calls are traced: they log their request ID and record spans, see dumpTrace().
+         * Only the calls made through the returned manager are traced, so concurrent flows each use their own.
+         * Android only, the calls are not traced on other platforms.
+         * @param requestID ID the spans of the calls are tagged with.
+         * @param parentSpan span of the caller the calls are children of, optional.
+         */
+        withTrace(requestID: string, parentSpan?: string): WalletManager;
+
+        /**
+         * Get the last actions slower than the threshold, journaled across restarts once init was called. The last 256
+         * are kept.
+         * @param limit entries returned, 50 by default.
+         * @return {thresholdMillis, entries}, entries most recent first: {sequence, time, action, masterWalletID?,
+         * chainID?, args, requestBytes?, queueMicros, lockMicros, execMicros, errorCode?}. time is in milliseconds
+         * since the epoch. args has the size of string, array and object arguments, "number" or "boolean" for
+         * the others, and "redacted" for passwords, mnemonics, seeds and private keys. errorCode is set if the action failed.
+         */
+        getSlowActions(args, success, error);
+
+        /**
+         * Set the latency, from the call to its result, from which actions are journaled. 1000 ms by default, kept
+         * across restarts.
+         * @param thresholdMillis threshold in milliseconds, negative to journal no action.
+         */
+        setSlowActionThreshold(args, success, error);
+
+        /**
+         * Receive the JSON returned by wallet actions, such as created transactions, as objects
+         * instead of strings. Disabled by default, callers parsing the strings keep working.
+         * @param enabled true to receive objects.
+         */
+        setStructuredResults(args, success, error);
+
+        /**
+         * Run several wallet actions in one call, in parallel when they do not work on the same wallet.
+         * @param calls actions and their args, as passed to the methods of this interface. Range actions
+         *     must not pass a chunkSize, a streamed call ends with an error.
+         * @return one result per call, in order: { success: result } or { error: error }.
+         */
+        batch(calls: BatchCall[]): Promise<BatchResult[]>;
+
+        /**
+         * Find which wallets own an address. Only addresses already returned by getAddresses,
+         * now or before a restart, are known. An address can have several owners, e.g. an ELA
+         * address also derived by the IDChain sub wallet, or a mnemonic imported twice.
+         * @param address address of any chain.
+         * @return array of AddressOwner in the order they derived the address, empty if not owned.
+         */
+        lookupAddress(args, success, error);
+
+        /**
+         * Find which wallets own several addresses, see lookupAddress.
+         * @param addresses array of addresses.
+         * @return array of AddressOwner arrays, in addresses order.
+         */
+        lookupAddresses(args, success, error);
+
+        /**
+         * Call a range action (getAddresses, getPublicKeys, getDID, getCID, getLegacyAddresses) in chunks.
+         * @param method name of the range action.
+         * @param args args of the action, without chunkSize.
+         * @param chunkSize number of items derived and sent at once.
+         * @param onChunk called with each chunk, in order.
+         * @return resolved once the whole range was sent.
+         */
+        getRangeInChunks(method: string, args: any[], chunkSize: number, onChunk: (chunk: RangeChunk) => void): Promise<void>;
+
         /**
          * Destroy a master wallet.
          * @param masterWalletID A pointer of master wallet interface create or imported by wallet factory object.
@@ -364,6 +500,15 @@ declare module WalletPlugin {
          */
         isSubWalletAddressValid(args, success, error);
 
+        /**
+         * Verify many addresses of a subwallet at once, see isSubWalletAddressValid.
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param chainID chain id of subwallet
+         * @param addresses array of addresses
+         * @return { count, invalid } where invalid holds the indices of the invalid addresses, in order.
+         */
+        validateAddresses(args, success, error);
+
         /**
          * Get all chain ids of supported chains.
          * @param masterWalletID is the unique identification of a master wallet object.
@@ -400,6 +545,8 @@ declare module WalletPlugin {
          * @index start from 0.
          * @count count of addresses we need.
          * @internal change address for true or normal receive address for false.
+         * @param chunkSize optional, when > 0 the range is sent in chunks of chunkSize: success is called with
+         *     { start, count, result } for each chunk, then with { done: true, start, count }.
          * @return a new address or addresses as required.
          */
         getAddresses(args, success, error);
@@ -414,6 +561,8 @@ declare module WalletPlugin {
          * @param chainID unique identity of a sub wallet. Chain id should not be empty.
          * @param start to specify start index of all public key list.
          * @param count specifies the count of public keys we need.
+         * @param chunkSize optional, when > 0 the range is sent in chunks of chunkSize: success is called with
+         *     { start, count, result } for each chunk, then with { done: true, start, count }.
          * @return public keys in json format.
          */
         getPublicKeys(args, success, error);
@@ -430,6 +579,19 @@ declare module WalletPlugin {
          */
         createTransaction(args, success, error);
 
+        /**
+         * Choose the UTXOs paying an amount and compute the fee from the estimated transaction size.
+         * Branch and bound looks for inputs needing no change, largest first is used otherwise.
+         * @param utxos array of {Address, Amount, TxHash, Index}, Amount in SELA.
+         * @param amount sum of the outputs, in SELA.
+         * @param feePerKB fee rate in SELA per 1000 bytes, 10000 by default.
+         * @param outputCount number of outputs paying amount, 1 by default.
+         * @param strategy "auto" (default), "bnb" or "largestFirst".
+         * @return {inputs, fee, change, size, strategy}: inputs and fee to pass to createTransaction, change in SELA
+         * to send back to the wallet in an extra output unless "0". Fails with code 10015 if funds are insufficient.
+         */
+        selectCoins(args, success, error);
+
         /**
          * Sign a transaction or append sign to a multi-sign transaction and return the content of transaction in json format.
          * @param masterWalletID is the unique identification of a master wallet object.
@@ -452,17 +614,47 @@ declare module WalletPlugin {
          */
          signDigest(args, success, error);
 
+        /**
+         * Sign several transactions, checking the pay password once.
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param chainID unique identity of a sub wallet. Chain id should not be empty.
+         * @param rawTransactions array of transactions, as given to signTransaction.
+         * @param payPassword pay password.
+         * @return one BatchResult per transaction, in order.
+         */
+        signTransactions(args, success, error);
+
+        /**
+         * Sign several digests, checking the pay password once.
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param chainID unique identity of a sub wallet. Chain id should not be empty.
+         * @param digests array of { address, digest }, as given to signDigest.
+         * @param payPassword pay password.
+         * @return one BatchResult per digest, in order: { success: signature } or { error: error }.
+         */
+        signDigests(args, success, error);
+
         /**
          * Verify signature with specify public key.
          * @param masterWalletID is the unique identification of a master wallet object.
          * @param chainID unique identity of a sub wallet. Chain id should not be empty.
          * @param pubkey public key hex string.
          * @param digest hex string of sha256.
-         * @param payPassword pay password.
-         * @return If success, signature will be returned.
+         * @param signature signature to be verified.
+         * @return "true" or "false".
          */
          verifyDigest(args, success, error);
 
+        /**
+         * Verify several digest signatures in parallel, see verifyDigest.
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param chainID unique identity of a sub wallet. Chain id should not be empty.
+         * @param items array of { publicKey, digest, signature }.
+         * @return { count, bits }: bits is a hex string, item i verified if
+         *   (parseInt(bits.substr((i >> 3) * 2, 2), 16) >> (i & 7)) & 1.
+         */
+        verifyDigests(args, success, error);
+
         /**
          * Get signers already signed specified transaction.
          * @param masterWalletID is the unique identification of a master wallet object.
@@ -519,6 +711,8 @@ declare module WalletPlugin {
          * @param index specify start index of all DID list.
          * @param count specify count of DID we need.
          * @param internal change address for true or normal external address for false.
+         * @param chunkSize optional, when > 0 the range is sent in chunks of chunkSize: success is called with
+         *     { start, count, result } for each chunk, then with { done: true, start, count }.
          * @return If success return all DID in JSON format.
          *
          * example:
@@ -535,6 +729,8 @@ declare module WalletPlugin {
          * @param index specify start index of all CID list.
          * @param count specify count of CID we need.
          * @param internal change address for true or normal external address for false.
+         * @param chunkSize optional, when > 0 the range is sent in chunks of chunkSize: success is called with
+         *     { start, count, result } for each chunk, then with { done: true, start, count }.
          * @return If success return CID in JSON format.
          *
          * example:
@@ -565,6 +761,14 @@ declare module WalletPlugin {
          */
         verifySignature(args, success, error);
 
+        /**
+         * Verify several signatures in parallel, see verifySignature.
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param items array of { publicKey, message, signature }.
+         * @return { count, bits }, as verifyDigests.
+         */
+        verifySignatures(args, success, error);
+
         /**
          * Get DID by public key
          * @param masterWalletID is the unique identification of a master wallet object.
@@ -614,6 +818,68 @@ declare module WalletPlugin {
          */
         createTransferGeneric(args, success, error);
 
+        /**
+         * Create a contract call transaction, as createTransferGeneric with the call data encoded from a method and its values.
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param chainID unique identity of a sub wallet. Chain id should not be empty.
+         * @param contractAddress address of the contract called.
+         * @param method signature as "transfer(address,uint256)", or transfer, approve or transferFrom for ERC-20 tokens.
+         * Types address, bool, uint<N>, int<N>, bytes<N>, bytes and string are supported.
+         * @param values one per method parameter. Integers as decimal or 0x hex strings or numbers, bytes as 0x hex strings.
+         * @param amount
+         * @param amountUnit
+         * @param gasPrice
+         * @param gasPriceUnit
+         * @param gasLimit
+         * @param nonce
+         * @return If success return the content of transaction in json format.
+         */
+        createContractCall(args, success, error);
+
+        /**
+         * Encode contract call data, as the data argument of createTransferGeneric.
+         * @param method signature as "transfer(address,uint256)", or transfer, approve or transferFrom.
+         * @param values one per method parameter, see createContractCall.
+         * @return 0x prefixed hex call data.
+         */
+        encodeCallData(args, success, error);
+
+        /**
+         * Reserve a nonce for a transfer of an EVM sub wallet address, so that transfers can be created
+         * concurrently. Commit it once its transaction is published, release it otherwise.
+         * Reservations are persisted, they survive a restart.
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param chainID unique identity of a sub wallet. Chain id should not be empty.
+         * @param networkNonce pending transaction count of the address on the network, needed for the first
+         * reservation, lower nonces are never reserved. Optional afterwards.
+         * @return {address, nonce}. Fails with code 10016 if the network nonce is needed or too many nonces are reserved.
+         */
+        reserveNonce(args, success, error);
+
+        /**
+         * The transaction using a reserved nonce was published.
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param chainID unique identity of a sub wallet. Chain id should not be empty.
+         * @param nonce returned by reserveNonce.
+         */
+        commitNonce(args, success, error);
+
+        /**
+         * The transaction using a reserved nonce was not published, the nonce is reserved again by the next call.
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param chainID unique identity of a sub wallet. Chain id should not be empty.
+         * @param nonce returned by reserveNonce.
+         */
+        releaseNonce(args, success, error);
+
+        /**
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param chainID unique identity of a sub wallet. Chain id should not be empty.
+         * @return {next, reserved, released}: next nonce never reserved, nonces reserved and nonces released,
+         * or null before the first reservation.
+         */
+        getNonceState(args, success, error);
+
         /**
          * Export private of the current wallet.
          * @param masterWalletID is the unique identification of a master wallet object.
@@ -1579,6 +1845,23 @@ declare module WalletPlugin {
          */
         createRegisterSidechainTransaction(args, success, error);
 
+        /**
+         * Compute the digests of a proposal payload, sign them and create the transaction in one call.
+         * @param masterWalletID is the unique identification of a master wallet object.
+         * @param chainID unique identity of a sub wallet. Chain id should not be empty.
+         * @param transaction name of the method creating the transaction, e.g. "createProposalTransaction".
+         * @param payload Proposal payload, without the signatures added by the steps.
+         * @param steps array of { digest, address, field, chainID? }, run in order: digest is the name of
+         *   one of the digest methods of the transaction family, e.g. "proposalOwnerDigest". The digest is
+         *   signed with the key of address, by the sub wallet chainID if given, and stored in payload[field].
+         * @param payPassword pay password.
+         * @param inputs UTXO which will be used. eg [{"Address": "...", "Amount": "100000000", "TxHash": "...", "Index": 0}]
+         * @fee Fee amount. Bigint string in SELA
+         * @memo Remark string
+         * @return the transaction, as returned by the transaction method.
+         */
+        proposalPipeline(args, success, error);
+
         // BTCSubwallet
 
         /**
@@ -1587,6 +1870,8 @@ declare module WalletPlugin {
          * @index start from where.
          * @count how many address we need.
          * @internal change address for true or normal receive address for false.
+         * @param chunkSize optional, when > 0 the range is sent in chunks of chunkSize: success is called with
+         *     { start, count, result } for each chunk, then with { done: true, start, count }.
          * @return as required
          */
         getLegacyAddresses(args, success, error);
@@ -20,7 +20,19 @@
 * SOFTWARE.
 */
 
-let exec = cordova.exec;
+type TraceContext = { requestID: string, parentSpan?: string };
+
+// Trace context of the method of a withTrace() manager being called, the calls it makes
+// synchronously are tagged with it. Only the Android plugin takes it off the arguments,
+// other platforms would reject the extra argument.
+let callTrace: TraceContext = null;
+
+function exec(success, error, obj, fun, args) {
+    if (callTrace && cordova.platformId === "android") {
+        args = (args || []).concat([{ __trace: callTrace }]);
+    }
+    cordova.exec(success, error, obj, fun, args);
+}
 
 function _exec(success, error, obj, fun, args) {
     function _onSuccess(ret) {
@@ -95,6 +107,81 @@ class WalletManagerImpl implements WalletPlugin.WalletManager {
         _exec(success, error, "Wallet", "getAllMasterWallets", args);
     };
 
+    getAllMasterWalletsInfo(args, success, error) {
+        exec(success, error, "Wallet", "getAllMasterWalletsInfo", args);
+    };
+
+    getWalletCacheStats(args, success, error) {
+        exec(success, error, "Wallet", "getWalletCacheStats", args);
+    };
+
+    getMetrics(args, success, error) {
+        exec(success, error, "Wallet", "getMetrics", args);
+    };
+
+    dumpTrace(args, success, error) {
+        exec(success, error, "Wallet", "dumpTrace", args);
+    };
+
+    getSlowActions(args, success, error) {
+        exec(success, error, "Wallet", "getSlowActions", args);
+    };
+
+    setSlowActionThreshold(args, success, error) {
+        exec(success, error, "Wallet", "setSlowActionThreshold", args);
+    };
+
+    withTrace(requestID: string, parentSpan?: string): WalletPlugin.WalletManager {
+        const trace: TraceContext = { requestID: requestID, parentSpan: parentSpan };
+        return new Proxy(this, {
+            get(target, property) {
+                const value = (target as any)[property];
+                if (typeof value !== "function") {
+                    return value;
+                }
+                return function () {
+                    const previous = callTrace;
+                    callTrace = trace;
+                    try {
+                        return value.apply(target, arguments);
+                    } finally {
+                        callTrace = previous;
+                    }
+                };
+            }
+        });
+    };
+
+    setStructuredResults(args, success, error) {
+        exec(success, error, "Wallet", "setStructuredResults", args);
+    };
+
+    batch(calls: WalletPlugin.BatchCall[]): Promise<WalletPlugin.BatchResult[]> {
+        return execAsPromise<WalletPlugin.BatchResult[]>("batch", [calls]);
+    };
+
+    lookupAddress(args, success, error) {
+        exec(success, error, "Wallet", "lookupAddress", args);
+    };
+
+    lookupAddresses(args, success, error) {
+        exec(success, error, "Wallet", "lookupAddresses", args);
+    };
+
+    getRangeInChunks(method: string, args: any[], chunkSize: number, onChunk: (chunk: WalletPlugin.RangeChunk) => void): Promise<void> {
+        return new Promise((resolve, reject)=>{
+            exec((result: any)=>{
+                if (result.done) {
+                    resolve();
+                } else {
+                    onChunk(result);
+                }
+            }, (err: any)=>{
+                reject(err);
+            }, 'Wallet', method, args.concat([chunkSize]));
+        });
+    };
+
     destroyWallet(args, success, error) {
         exec(success, error, "Wallet", "destroyWallet", args);
     };
@@ -171,6 +258,10 @@ class WalletManagerImpl implements WalletPlugin.WalletManager {
         exec(_onSuccess, error, "Wallet", "isSubWalletAddressValid", args);
     };
 
+    validateAddresses(args, success, error) {
+        exec(success, error, "Wallet", "validateAddresses", args);
+    };
+
     getSupportedChains(args, success, error) {
         exec(success, error, "Wallet", "getSupportedChains", args);
     };
@@ -197,6 +288,10 @@ class WalletManagerImpl implements WalletPlugin.WalletManager {
         exec(success, error, "Wallet", "createTransaction", args);
     };
 
+    selectCoins(args, success, error) {
+        exec(success, error, "Wallet", "selectCoins", args);
+    };
+
     signTransaction(args, success, error) {
         exec(success, error, "Wallet", "signTransaction", args);
     };
@@ -205,10 +300,22 @@ class WalletManagerImpl implements WalletPlugin.WalletManager {
         exec(success, error, "Wallet", "signDigest", args);
     };
 
+    signTransactions(args, success, error) {
+        exec(success, error, "Wallet", "signTransactions", args);
+    };
+
+    signDigests(args, success, error) {
+        exec(success, error, "Wallet", "signDigests", args);
+    };
+
     verifyDigest(args, success, error) {
         exec(success, error, "Wallet", "verifyDigest", args);
     };
 
+    verifyDigests(args, success, error) {
+        exec(success, error, "Wallet", "verifyDigests", args);
+    };
+
     getTransactionSignedInfo(args, success, error) {
         _exec(success, error, "Wallet", "getTransactionSignedInfo", args);
     };
@@ -245,6 +352,10 @@ class WalletManagerImpl implements WalletPlugin.WalletManager {
         exec(success, error, "Wallet", "verifySignature", args);
     };
 
+    verifySignatures(args, success, error) {
+        exec(success, error, "Wallet", "verifySignatures", args);
+    };
+
     getPublicKeyDID(args, success, error) {
         exec(success, error, "Wallet", "getPublicKeyDID", args);
     };
@@ -263,6 +374,30 @@ class WalletManagerImpl implements WalletPlugin.WalletManager {
         exec(success, error, "Wallet", "createTransferGeneric", args);
     };
 
+    createContractCall(args, success, error) {
+        exec(success, error, "Wallet", "createContractCall", args);
+    };
+
+    encodeCallData(args, success, error) {
+        exec(success, error, "Wallet", "encodeCallData", args);
+    };
+
+    reserveNonce(args, success, error) {
+        exec(success, error, "Wallet", "reserveNonce", args);
+    };
+
+    commitNonce(args, success, error) {
+        exec(success, error, "Wallet", "commitNonce", args);
+    };
+
+    releaseNonce(args, success, error) {
+        exec(success, error, "Wallet", "releaseNonce", args);
+    };
+
+    getNonceState(args, success, error) {
+        exec(success, error, "Wallet", "getNonceState", args);
+    };
+
     exportETHSCPrivateKey(args, success, error) {
         exec(success, error, "Wallet", "exportETHSCPrivateKey", args);
     };
@@ -477,6 +612,10 @@ class WalletManagerImpl implements WalletPlugin.WalletManager {
         exec(success, error, "Wallet", "createRegisterSidechainTransaction", args);
     };
 
+    proposalPipeline(args, success, error) {
+        exec(success, error, "Wallet", "proposalPipeline", args);
+    };
+
     // BTCSubwallet
     getLegacyAddresses(args, success, error) {
         _exec(success, error, "Wallet", "getLegacyAddresses", args);